@@ -0,0 +1,174 @@
+package se.vestige_be.configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import se.vestige_be.service.CatalogResponseCache;
+import se.vestige_be.service.ProductService;
+import se.vestige_be.util.CookieUtil;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Serves anonymous GETs of the public catalog from {@link CatalogResponseCache} and answers
+ * If-None-Match with 304. Requests carrying an access token always go to the controllers,
+ * since their responses may be personalized.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String PRODUCTS_PATH = "/api/products";
+
+    private static final List<String> CACHEABLE_PATHS = List.of(
+            PRODUCTS_PATH,
+            "/api/products/slug/*",
+            "/api/products/facets",
+            "/api/categories",
+            "/api/categories/**",
+            "/api/brands",
+            "/api/brands/**"
+    );
+
+    // Responses that list or count products, dropped on any product write
+    private static final Set<String> AGGREGATE_PATHS = Set.of(PRODUCTS_PATH, "/api/products/facets");
+
+    // Parameters whose values are parsed case-insensitively
+    private static final Set<String> CASE_INSENSITIVE_PARAMS = Set.of("sortDir", "condition", "status");
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final CatalogResponseCache catalogResponseCache;
+    private final ProductService productService;
+    private final CookieUtil cookieUtil;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return CACHEABLE_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!isAnonymous(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = cacheKey(request);
+        CatalogResponseCache.Entry cached = catalogResponseCache.get(key);
+        if (cached != null) {
+            if (cached.viewedProductId() != null) {
+                productService.incrementViewCount(cached.viewedProductId());
+            }
+            writeCached(request, response, cached);
+            return;
+        }
+
+        long generation = catalogResponseCache.currentGeneration();
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK) {
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+
+        Long viewedProductId = (Long) request.getAttribute(CatalogResponseCache.VIEWED_PRODUCT_ATTRIBUTE);
+        CatalogResponseCache.Entry entry = catalogResponseCache.put(key, generation,
+                responseWrapper.getContentAsByteArray(), responseWrapper.getContentType(),
+                viewedProductId, AGGREGATE_PATHS.contains(request.getServletPath()));
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (matchesEtag(request, entry.etag())) {
+            // The body is dropped with the wrapper
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void writeCached(HttpServletRequest request, HttpServletResponse response,
+                             CatalogResponseCache.Entry entry) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (matchesEtag(request, entry.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (entry.contentType() != null) {
+            response.setContentType(entry.contentType());
+        }
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    private boolean isAnonymous(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return (authHeader == null || authHeader.isBlank())
+                && cookieUtil.getAccessTokenFromCookies(request.getCookies()) == null;
+    }
+
+    // Path plus query parameters sorted by name, so equivalent URLs share an entry
+    private static String cacheKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getServletPath());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            for (String value : param.getValue()) {
+                String normalized = value;
+                if (CASE_INSENSITIVE_PARAMS.contains(param.getKey())) {
+                    normalized = normalized.toLowerCase(Locale.ROOT);
+                }
+                key.append(separator).append(param.getKey()).append('=')
+                        .append(URLEncoder.encode(normalized, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    // Weak comparison, as If-None-Match requires
+    private static boolean matchesEtag(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -72,7 +72,9 @@ public class SecurityConfig {
                                 "/api/products/{id:[0-9]+}",
                                 "/api/products/slug/{slug}",
                                 "/api/products/slug-available/{slug}",
-                                "/api/products/top-viewed"
+                                "/api/products/top-viewed",
+                                "/api/products/trending",
+                                "/api/products/facets"
                         ).permitAll()  // Public product endpoints
                         .requestMatchers(HttpMethod.GET, "/api/reviews/seller/{id:[0-9]+}").permitAll()  // Public seller reviews endpoint
                         .requestMatchers(HttpMethod.GET, "/api/reviews/seller/{id:[0-9]+}/rating").permitAll()  // Public seller rating endpoint
@@ -0,0 +1,31 @@
+package se.vestige_be.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class TransactionConfig {
+
+    public static final String REQUIRES_NEW_TEMPLATE = "requiresNewTransactionTemplate";
+
+    // Spring Boot only defines its own template when no other one exists, so the default is declared here too
+    @Bean
+    @Primary
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs the callback in a transaction of its own that commits before returning, whatever the caller runs in.
+     */
+    @Bean(REQUIRES_NEW_TEMPLATE)
+    public TransactionTemplate requiresNewTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,33 @@
+package se.vestige_be.configuration;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Counts the read-write transactions committed on each thread, so a caller can tell whether a piece
+ * of work it ran left anything durable behind. Registered with the auto-configured transaction
+ * manager as a {@link TransactionExecutionListener}; it has no dependencies, so the transaction
+ * manager can be built before any service.
+ */
+@Component
+public class WriteCommitTracker implements TransactionExecutionListener {
+
+    private final ThreadLocal<long[]> commits = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        // Joined transactions commit with their outer one
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            commits.get()[0]++;
+        }
+    }
+
+    /**
+     * Read-write commits on the current thread so far; compare two reads to see if any happened in between.
+     */
+    public long currentThreadCommits() {
+        return commits.get()[0];
+    }
+}
@@ -12,9 +12,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import se.vestige_be.dto.request.BulkConfirmDeliveryRequest;
+import se.vestige_be.dto.request.BulkConfirmPickupRequest;
+import se.vestige_be.dto.request.BulkDispatchRequest;
 import se.vestige_be.dto.request.ConfirmPickupRequest;
 import se.vestige_be.dto.request.ConfirmDeliveryRequest;
 import se.vestige_be.dto.response.ApiResponse;
+import se.vestige_be.dto.response.BulkLogisticsResponse;
 import se.vestige_be.dto.response.OrderDetailResponse;
 import se.vestige_be.dto.response.PickupItemResponse;
 
@@ -220,4 +224,58 @@ public class LogisticsController {
                 .data(order)
                 .build());
     }
+
+    @Operation(
+            summary = "Confirm many pickups",
+            description = "Confirms pickup for a list of order items, each with its evidence photos. " +
+                         "Items are processed in chunks; an item that cannot be picked up is reported in the results " +
+                         "without affecting the others."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/bulk/confirm-pickup")
+    public ResponseEntity<ApiResponse<BulkLogisticsResponse>> confirmPickups(
+            @Valid @RequestBody BulkConfirmPickupRequest request) {
+
+        BulkLogisticsResponse result = logisticsService.confirmPickups(request.getPickups());
+
+        return ResponseEntity.ok(ApiResponse.<BulkLogisticsResponse>builder()
+                .message(result.getSucceeded() + " of " + result.getRequested() + " pickups confirmed")
+                .data(result)
+                .build());
+    }
+
+    @Operation(
+            summary = "Dispatch many items",
+            description = "Marks a list of order items as out for delivery. Items not in the warehouse are reported in the results."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/bulk/dispatch")
+    public ResponseEntity<ApiResponse<BulkLogisticsResponse>> dispatchItems(
+            @Valid @RequestBody BulkDispatchRequest request) {
+
+        BulkLogisticsResponse result = logisticsService.dispatchItems(request.getOrderItemIds());
+
+        return ResponseEntity.ok(ApiResponse.<BulkLogisticsResponse>builder()
+                .message(result.getSucceeded() + " of " + result.getRequested() + " items dispatched")
+                .data(result)
+                .build());
+    }
+
+    @Operation(
+            summary = "Confirm many deliveries",
+            description = "Confirms delivery for a list of order items, each with its photo evidence, and releases escrow for each. " +
+                         "Items that cannot be confirmed are reported in the results."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/bulk/confirm-delivery")
+    public ResponseEntity<ApiResponse<BulkLogisticsResponse>> confirmDeliveries(
+            @Valid @RequestBody BulkConfirmDeliveryRequest request) {
+
+        BulkLogisticsResponse result = logisticsService.confirmDeliveries(request.getDeliveries());
+
+        return ResponseEntity.ok(ApiResponse.<BulkLogisticsResponse>builder()
+                .message(result.getSucceeded() + " of " + result.getRequested() + " deliveries confirmed")
+                .data(result)
+                .build());
+    }
 }
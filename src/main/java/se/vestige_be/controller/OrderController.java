@@ -11,12 +11,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import se.vestige_be.dto.request.OrderCreateRequest;
 import se.vestige_be.dto.request.OrderStatusUpdateRequest;
 import se.vestige_be.dto.request.PaymentConfirmationRequest;
@@ -24,7 +27,12 @@ import se.vestige_be.dto.request.OrderActionRequest;
 import se.vestige_be.dto.response.*;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.pojo.User;
+import se.vestige_be.service.AdminExportService;
+import se.vestige_be.service.IdempotencyService;
 import se.vestige_be.service.OrderService;
+import se.vestige_be.service.PaymentOutboxService;
+import se.vestige_be.service.SalesAggregationService;
+import se.vestige_be.service.UserOrderStatsService;
 import se.vestige_be.service.UserService;
 import se.vestige_be.service.PayOsPaymentService;
 import se.vestige_be.util.PaginationUtils;
@@ -44,13 +52,20 @@ import java.util.Map;
 @Slf4j
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
     private final UserService userService;
     private final PayOsPaymentService payOsPaymentService;
+    private final AdminExportService adminExportService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentOutboxService paymentOutboxService;
+    private final SalesAggregationService salesAggregationService;
+    private final UserOrderStatsService userOrderStatsService;
 
     @Operation(
             summary = "Create a new order",
-            description = "Creates a new order with the specified items and shipping address. Supports multiple payment methods including Stripe and COD. Returns payment client secret for Stripe payments."
+            description = "Creates a new order with the specified items and shipping address. Supports multiple payment methods including Stripe and COD. For Stripe the client secret is available from GET /api/orders/{orderId}/payment once the payment intent is set up."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -77,13 +92,17 @@ public class OrderController {
     public ResponseEntity<ApiResponse<OrderDetailResponse>> createOrder(
             @Parameter(description = "Order creation data including items and shipping address", required = true)
             @Valid @RequestBody OrderCreateRequest request,
+
+            @Parameter(description = "Client-generated key that makes retries of this request return the first result instead of creating another order")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             
             @Parameter(hidden = true)
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = userService.findByUsername(userDetails.getUsername());
 
-        OrderDetailResponse order = orderService.createOrder(request, user.getUserId());
+        OrderDetailResponse order = idempotencyService.execute("create-order", user.getUserId(), idempotencyKey,
+                request, OrderDetailResponse.class, () -> orderService.createOrder(request, user.getUserId()));
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.<OrderDetailResponse>builder()
@@ -121,13 +140,18 @@ public class OrderController {
     public ResponseEntity<ApiResponse<PayOsPaymentService.PaymentResponse>> createPayOsPayment(
             @Parameter(description = "Order creation data for PayOS payment", required = true)
             @Valid @RequestBody OrderCreateRequest request,
+
+            @Parameter(description = "Client-generated key that makes retries of this request return the first result instead of creating another payment")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             
             @Parameter(hidden = true)
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = userService.findByUsername(userDetails.getUsername());
         
-        PayOsPaymentService.PaymentResponse paymentResponse = payOsPaymentService.createPayment(user.getUserId(), request);
+        PayOsPaymentService.PaymentResponse paymentResponse = idempotencyService.execute("create-payos-payment",
+                user.getUserId(), idempotencyKey, request, PayOsPaymentService.PaymentResponse.class,
+                () -> payOsPaymentService.createPayment(user.getUserId(), request));
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.<PayOsPaymentService.PaymentResponse>builder()
@@ -180,15 +204,26 @@ public class OrderController {
             @Parameter(description = "User role perspective", example = "buyer",
                       schema = @Schema(allowableValues = {"buyer", "seller"}))
             @RequestParam(defaultValue = "buyer") String role,
+
+            @Parameter(description = "Opaque cursor for infinite scroll (buyer role only). Send an empty value for the first page, " +
+                    "then the returned nextCursor. When present, page and sort are ignored and orders are returned newest first")
+            @RequestParam(required = false) String cursor,
             
             @Parameter(hidden = true)
             @AuthenticationPrincipal UserDetails userDetails) {
 
         User user = userService.findByUsername(userDetails.getUsername());
-        Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
 
-        PagedResponse<OrderListResponse> orders = orderService.getUserOrders(
-                user.getUserId(), status, role, pageable);
+        PagedResponse<OrderListResponse> orders;
+        if (cursor != null) {
+            if ("seller".equalsIgnoreCase(role)) {
+                throw new BusinessLogicException("Cursor pagination is only supported for buyer orders");
+            }
+            orders = orderService.getBuyerOrdersByCursor(user.getUserId(), status, cursor, size);
+        } else {
+            Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
+            orders = orderService.getUserOrders(user.getUserId(), status, role, pageable);
+        }
 
         return ResponseEntity.ok(ApiResponse.<PagedResponse<OrderListResponse>>builder()
                 .message("Orders retrieved successfully")
@@ -239,6 +274,48 @@ public class OrderController {
                 .data(order)
                 .build());    }
 
+    @Operation(
+            summary = "Get payment setup state of an order",
+            description = "Stripe and PayOS payments are set up with the provider after the order is placed. Poll this until status is COMPLETED to get the Stripe client secret or the PayOS checkout URL."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Payment state retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = PaymentSessionResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Access denied - Only the buyer can view the payment"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Order not found or not paid online"
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/{orderId}/payment")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<PaymentSessionResponse>> getPaymentSession(
+            @Parameter(description = "Order ID", required = true, example = "1")
+            @PathVariable Long orderId,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        User user = userService.findByUsername(userDetails.getUsername());
+        PaymentSessionResponse session = paymentOutboxService.getPaymentSession(orderId, user.getUserId());
+
+        return ResponseEntity.ok(ApiResponse.<PaymentSessionResponse>builder()
+                .message("Payment state retrieved successfully")
+                .data(session)
+                .build());
+    }
+
     @Operation(
             summary = "Confirm payment for an order",
             description = "Confirms payment for a pending order using Stripe payment intent. Transitions order to PROCESSING status and sets product status to SOLD."
@@ -507,6 +584,24 @@ public class OrderController {
                 .build());
     }
 
+    @Operation(
+            summary = "[ADMIN] Rebuild user order statistics",
+            description = "Recomputes every user's order summary row from their orders and sold items. Rows are otherwise kept up to date on order changes and backfilled in the background; use this after manual data fixes."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/admin/users/order-summary/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildUserOrderSummaries() {
+        log.info("Admin rebuilding user order statistics");
+
+        int rebuilt = userOrderStatsService.rebuildAll();
+
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .message("User order statistics rebuilt successfully")
+                .data(Map.of("usersRebuilt", rebuilt))
+                .build());
+    }
+
     @Operation(
             summary = "[ADMIN] Force update any user's order",
             description = "Admin-only endpoint to force update any order for any user. Provides full admin control over order management."
@@ -620,6 +715,44 @@ public class OrderController {
                 .build());
     }
 
+    @Operation(
+            summary = "[ADMIN] Export orders",
+            description = "Admin-only endpoint that streams every order matching the filters as CSV or NDJSON, oldest first. Uses the same filters as /admin/all without paging."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrdersForAdmin(
+            @Parameter(description = "Export format", schema = @Schema(allowableValues = {"csv", "ndjson"}))
+            @RequestParam(defaultValue = "csv") String format,
+
+            @Parameter(description = "Filter by order status")
+            @RequestParam(required = false) String status,
+
+            @Parameter(description = "Filter by buyer ID")
+            @RequestParam(required = false) Long buyerId,
+
+            @Parameter(description = "Filter by seller ID")
+            @RequestParam(required = false) Long sellerId,
+
+            @Parameter(description = "Search in buyer username or order ID")
+            @RequestParam(required = false) String search,
+
+            @Parameter(description = "Start date for filtering (ISO format)", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) String startDate,
+
+            @Parameter(description = "End date for filtering (ISO format)", example = "2024-12-31T23:59:59")
+            @RequestParam(required = false) String endDate) {
+
+        AdminExportService.Format exportFormat = AdminExportService.Format.parse(format);
+        LocalDateTime start = orderService.parseDateTime(startDate);
+        LocalDateTime end = orderService.parseDateTime(endDate);
+
+        StreamingResponseBody body = out -> adminExportService.exportOrders(
+                status, buyerId, sellerId, search, start, end, exportFormat, out);
+        return exportResponse("orders", exportFormat, body);
+    }
+
     @Operation(
             summary = "[ADMIN] Force update order status",
             description = "Admin-only endpoint to force change order status regardless of current state. Useful for handling edge cases and manual intervention."
@@ -811,22 +944,22 @@ public class OrderController {
 
     @Operation(
             summary = "Admin: Trigger cleanup of expired orders",
-            description = "Manually trigger cleanup of expired orders (normally runs automatically every 15 minutes)"
+            description = "Manually trigger cleanup of expired orders (orders normally expire automatically at their payment deadline)"
     )
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping("/admin/cleanup-expired")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Map<String, Object>>> triggerExpiredOrderCleanup() {
         try {
-            LocalDateTime thirtyMinutesAgo = LocalDateTime.now().minusMinutes(30);
+            LocalDateTime cutoffTime = orderService.getPaymentDeadlineCutoff();
             
-            List<se.vestige_be.pojo.Order> expiredOrders = orderService.findExpiredOrders(thirtyMinutesAgo);
+            List<se.vestige_be.pojo.Order> expiredOrders = orderService.findExpiredOrders(cutoffTime);
             int cleanedCount = orderService.cleanupExpiredOrdersManually();
             
             Map<String, Object> result = Map.of(
                 "foundExpiredOrders", expiredOrders.size(),
                 "cleanedUpOrders", cleanedCount,
-                "cutoffTime", thirtyMinutesAgo.toString()
+                "cutoffTime", cutoffTime.toString()
             );
             
             return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
@@ -877,6 +1010,30 @@ public class OrderController {
                 .build());
     }
 
+    @Operation(
+            summary = "Get seller sales insights",
+            description = "Delivered items of the authenticated seller's orders created in [startDate, endDate), broken down by category, brand and price band. Defaults to the last 30 days."
+    )
+    @GetMapping("/seller/insights")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<SalesInsightsResponse>> getSellerInsights(
+            @Parameter(description = "Start date (ISO format), inclusive") @RequestParam(required = false) String startDate,
+            @Parameter(description = "End date (ISO format), exclusive") @RequestParam(required = false) String endDate,
+            @Parameter(description = "Entries per ranking (1-50)") @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User user = userService.findByUsername(userDetails.getUsername());
+        LocalDateTime end = endDate != null ? orderService.parseDateTime(endDate) : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? orderService.parseDateTime(startDate) : end.minusDays(30);
+
+        SalesInsightsResponse insights = salesAggregationService.getSellerInsights(
+                user.getUserId(), start, end, Math.max(1, Math.min(limit, 50)));
+
+        return ResponseEntity.ok(ApiResponse.<SalesInsightsResponse>builder()
+                .message("Seller insights retrieved successfully")
+                .data(insights)
+                .build());
+    }
+
     // ==================== ADMIN DASHBOARD ENDPOINTS ====================
 
     @Operation(
@@ -953,6 +1110,27 @@ public class OrderController {
                 .build());
     }
 
+    @Operation(
+            summary = "[ADMIN] Get sales insights",
+            description = "Delivered items of orders created in [startDate, endDate), broken down by category, brand, seller and price band. Defaults to the last 30 days."
+    )
+    @GetMapping("/admin/sales-insights")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<SalesInsightsResponse>> getSalesInsights(
+            @Parameter(description = "Start date (ISO format), inclusive") @RequestParam(required = false) String startDate,
+            @Parameter(description = "End date (ISO format), exclusive") @RequestParam(required = false) String endDate,
+            @Parameter(description = "Entries per ranking (1-50)") @RequestParam(defaultValue = "10") int limit) {
+        LocalDateTime end = endDate != null ? orderService.parseDateTime(endDate) : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? orderService.parseDateTime(startDate) : end.minusDays(30);
+
+        SalesInsightsResponse insights = salesAggregationService.getSalesInsights(start, end, Math.max(1, Math.min(limit, 50)));
+
+        return ResponseEntity.ok(ApiResponse.<SalesInsightsResponse>builder()
+                .message("Sales insights retrieved successfully")
+                .data(insights)
+                .build());
+    }
+
     @Operation(
             summary = "[ADMIN] Get all transactions with filtering",
             description = "Get paginated list of all transactions with comprehensive filtering options for admin dashboard."
@@ -983,6 +1161,41 @@ public class OrderController {
                 .build());
     }
 
+    @Operation(
+            summary = "[ADMIN] Export transactions",
+            description = "Streams every transaction matching the filters as CSV or NDJSON, oldest first. Uses the same filters as /admin/transactions without paging."
+    )
+    @GetMapping("/admin/transactions/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "Export format", schema = @Schema(allowableValues = {"csv", "ndjson"}))
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Transaction status filter") @RequestParam(required = false) String status,
+            @Parameter(description = "Escrow status filter") @RequestParam(required = false) String escrowStatus,
+            @Parameter(description = "Buyer ID filter") @RequestParam(required = false) Long buyerId,
+            @Parameter(description = "Seller ID filter") @RequestParam(required = false) Long sellerId,
+            @Parameter(description = "Start date (YYYY-MM-DD)") @RequestParam(required = false) String startDate,
+            @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam(required = false) String endDate,
+            @Parameter(description = "Search term") @RequestParam(required = false) String search
+    ) {
+        AdminExportService.Format exportFormat = AdminExportService.Format.parse(format);
+        LocalDateTime start = startDate != null ? orderService.parseDateTime(startDate) : null;
+        LocalDateTime end = endDate != null ? orderService.parseDateTime(endDate) : null;
+
+        StreamingResponseBody body = out -> adminExportService.exportTransactions(
+                status, escrowStatus, buyerId, sellerId, start, end, search, exportFormat, out);
+        return exportResponse("transactions", exportFormat, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String name, AdminExportService.Format format,
+                                                                 StreamingResponseBody body) {
+        String filename = name + "-" + LocalDateTime.now().withNano(0).toString().replace(":", "") + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, format.getContentType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
     @Operation(
             summary = "[ADMIN] Get problem transactions",
             description = "Get transactions that require admin attention (disputes, failed transfers, stuck escrows, etc.)"
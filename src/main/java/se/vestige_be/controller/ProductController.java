@@ -7,6 +7,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,10 +25,14 @@ import se.vestige_be.dto.request.ProductImageRequest;
 import se.vestige_be.dto.request.ProductUpdateRequest;
 import se.vestige_be.dto.response.ApiResponse;
 import se.vestige_be.dto.response.PagedResponse;
+import se.vestige_be.dto.response.ProductFacetResponse;
 import se.vestige_be.dto.response.ProductDetailResponse;
 import se.vestige_be.dto.response.ProductFilterResponse;
 import se.vestige_be.dto.response.ProductListResponse;
+import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.pojo.User;
+import se.vestige_be.service.CatalogResponseCache;
+import se.vestige_be.service.ProductFacetService;
 import se.vestige_be.service.ProductService;
 import se.vestige_be.service.UserService;
 import se.vestige_be.service.MembershipService;
@@ -37,6 +42,7 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -50,6 +56,7 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductFacetService productFacetService;
     private final UserService userService;
     private final MembershipService membershipService;
     @Operation(
@@ -107,7 +114,11 @@ public class ProductController {
             @RequestParam(required = false) String status,
             
             @Parameter(description = "Filter by seller ID")
-            @RequestParam(required = false) Long sellerId) {
+            @RequestParam(required = false) Long sellerId,
+
+            @Parameter(description = "Opaque cursor for infinite scroll. Send an empty value for the first page, then the returned nextCursor. " +
+                    "When present, page and sort are ignored and results are ordered newest first")
+            @RequestParam(required = false) String cursor) {
 
         ProductFilterResponse filterDto = ProductFilterResponse.builder()
                 .search(search)
@@ -120,9 +131,6 @@ public class ProductController {
                 .sellerId(sellerId)
                 .build();
 
-        Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
-        Page<ProductListResponse> products = productService.getProducts(filterDto, pageable);
-
         Map<String, Object> filters = PaginationUtils.createFilters(search, categoryId, brandId);
         if (minPrice != null || maxPrice != null) {
             filters.put("priceRange", Map.of(
@@ -134,7 +142,15 @@ public class ProductController {
         if (status != null) filters.put("status", status);
         if (sellerId != null) filters.put("sellerId", sellerId);
 
-        PagedResponse<ProductListResponse> pagedResponse = PagedResponse.of(products, filters);
+        PagedResponse<ProductListResponse> pagedResponse;
+        if (cursor != null) {
+            pagedResponse = productService.getProductsByCursor(filterDto, cursor, size);
+            pagedResponse.setFilters(filters);
+        } else {
+            Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
+            Page<ProductListResponse> products = productService.getProducts(filterDto, pageable);
+            pagedResponse = PagedResponse.of(products, filters);
+        }
 
         return ResponseEntity.ok(ApiResponse.<PagedResponse<ProductListResponse>>builder()
                 .status(HttpStatus.OK.toString())
@@ -142,6 +158,52 @@ public class ProductController {
                 .data(pagedResponse)
                 .build());    }
 
+    @Operation(
+            summary = "Get product facet counts",
+            description = "Counts of active products per category (including subcategories), brand, condition and price range " +
+                    "for the same filters as the product list. Each facet ignores its own filter, so the other values stay selectable."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Facet counts retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ProductFacetResponse.class))
+            )
+    })
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ProductFacetResponse>> getProductFacets(
+            @Parameter(description = "Search term to filter by title, description, brand or category")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Filter by category ID")
+            @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Filter by brand ID")
+            @RequestParam(required = false) Long brandId,
+            @Parameter(description = "Minimum price filter", example = "100000")
+            @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price filter", example = "500000")
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Filter by product condition")
+            @RequestParam(required = false) String condition,
+            @Parameter(description = "Filter by seller ID")
+            @RequestParam(required = false) Long sellerId) {
+
+        ProductFilterResponse filterDto = ProductFilterResponse.builder()
+                .search(search)
+                .categoryId(categoryId)
+                .brandId(brandId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .condition(condition)
+                .sellerId(sellerId)
+                .build();
+
+        return ResponseEntity.ok(ApiResponse.<ProductFacetResponse>builder()
+                .status(HttpStatus.OK.toString())
+                .message("Product facets retrieved successfully")
+                .data(productFacetService.getFacets(filterDto))
+                .build());
+    }
+
     @Operation(
             summary = "Get product details by ID",
             description = "Retrieve detailed information about a specific product. This endpoint is public and also increments the product's view count."
@@ -193,10 +255,13 @@ public class ProductController {
     @GetMapping("/slug/{slug}")
     public ResponseEntity<ApiResponse<ProductDetailResponse>> getProductBySlug(
             @Parameter(description = "Product slug", required = true, example = "apple-iphone-15-pro-max")
-            @PathVariable String slug) {
+            @PathVariable String slug,
+            HttpServletRequest request) {
         
         try {
             ProductDetailResponse product = productService.getProductBySlug(slug);
+            // Cached copies of this response still count as views
+            request.setAttribute(CatalogResponseCache.VIEWED_PRODUCT_ATTRIBUTE, product.getProductId());
             return ResponseEntity.ok(ApiResponse.<ProductDetailResponse>builder()
                     .status(HttpStatus.OK.toString())
                     .message("Product retrieved successfully")
@@ -714,7 +779,7 @@ public class ProductController {
 
     @Operation(
             summary = "Get top viewed products",
-            description = "Retrieve top N active products sorted by view count descending."
+            description = "Retrieve top N (max 50) active products by recent popularity (views and likes over the last 24 hours), topped up with all-time most viewed when there is little recent activity."
     )
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -735,6 +800,32 @@ public class ProductController {
                 .build());
     }
 
+    @Operation(
+        summary = "Get trending products",
+        description = "Retrieve the currently most popular active products, based on views and likes over the last 24 hours " +
+                "with recent activity weighted higher. Optionally limited to a category and its subcategories."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Trending products retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ProductListResponse.class))
+        )
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<ProductListResponse>>> getTrendingProducts(
+            @Parameter(description = "Filter by category ID (includes subcategories)")
+            @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Number of products to retrieve (max 50)", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        List<ProductListResponse> products = productService.getTrendingProducts(categoryId, limit);
+        return ResponseEntity.ok(ApiResponse.<List<ProductListResponse>>builder()
+                .status(HttpStatus.OK.toString())
+                .message("Trending products retrieved successfully")
+                .data(products)
+                .build());
+    }
+
     @Operation(
         summary = "Like a product",
         description = "Authenticated user likes a product."
@@ -803,6 +894,27 @@ public class ProductController {
         }
     }
 
+    @Operation(
+        summary = "Get like state for a list of products",
+        description = "Returns which of the given product IDs the authenticated user has liked, so product cards can show like state with a single request."
+    )
+    @GetMapping("/liked")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<Set<Long>>> getLikedProductIds(
+            @Parameter(description = "Product IDs to check (max 100)", example = "1,2,3")
+            @RequestParam List<Long> productIds,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (productIds.size() > 100) {
+            throw new BusinessLogicException("At most 100 product IDs can be checked at once");
+        }
+        User user = userService.findByUsername(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.<Set<Long>>builder()
+                .status(HttpStatus.OK.toString())
+                .message("Liked products retrieved successfully")
+                .data(productService.getLikedProductIds(user.getUserId(), productIds))
+                .build());
+    }
+
     @Operation(
         summary = "Boost a product",
         description = "Boost a product using membership benefits to increase its visibility."
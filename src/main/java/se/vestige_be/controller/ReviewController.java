@@ -156,10 +156,19 @@ public class ReviewController {
             
             @Parameter(description = "Sort direction", example = "desc",
                       schema = @Schema(allowableValues = {"asc", "desc"}))
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
 
-        Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
-        PagedResponse<ReviewResponse> reviews = reviewService.getSellerReviews(sellerId, pageable);
+            @Parameter(description = "Opaque cursor for infinite scroll. Send an empty value for the first page, then the returned nextCursor. " +
+                    "When present, page and sort are ignored and reviews are returned newest first")
+            @RequestParam(required = false) String cursor) {
+
+        PagedResponse<ReviewResponse> reviews;
+        if (cursor != null) {
+            reviews = reviewService.getSellerReviewsByCursor(sellerId, cursor, size);
+        } else {
+            Pageable pageable = PaginationUtils.createPageable(page, size, sortBy, sortDir);
+            reviews = reviewService.getSellerReviews(sellerId, pageable);
+        }
         
         return ResponseEntity.ok(ApiResponse.<PagedResponse<ReviewResponse>>builder()
                 .message("Seller reviews retrieved successfully")
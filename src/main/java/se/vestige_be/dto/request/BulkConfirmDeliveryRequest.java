@@ -0,0 +1,33 @@
+package se.vestige_be.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConfirmDeliveryRequest {
+
+    @NotEmpty(message = "At least one delivery is required")
+    @Size(max = 1000, message = "At most 1000 deliveries per request")
+    private List<@Valid Delivery> deliveries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Delivery {
+        @NotNull(message = "Order Item ID is required")
+        private Long orderItemId;
+
+        @NotEmpty(message = "At least one photo URL is required as proof of delivery.")
+        @Size(max = 10, message = "Must provide between 1 and 10 photo URLs")
+        private List<@Size(max = 512) String> photoUrls;
+    }
+}
@@ -0,0 +1,20 @@
+package se.vestige_be.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConfirmPickupRequest {
+
+    @NotEmpty(message = "At least one pickup is required")
+    @Size(max = 1000, message = "At most 1000 pickups per request")
+    private List<@Valid ConfirmPickupRequest> pickups;
+}
@@ -0,0 +1,20 @@
+package se.vestige_be.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDispatchRequest {
+
+    @NotEmpty(message = "At least one order item ID is required")
+    @Size(max = 1000, message = "At most 1000 items per request")
+    private List<@NotNull Long> orderItemIds;
+}
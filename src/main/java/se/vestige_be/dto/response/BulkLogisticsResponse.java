@@ -0,0 +1,32 @@
+package se.vestige_be.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkLogisticsResponse {
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private Long orderItemId;
+        private Long orderId;
+        private boolean success;
+        private OrderItemStatus status;
+        private String trackingNumber;
+        private String error;
+    }
+}
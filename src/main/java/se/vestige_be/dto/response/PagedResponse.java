@@ -1,5 +1,6 @@
 package se.vestige_be.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,6 +9,7 @@ import org.springframework.data.domain.Page;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Data
 @Builder
@@ -27,6 +29,11 @@ public class PagedResponse<T> {
         private int pageSize;
         private int totalPages;
         private Long totalElements;
+        // Only set in cursor mode, where no count query is run
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String nextCursor;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Boolean hasNext;
     }
 
     public static <T> PagedResponse<T> of(Page<T> page) {
@@ -47,4 +54,22 @@ public class PagedResponse<T> {
         return response;
     }
 
+    /**
+     * Builds a keyset page from rows fetched with a limit of pageSize + 1; the extra row only signals that more data exists.
+     */
+    public static <E, T> PagedResponse<T> ofCursor(List<E> rows, int pageSize,
+                                                   Function<E, T> mapper,
+                                                   Function<E, String> cursorOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        return PagedResponse.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .pagination(PageMetadata.builder()
+                        .pageSize(pageSize)
+                        .hasNext(hasNext)
+                        .nextCursor(hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null)
+                        .build())
+                .build();
+    }
+
 }
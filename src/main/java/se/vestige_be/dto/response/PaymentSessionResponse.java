@@ -0,0 +1,23 @@
+package se.vestige_be.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import se.vestige_be.pojo.enums.PaymentMethod;
+import se.vestige_be.pojo.enums.PaymentOutboxStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentSessionResponse {
+    private Long orderId;
+    private PaymentMethod provider;
+    private PaymentOutboxStatus status;
+    private int attempts;
+    private String paymentIntentId;
+    private String clientSecret;
+    private String payosOrderCode;
+    private String checkoutUrl;
+    private String error;
+}
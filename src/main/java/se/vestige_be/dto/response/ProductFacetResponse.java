@@ -0,0 +1,46 @@
+package se.vestige_be.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+    // Products matching every filter
+    private long totalCount;
+    // Counts include subcategories; each facet ignores its own filter so siblings stay selectable
+    private List<FacetValue> categories;
+    private List<FacetValue> brands;
+    private List<FacetValue> conditions;
+    private List<PriceRange> priceRanges;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Long id;
+        private String name;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRange {
+        private BigDecimal min;
+        // Null for the open-ended top range
+        private BigDecimal max;
+        private long count;
+    }
+}
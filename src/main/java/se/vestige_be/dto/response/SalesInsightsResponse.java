@@ -0,0 +1,50 @@
+package se.vestige_be.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesInsightsResponse {
+    // Delivered items of orders created in [startDate, endDate)
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private long itemsSold;
+    private BigDecimal revenue;
+    private List<RankedValue> topCategories;
+    private List<RankedValue> topBrands;
+    // Empty for a single seller's insights
+    private List<RankedValue> topSellers;
+    private List<PriceBand> priceBands;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RankedValue {
+        private Long id;
+        private String name;
+        private long itemsSold;
+        private BigDecimal revenue;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBand {
+        private BigDecimal min;
+        // Null for the open-ended top band
+        private BigDecimal max;
+        private long itemsSold;
+        private BigDecimal revenue;
+    }
+}
@@ -0,0 +1,16 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a brand is created, updated or deleted.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class BrandChangedEvent {
+    private final Long brandId;
+}
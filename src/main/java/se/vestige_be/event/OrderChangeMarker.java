@@ -0,0 +1,122 @@
+package se.vestige_be.event;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.vestige_be.pojo.OrderDetailView;
+import se.vestige_be.pojo.PendingOrderChange;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * Marks what is derived from an order as out of date inside the transaction that writes the order, so
+ * nothing kept in memory has to survive for it to be corrected: the order's detail document is deleted,
+ * so readers build the response from the order until it is rebuilt, and the order is queued in
+ * pending_order_changes for every {@link OrderChangeConsumer}.
+ * <p>
+ * Receives {@link OrderChangedEvent} and {@link TransactionChangedEvent} synchronously, while the writer
+ * flushes, and registers one Hibernate before-completion process per session that runs after the final
+ * flush and before the commit. Spring's before-commit callbacks would be too early, as Hibernate only
+ * flushes entity writes while committing.
+ */
+@Component
+public class OrderChangeMarker {
+
+    private final EntityManager entityManager;
+    // Marks of each session's running transaction; a session rolled back before its marks ran is
+    // dropped with the session
+    private final Map<SessionImplementor, Marks> pending = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public OrderChangeMarker(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        Marks marks = currentMarks();
+        if (marks != null) {
+            marks.orderIds.add(event.getOrderId());
+        }
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        Marks marks = currentMarks();
+        if (marks != null) {
+            marks.orderItemIds.add(event.getOrderItemId());
+        }
+    }
+
+    private Marks currentMarks() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Nothing is written outside a transaction
+            return null;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        return pending.computeIfAbsent(session, s -> {
+            Marks marks = new Marks();
+            s.getActionQueue().registerProcess(marks);
+            return marks;
+        });
+    }
+
+    private class Marks implements BeforeTransactionCompletionProcess {
+
+        // Sorted, so concurrent writers lock orders in the same order
+        private final Set<Long> orderIds = new TreeSet<>();
+        private final Set<Long> orderItemIds = new HashSet<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            pending.remove(session);
+            if (!orderItemIds.isEmpty()) {
+                orderIds.addAll(toIds(session.createNativeQuery(
+                                "SELECT DISTINCT order_id FROM order_items WHERE order_item_id IN (:orderItemIds)")
+                        .setParameterList("orderItemIds", orderItemIds)
+                        .getResultList()));
+            }
+            if (orderIds.isEmpty()) {
+                return;
+            }
+
+            // A rebuild holds the order row while it reads the order and stores the document, so waiting
+            // for it here keeps a document built from the previous state from landing after the delete
+            session.createNativeQuery("SELECT order_id FROM orders WHERE order_id IN (:orderIds) ORDER BY order_id FOR UPDATE")
+                    .setParameterList("orderIds", orderIds)
+                    .getResultList();
+            session.createNativeQuery("DELETE FROM order_detail_views WHERE order_id IN (:orderIds)")
+                    .addSynchronizedEntityClass(OrderDetailView.class)
+                    .setParameterList("orderIds", orderIds)
+                    .executeUpdate();
+
+            // Updating a row already queued locks it, so a consumer taking it off the queue waits for this commit
+            LocalDateTime now = LocalDateTime.now();
+            for (OrderChangeConsumer consumer : OrderChangeConsumer.values()) {
+                session.createNativeQuery("INSERT INTO pending_order_changes (consumer, order_id, marked_at) " +
+                                "SELECT :consumer, order_id, :now FROM orders WHERE order_id IN (:orderIds) " +
+                                "ON CONFLICT (consumer, order_id) DO UPDATE SET marked_at = EXCLUDED.marked_at")
+                        .addSynchronizedEntityClass(PendingOrderChange.class)
+                        .setParameter("consumer", consumer.name())
+                        .setParameter("now", now)
+                        .setParameterList("orderIds", orderIds)
+                        .executeUpdate();
+            }
+        }
+    }
+
+    private static List<Long> toIds(Collection<?> rows) {
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+}
@@ -0,0 +1,16 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published whenever an order, one of its items, or a review on one of its items is written.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderChangedEvent {
+    private final Long orderId;
+}
@@ -0,0 +1,19 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a buyer places an order, which starts its payment deadline.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderCreatedEvent {
+    private final Long orderId;
+    private final LocalDateTime createdAt;
+}
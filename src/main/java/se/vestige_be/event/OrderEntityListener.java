@@ -0,0 +1,64 @@
+package se.vestige_be.event;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import se.vestige_be.pojo.Order;
+import se.vestige_be.pojo.OrderItem;
+import se.vestige_be.pojo.Transaction;
+
+/**
+ * JPA listener that turns every order and order item write into an {@link OrderChangedEvent},
+ * and every status transition into an {@link OrderStatusChangedEvent} or {@link OrderItemStatusChangedEvent}.
+ * Writes to an order item's transaction become a {@link TransactionChangedEvent}.
+ * The status read from the database is remembered on the entity so a write can tell what it moved from.
+ * Instantiated by Hibernate through Spring's bean container, so it is not a @Component.
+ */
+public class OrderEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        if (entity instanceof Order order) {
+            order.setPersistedStatus(order.getStatus());
+        } else if (entity instanceof OrderItem item) {
+            item.setPersistedStatus(item.getStatus());
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        Long orderId = null;
+        if (entity instanceof Order order) {
+            orderId = order.getOrderId();
+            if (order.getStatus() != order.getPersistedStatus()) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                        orderId, order.getPersistedStatus(), order.getStatus(), order.getTotalAmount()));
+                order.setPersistedStatus(order.getStatus());
+            }
+        } else if (entity instanceof OrderItem item) {
+            if (item.getStatus() != item.getPersistedStatus()) {
+                eventPublisher.publishEvent(new OrderItemStatusChangedEvent(
+                        item.getOrderItemId(), item.getPersistedStatus(), item.getStatus(), item.getPlatformFee()));
+                item.setPersistedStatus(item.getStatus());
+            }
+            if (item.getOrder() != null) {
+                // Reading the id does not initialize a lazy proxy
+                orderId = item.getOrder().getOrderId();
+            }
+        } else if (entity instanceof Transaction transaction && transaction.getOrderItem() != null) {
+            // Loading the order here would query from inside the flush, so only the item id is passed on
+            eventPublisher.publishEvent(new TransactionChangedEvent(transaction.getOrderItem().getOrderItemId()));
+        }
+        if (orderId != null) {
+            eventPublisher.publishEvent(new OrderChangedEvent(orderId));
+        }
+    }
+}
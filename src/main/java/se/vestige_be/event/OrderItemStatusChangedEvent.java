@@ -0,0 +1,22 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when an order item is created ({@code from} is null) or moves to another status.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderItemStatusChangedEvent {
+    private final Long orderItemId;
+    private final OrderItemStatus from;
+    private final OrderItemStatus to;
+    private final BigDecimal platformFee;
+}
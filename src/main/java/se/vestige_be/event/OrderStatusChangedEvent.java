@@ -0,0 +1,22 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import se.vestige_be.pojo.enums.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when an order is created ({@code from} is null) or moves to another status.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final OrderStatus from;
+    private final OrderStatus to;
+    private final BigDecimal totalAmount;
+}
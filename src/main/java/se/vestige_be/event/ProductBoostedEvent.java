@@ -0,0 +1,20 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a seller boosts a product.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductBoostedEvent {
+    private final Long productId;
+    private final LocalDateTime productCreatedAt;
+    private final LocalDateTime boostEndTime;
+}
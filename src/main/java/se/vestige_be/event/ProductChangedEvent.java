@@ -0,0 +1,17 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published whenever a product row is inserted, updated or removed.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductChangedEvent {
+    private final Long productId;
+    private final boolean removed;
+}
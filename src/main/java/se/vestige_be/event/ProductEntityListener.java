@@ -0,0 +1,33 @@
+package se.vestige_be.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import se.vestige_be.pojo.Product;
+
+/**
+ * JPA listener that turns every product write into a {@link ProductChangedEvent}.
+ * Hooking the entity (instead of individual services) means status changes made by
+ * orders, payments and cleanup jobs reach the in-memory product views as well.
+ * Instantiated by Hibernate through Spring's bean container, so it is not a @Component.
+ */
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductId(), false));
+    }
+
+    @PostRemove
+    public void onRemove(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductId(), true));
+    }
+}
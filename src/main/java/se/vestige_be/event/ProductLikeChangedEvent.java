@@ -0,0 +1,17 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a user likes or unlikes a product.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductLikeChangedEvent {
+    private final Long productId;
+    private final boolean liked;
+}
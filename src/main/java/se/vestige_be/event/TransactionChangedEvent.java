@@ -0,0 +1,18 @@
+package se.vestige_be.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published whenever a transaction row of an order item is written (escrow, dispute, transfer or
+ * shipping fields). Carries the order item id only, since the transaction's order item is usually
+ * an uninitialized proxy when the write is flushed.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TransactionChangedEvent {
+    private final Long orderItemId;
+}
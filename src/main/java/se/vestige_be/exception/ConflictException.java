@@ -0,0 +1,7 @@
+package se.vestige_be.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -47,6 +47,18 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ObjectResponse> handleConflict(ConflictException ex) {
+        log.warn("Conflict: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ObjectResponse.builder()
+                        .status(HttpStatus.CONFLICT.toString())
+                        .message(ex.getMessage())
+                        .data(null)
+                        .build());
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ObjectResponse> handleUnauthorized(UnauthorizedException ex) {
 
@@ -13,6 +13,7 @@ import se.vestige_be.repository.ReviewRepository;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,11 +31,90 @@ public class OrderMapper {
     
     private final TransactionRepository transactionRepository;
     private final ReviewRepository reviewRepository;
+
+    /**
+     * Transactions and reviews of a batch of order items, loaded with one query each
+     * so that mapping does not query per item
+     */
+    public static final class MappingContext {
+        private static final MappingContext EMPTY = new MappingContext(Map.of(), Map.of());
+
+        private final Map<Long, Transaction> transactionsByOrderItemId;
+        private final Map<Long, Review> reviewsByTransactionId;
+
+        private MappingContext(Map<Long, Transaction> transactionsByOrderItemId, Map<Long, Review> reviewsByTransactionId) {
+            this.transactionsByOrderItemId = transactionsByOrderItemId;
+            this.reviewsByTransactionId = reviewsByTransactionId;
+        }
+
+        public Transaction getTransaction(Long orderItemId) {
+            return orderItemId != null ? transactionsByOrderItemId.get(orderItemId) : null;
+        }
+
+        public Optional<Review> getReview(Transaction transaction) {
+            return Optional.ofNullable(reviewsByTransactionId.get(transaction.getTransactionId()));
+        }
+    }
+
+    /**
+     * Prefetch transactions and reviews for every item of the given orders
+     */
+    public MappingContext prefetch(Collection<Order> orders) {
+        return prefetchItems(orders.stream()
+                .filter(order -> order != null && order.getOrderItems() != null)
+                .flatMap(order -> order.getOrderItems().stream())
+                .toList());
+    }
+
+    /**
+     * Prefetch transactions and reviews for the given order items
+     */
+    public MappingContext prefetchItems(Collection<OrderItem> orderItems) {
+        List<Long> orderItemIds = orderItems.stream()
+                .filter(Objects::nonNull)
+                .map(OrderItem::getOrderItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (orderItemIds.isEmpty()) {
+            return MappingContext.EMPTY;
+        }
+
+        try {
+            Map<Long, Transaction> transactions = new HashMap<>();
+            for (Transaction transaction : transactionRepository.findByOrderItemOrderItemIdIn(orderItemIds)) {
+                transactions.put(transaction.getOrderItem().getOrderItemId(), transaction);
+            }
+
+            Map<Long, Review> reviews = new HashMap<>();
+            if (!transactions.isEmpty()) {
+                List<Long> transactionIds = transactions.values().stream().map(Transaction::getTransactionId).toList();
+                for (Review review : reviewRepository.findByTransactionTransactionIdIn(transactionIds)) {
+                    // Keep the first review if a transaction somehow has several
+                    reviews.merge(review.getTransaction().getTransactionId(), review,
+                            (first, other) -> first.getReviewId() <= other.getReviewId() ? first : other);
+                }
+            }
+            log.debug("Prefetched {} transactions and {} reviews for {} order items",
+                    transactions.size(), reviews.size(), orderItemIds.size());
+            return new MappingContext(transactions, reviews);
+        } catch (Exception e) {
+            log.error("Failed to prefetch transactions for order items {}: {}", orderItemIds, e.getMessage());
+            return MappingContext.EMPTY;
+        }
+    }
     
     /**
      * Convert order entity to detailed response
      */
     public OrderDetailResponse convertToDetailResponse(Order order) {
+        return convertToDetailResponse(order, order != null ? prefetch(List.of(order)) : MappingContext.EMPTY);
+    }
+
+    /**
+     * Convert order entity to detailed response using prefetched transactions and reviews
+     */
+    public OrderDetailResponse convertToDetailResponse(Order order, MappingContext context) {
         if (order == null) {
             log.warn("Order is null when converting to detail response");
             return null;
@@ -46,7 +126,7 @@ public class OrderMapper {
         
         if (order.getOrderItems() != null) {
             itemDetails = order.getOrderItems().stream()
-                    .map(this::convertToOrderItemDetail)
+                    .map(item -> convertToOrderItemDetail(item, context))
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
 
@@ -139,6 +219,13 @@ public class OrderMapper {
      * Convert order item to detail response
      */
     public OrderDetailResponse.OrderItemDetail convertToOrderItemDetail(OrderItem orderItem) {
+        return convertToOrderItemDetail(orderItem, orderItem != null ? prefetchItems(List.of(orderItem)) : MappingContext.EMPTY);
+    }
+
+    /**
+     * Convert order item to detail response using prefetched transactions and reviews
+     */
+    public OrderDetailResponse.OrderItemDetail convertToOrderItemDetail(OrderItem orderItem, MappingContext context) {
         if (orderItem == null) {
             log.warn("OrderItem is null when converting to detail");
             return null;
@@ -158,7 +245,7 @@ public class OrderMapper {
             .escrowStatus(orderItem.getEscrowStatus() != null ? orderItem.getEscrowStatus().name() : "UNKNOWN")
             .product(convertToProductInfo(orderItem.getProduct()))
             .seller(convertToSellerInfo(orderItem.getSeller()))
-            .transaction(convertToTransactionInfo(orderItem))
+            .transaction(convertToTransactionInfo(orderItem, context))
             .build();
     }
     
@@ -258,6 +345,13 @@ public class OrderMapper {
      * Convert order item to transaction info response
      */
     public OrderDetailResponse.TransactionInfo convertToTransactionInfo(OrderItem orderItem) {
+        return convertToTransactionInfo(orderItem, orderItem != null ? prefetchItems(List.of(orderItem)) : MappingContext.EMPTY);
+    }
+
+    /**
+     * Convert order item to transaction info response using prefetched transactions and reviews
+     */
+    public OrderDetailResponse.TransactionInfo convertToTransactionInfo(OrderItem orderItem, MappingContext context) {
         if (orderItem == null) {
             log.warn("OrderItem is null when converting to transaction info");
             return OrderDetailResponse.TransactionInfo.builder()
@@ -267,7 +361,7 @@ public class OrderMapper {
                 .build();
         }
         
-        Transaction transaction = getTransactionForOrderItem(orderItem.getOrderItemId());
+        Transaction transaction = context.getTransaction(orderItem.getOrderItemId());
         if (transaction == null) {
             log.warn("Transaction not found for order item: {}", orderItem.getOrderItemId());
             return OrderDetailResponse.TransactionInfo.builder()
@@ -276,29 +370,21 @@ public class OrderMapper {
                 .buyerProtectionEligible(false)
                 .build();
         }
-        // Get existing review if any - using repository to avoid lazy loading issues
+        // Get existing review if any - prefetched to avoid lazy loading issues
         boolean hasReview = false;
         OrderDetailResponse.ReviewInfo reviewInfo = null;
-        
-        try {
-            // Check if there's a review for this transaction
-            Optional<Review> reviewOpt = reviewRepository.findByTransaction(transaction);
-            
-            if (reviewOpt.isPresent()) {
-                hasReview = true;
-                Review review = reviewOpt.get();
-                
-                reviewInfo = OrderDetailResponse.ReviewInfo.builder()
-                    .reviewId(review.getReviewId())
-                    .rating(review.getRating())
-                    .comment(review.getComment())
-                    .createdAt(review.getCreatedAt())
-                    .build();
-            }
-        } catch (Exception e) {
-            log.warn("Failed to load review for transaction {}: {}", transaction.getTransactionId(), e.getMessage());
-            hasReview = false;
-            reviewInfo = null;
+
+        Optional<Review> reviewOpt = context.getReview(transaction);
+        if (reviewOpt.isPresent()) {
+            hasReview = true;
+            Review review = reviewOpt.get();
+
+            reviewInfo = OrderDetailResponse.ReviewInfo.builder()
+                .reviewId(review.getReviewId())
+                .rating(review.getRating())
+                .comment(review.getComment())
+                .createdAt(review.getCreatedAt())
+                .build();
         }
         
         return OrderDetailResponse.TransactionInfo.builder()
@@ -386,36 +472,6 @@ public class OrderMapper {
         return "MIXED";
     }
     
-    /**
-     * Get transaction for a given order item with enhanced loading
-     */
-    private Transaction getTransactionForOrderItem(Long orderItemId) {
-        if (orderItemId == null) {
-            log.warn("OrderItemId is null when getting transaction");
-            return null;
-        }
-        
-        try {
-            log.debug("Looking for transaction for order item ID: {}", orderItemId);
-            
-            // Use the basic method first for reliability
-            Optional<Transaction> transactionOpt = transactionRepository.findByOrderItemOrderItemId(orderItemId);
-            
-            if (transactionOpt.isPresent()) {
-                Transaction transaction = transactionOpt.get();
-                log.debug("Found transaction {} for order item {}", transaction.getTransactionId(), orderItemId);
-                return transaction;
-            } else {
-                log.warn("No transaction found for order item {}", orderItemId);
-                return null;
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to get transaction for order item {}: {}", orderItemId, e.getMessage());
-            return null;
-        }
-    }
-    
     /**
      * Format transaction data to summary map for admin views
      */
@@ -0,0 +1,35 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a one-time backfill over an id-ordered table has got, so it resumes after a restart and
+ * every instance can tell when it is done. Written through native statements in
+ * {@link se.vestige_be.repository.BackfillProgressRepository}.
+ */
+@Entity
+@Table(name = "backfill_progress")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillProgress {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    // Highest id processed so far
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    // Set once the backfill found nothing past last_id
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
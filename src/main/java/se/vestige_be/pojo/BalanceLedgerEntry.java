@@ -0,0 +1,51 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import se.vestige_be.pojo.enums.LedgerAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One append-only movement of a user's balance caused by an order item. The entries of an item sum
+ * to what the item currently contributes to each account; entries are never updated or deleted.
+ * Written by {@link se.vestige_be.service.EscrowLedgerService}; totals are in {@link UserMonthlyBalance}.
+ */
+@Entity
+@Table(name = "balance_ledger_entries", indexes = {
+        @Index(name = "idx_balance_ledger_entries_order_item", columnList = "order_item_id"),
+        @Index(name = "idx_balance_ledger_entries_user_account", columnList = "user_id, account, month")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_item_id", nullable = false)
+    private Long orderItemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private LedgerAccount account;
+
+    // First day of the month the movement is booked in
+    @Column(nullable = false)
+    private LocalDate month;
+
+    // Signed
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,42 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import se.vestige_be.pojo.enums.StatDimension;
+
+import java.time.LocalDate;
+
+/**
+ * A count per day and dimension value: orders by status, delivered items by category or brand.
+ */
+@Entity
+@Table(name = "daily_stat_counts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_stat_counts_date_dimension_key",
+                columnNames = {"stat_date", "dimension", "dimension_key"}),
+        indexes = {
+                @Index(name = "idx_daily_stat_counts_dimension_date", columnList = "dimension, stat_date")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyStatCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatDimension dimension;
+
+    // Status name, category id or brand id
+    @Column(name = "dimension_key", nullable = false, length = 50)
+    private String dimensionKey;
+
+    @Column(nullable = false)
+    private Long total;
+}
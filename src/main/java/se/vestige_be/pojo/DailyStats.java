@@ -0,0 +1,49 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Admin dashboard totals for one calendar day. Order figures cover the orders created that day in
+ * their current state, so a day is recomputed whenever one of its orders changes.
+ * Maintained by {@link se.vestige_be.service.DailyStatsService}; breakdowns are in {@link DailyStatCount}.
+ */
+@Entity
+@Table(name = "daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyStats {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "orders_created", nullable = false)
+    private Long ordersCreated;
+
+    // Orders that are paid and not cancelled: PROCESSING, OUT_FOR_DELIVERY, DELIVERED
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    // Platform fees of items in PROCESSING, OUT_FOR_DELIVERY, DELIVERED
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal fees;
+
+    @Column(name = "delivered_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal deliveredRevenue;
+
+    @Column(name = "delivered_fees", nullable = false, precision = 14, scale = 2)
+    private BigDecimal deliveredFees;
+
+    @Column(name = "new_users", nullable = false)
+    private Long newUsers;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
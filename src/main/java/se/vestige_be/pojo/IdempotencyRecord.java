@@ -0,0 +1,47 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client-supplied Idempotency-Key and the outcome of the request that first used it.
+ * Written and read through native statements in {@link se.vestige_be.repository.IdempotencyRecordRepository}.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    // Operation, user and client key, so keys from different users never collide
+    @Id
+    @Column(name = "record_key", length = 400)
+    private String recordKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // Identifies the request holding the claim; an outcome is only stored by its holder
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    // Null while the first request is still running, or when it failed
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    // Set when the first request failed after committing something, replayed as the same failure
+    @Column(name = "error_message", columnDefinition = "text")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
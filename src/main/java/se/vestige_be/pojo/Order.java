@@ -2,6 +2,7 @@ package se.vestige_be.pojo;
 
 import jakarta.persistence.*;
 import lombok.*;
+import se.vestige_be.event.OrderEntityListener;
 import org.hibernate.annotations.CreationTimestamp;
 import se.vestige_be.pojo.enums.OrderStatus;
 import se.vestige_be.pojo.enums.PaymentMethod;
@@ -12,7 +13,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_buyer_created_at_id", columnList = "buyer_id, created_at, order_id"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
+@EntityListeners(OrderEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -59,4 +64,10 @@ public class Order {
     @Builder.Default
     @ToString.Exclude
     private List<OrderItem> orderItems = new ArrayList<>();
+
+    // Status as last read from or written to the database, set by OrderEntityListener
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private OrderStatus persistedStatus;
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed order detail response, one row per order, so reading an order is a single
+ * primary-key lookup. Maintained by {@link se.vestige_be.service.OrderDetailViewService}.
+ */
+@Entity
+@Table(name = "order_detail_views")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDetailView {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "document", nullable = false, columnDefinition = "jsonb")
+    private String document;
+
+    @Column(name = "built_at", nullable = false)
+    private LocalDateTime builtAt;
+}
@@ -2,13 +2,17 @@ package se.vestige_be.pojo;
 
 import jakarta.persistence.*;
 import lombok.*;
+import se.vestige_be.event.OrderEntityListener;
 import se.vestige_be.pojo.enums.EscrowStatus;
 import se.vestige_be.pojo.enums.OrderItemStatus;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_seller", columnList = "seller_id")
+})
+@EntityListeners(OrderEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,4 +57,10 @@ public class OrderItem extends BaseEntity {
     @Builder.Default
     private EscrowStatus escrowStatus = EscrowStatus.HOLDING;
 
+    // Status as last read from or written to the database, set by OrderEntityListener
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private OrderItemStatus persistedStatus;
+
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import se.vestige_be.pojo.enums.PaymentMethod;
+import se.vestige_be.pojo.enums.PaymentOutboxStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A payment that still has to be set up with the provider for an order. Written in the checkout
+ * transaction and worked off by {@link se.vestige_be.service.PaymentOutboxService} after it commits,
+ * so no provider call happens while the order's rows are locked.
+ */
+@Entity
+@Table(name = "payment_outbox", indexes = {
+        @Index(name = "idx_payment_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentMethod provider;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private PaymentOutboxStatus status = PaymentOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // Also the lease of an attempt in flight: a worker that dies leaves the row due again afterwards
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Stripe PaymentIntent id, or the PayOS order code (known up front)
+    @Column(name = "provider_reference", length = 100)
+    private String providerReference;
+
+    // PayOS checkout URL handed to the buyer; null for Stripe, whose client secret is read from Stripe on request
+    @Column(name = "client_token", length = 500)
+    private String clientToken;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,38 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order changed since a consumer last processed it, one row per consumer per order. Inserted by
+ * the transaction that writes the order (see {@link se.vestige_be.event.OrderChangeMarker}) and deleted
+ * by the consumer in the transaction that processes it, so pending work survives restarts.
+ */
+@Entity
+@Table(name = "pending_order_changes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_pending_order_changes_consumer_order", columnNames = {"consumer", "order_id"}),
+        indexes = @Index(name = "idx_pending_order_changes_consumer_marked_at", columnList = "consumer, marked_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingOrderChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "consumer", nullable = false, length = 40)
+    private OrderChangeConsumer consumer;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Latest change, or the latest failed attempt, which sends the order to the back of the queue
+    @Column(name = "marked_at", nullable = false)
+    private LocalDateTime markedAt;
+}
@@ -3,6 +3,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import se.vestige_be.event.ProductEntityListener;
 import se.vestige_be.pojo.enums.ProductCondition;
 import se.vestige_be.pojo.enums.ProductStatus;
 
@@ -12,7 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_status_created_at_id", columnList = "status, created_at, product_id")
+})
+@EntityListeners(ProductEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
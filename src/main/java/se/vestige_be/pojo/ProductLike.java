@@ -7,7 +7,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_likes")
+@Table(name = "product_likes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_likes_user_product", columnNames = {"user_id", "product_id"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
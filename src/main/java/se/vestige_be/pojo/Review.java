@@ -7,7 +7,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_reviewed_user_created_at_id", columnList = "reviewed_user_id, created_at, review_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,70 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import se.vestige_be.pojo.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row per seller per order, so a seller's order list is a range scan on (seller_id, created_at).
+ * Maintained by {@link se.vestige_be.service.SellerOrderInboxService}.
+ */
+@Entity
+@Table(name = "seller_order_inbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_seller_order_inbox_seller_order", columnNames = {"seller_id", "order_id"}),
+        indexes = {
+                @Index(name = "idx_seller_order_inbox_seller_created_at", columnList = "seller_id, created_at, order_id"),
+                @Index(name = "idx_seller_order_inbox_order", columnList = "order_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SellerOrderInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false, length = 20)
+    private OrderStatus orderStatus;
+
+    // Statuses of this seller's items in the order, comma separated with leading and trailing commas
+    @Column(name = "item_statuses", nullable = false, length = 200)
+    private String itemStatuses;
+
+    // Count and sums over this seller's items only
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(name = "platform_fee", nullable = false, precision = 12, scale = 2)
+    private BigDecimal platformFee;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    // Serialized OrderListResponse of the whole order, as the seller's order list returns it
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "summary", nullable = false, columnDefinition = "jsonb")
+    private String summary;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,7 @@ package se.vestige_be.pojo;
 
 import jakarta.persistence.*;
 import lombok.*;
+import se.vestige_be.event.OrderEntityListener;
 import org.hibernate.annotations.CreationTimestamp;
 import se.vestige_be.pojo.enums.DisputeStatus;
 import se.vestige_be.pojo.enums.EscrowStatus;
@@ -14,6 +15,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "transactions")
+@EntityListeners(OrderEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_joined_date", columnList = "joined_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,50 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import se.vestige_be.pojo.enums.LedgerAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A user's account total for one month: the movements booked in the month and the running balance
+ * at its end, so current and monthly figures are a single-row read. Months without movements have no
+ * row; their balance is the running amount of the latest earlier row.
+ * Maintained by {@link se.vestige_be.service.EscrowLedgerService} from {@link BalanceLedgerEntry}.
+ */
+@Entity
+@Table(name = "user_monthly_balances",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_monthly_balances_user_account_month",
+                columnNames = {"user_id", "account", "month"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserMonthlyBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private LedgerAccount account;
+
+    // First day of the month
+    @Column(nullable = false)
+    private LocalDate month;
+
+    @Column(name = "month_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal monthAmount;
+
+    @Column(name = "running_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal runningAmount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package se.vestige_be.pojo;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's order activity as buyer and as seller, so admin user lists read one row per user instead
+ * of loading the user's orders and sold items. Maintained by {@link se.vestige_be.service.UserOrderStatsService}.
+ */
+@Entity
+@Table(name = "user_order_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserOrderStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "buyer_orders", nullable = false)
+    private Long buyerOrders;
+
+    // Total amount of all the user's orders, whatever their status
+    @Column(name = "buyer_order_value", nullable = false, precision = 14, scale = 2)
+    private BigDecimal buyerOrderValue;
+
+    // Orders in PROCESSING, OUT_FOR_DELIVERY, DELIVERED
+    @Column(name = "buyer_spent", nullable = false, precision = 14, scale = 2)
+    private BigDecimal buyerSpent;
+
+    // {"DELIVERED": 3, ...}, statuses without orders omitted
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "buyer_status_counts", nullable = false, columnDefinition = "jsonb")
+    private String buyerStatusCounts;
+
+    @Column(name = "last_order_at")
+    private LocalDateTime lastOrderAt;
+
+    @Column(name = "seller_items", nullable = false)
+    private Long sellerItems;
+
+    // Price minus platform fee of items in PROCESSING, OUT_FOR_DELIVERY, DELIVERED
+    @Column(name = "seller_earned", nullable = false, precision = 14, scale = 2)
+    private BigDecimal sellerEarned;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "seller_status_counts", nullable = false, columnDefinition = "jsonb")
+    private String sellerStatusCounts;
+
+    // Creation time of the latest order containing one of the user's items
+    @Column(name = "last_sale_at")
+    private LocalDateTime lastSaleAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
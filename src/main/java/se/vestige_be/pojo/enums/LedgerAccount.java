@@ -0,0 +1,18 @@
+package se.vestige_be.pojo.enums;
+
+public enum LedgerAccount {
+    // Seller's net (price minus platform fee) of items whose escrow is HOLDING.
+    SELLER_HOLDING,
+
+    // Seller's net of items whose escrow was RELEASED or TRANSFERRED.
+    SELLER_RELEASED,
+
+    // Seller's net of DELIVERED items, attributed to the month the order was delivered.
+    SELLER_REVENUE,
+
+    // Buyer's price of items whose escrow is HOLDING.
+    BUYER_HOLDING,
+
+    // Buyer's price of DELIVERED items, attributed to the month the order was delivered.
+    BUYER_SPENT
+}
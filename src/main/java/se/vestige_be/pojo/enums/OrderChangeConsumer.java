@@ -0,0 +1,12 @@
+package se.vestige_be.pojo.enums;
+
+public enum OrderChangeConsumer {
+    // Order detail document and seller inbox rows, rebuilt together by OrderDetailViewService.
+    ORDER_VIEWS,
+
+    // Buyer and seller rows in user_order_stats, recomputed by UserOrderStatsService.
+    USER_ORDER_STATS,
+
+    // Balance ledger entries of the order's items, posted by EscrowLedgerService.
+    BALANCE_LEDGER
+}
@@ -0,0 +1,15 @@
+package se.vestige_be.pojo.enums;
+
+public enum PaymentOutboxStatus {
+    // The provider has not been called successfully yet; retried until the attempts run out.
+    PENDING,
+
+    // The payment intent or checkout link exists and is attached to the order.
+    COMPLETED,
+
+    // Every attempt failed. The order is left to expire at its payment deadline.
+    FAILED,
+
+    // The order was no longer pending when its turn came, so the provider was never called.
+    CANCELLED
+}
@@ -0,0 +1,12 @@
+package se.vestige_be.pojo.enums;
+
+public enum StatDimension {
+    // Orders created on the day, by their current OrderStatus.
+    ORDER_STATUS,
+
+    // Delivered items of orders created on the day, by product category.
+    CATEGORY,
+
+    // Delivered items of orders created on the day, by product brand.
+    BRAND
+}
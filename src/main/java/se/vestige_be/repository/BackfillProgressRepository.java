@@ -0,0 +1,33 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.BackfillProgress;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BackfillProgressRepository extends JpaRepository<BackfillProgress, String> {
+
+    /**
+     * Moves the watermark forward; never back, when instances race on the same batch.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO backfill_progress (name, last_id, completed_at, updated_at) " +
+            "VALUES (:name, :lastId, NULL, :now) " +
+            "ON CONFLICT (name) DO UPDATE SET last_id = GREATEST(backfill_progress.last_id, EXCLUDED.last_id), " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int advance(@Param("name") String name, @Param("lastId") long lastId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO backfill_progress (name, last_id, completed_at, updated_at) " +
+            "VALUES (:name, :lastId, :now, :now) " +
+            "ON CONFLICT (name) DO UPDATE SET completed_at = COALESCE(backfill_progress.completed_at, EXCLUDED.completed_at), " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int complete(@Param("name") String name, @Param("lastId") long lastId, @Param("now") LocalDateTime now);
+}
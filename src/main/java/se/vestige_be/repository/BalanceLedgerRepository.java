@@ -0,0 +1,19 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.BalanceLedgerEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedgerEntry, Long>, BalanceLedgerRepositoryCustom {
+
+    // (orderItemId, account, amount posted so far) of the given items
+    @Query("SELECT e.orderItemId, e.account, SUM(e.amount) FROM BalanceLedgerEntry e " +
+           "WHERE e.orderItemId IN :orderItemIds GROUP BY e.orderItemId, e.account")
+    List<Object[]> sumByOrderItemIds(@Param("orderItemIds") Collection<Long> orderItemIds);
+}
@@ -0,0 +1,21 @@
+package se.vestige_be.repository;
+
+import se.vestige_be.pojo.enums.LedgerAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface BalanceLedgerRepositoryCustom {
+
+    /**
+     * Serializes ledger writes per user until the end of the transaction. Lock users in ascending id order.
+     */
+    void lockUsers(Collection<Long> userIds);
+
+    /**
+     * Appends an entry and moves the user's monthly balances: the month's amount, and the running
+     * amount of the month and every later month.
+     */
+    void post(Long userId, Long orderItemId, LedgerAccount account, LocalDate month, BigDecimal amount);
+}
@@ -0,0 +1,89 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.pojo.BalanceLedgerEntry;
+import se.vestige_be.pojo.UserMonthlyBalance;
+import se.vestige_be.pojo.enums.LedgerAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public class BalanceLedgerRepositoryImpl implements BalanceLedgerRepositoryCustom {
+
+    // First key of the two-key advisory locks, keeps ledger user locks apart from any other advisory lock
+    private static final int LEDGER_LOCK_CLASS_ID = 0x4C454447;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void lockUsers(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            // The two-key form takes int keys; user ids stay well inside that range
+            entityManager.createNativeQuery("SELECT pg_advisory_xact_lock(:classId, CAST(:userId AS integer))")
+                    .setParameter("classId", LEDGER_LOCK_CLASS_ID)
+                    .setParameter("userId", userId)
+                    .getSingleResult();
+        }
+    }
+
+    /**
+     * Three statements: the entry, the month's row created with the previous running amount if it is
+     * missing, then the delta added to the month and to the running amount of every month from it on.
+     * Callers hold the user's lock, so creating the row and reading the previous month cannot race.
+     */
+    @Override
+    @Transactional
+    public void post(Long userId, Long orderItemId, LedgerAccount account, LocalDate month, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+
+        entityManager.createNativeQuery(
+                        "INSERT INTO balance_ledger_entries (user_id, order_item_id, account, month, amount, created_at) " +
+                        "VALUES (:userId, :orderItemId, :account, CAST(:month AS date), :amount, :now)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(BalanceLedgerEntry.class)
+                .setParameter("userId", userId)
+                .setParameter("orderItemId", orderItemId)
+                .setParameter("account", account.name())
+                .setParameter("month", month)
+                .setParameter("amount", amount)
+                .setParameter("now", now)
+                .executeUpdate();
+
+        entityManager.createNativeQuery(
+                        "INSERT INTO user_monthly_balances (user_id, account, month, month_amount, running_amount, updated_at) " +
+                        "SELECT :userId, :account, CAST(:month AS date), 0, COALESCE((SELECT b.running_amount " +
+                        "FROM user_monthly_balances b WHERE b.user_id = :userId AND b.account = :account " +
+                        "AND b.month < CAST(:month AS date) ORDER BY b.month DESC LIMIT 1), 0), :now " +
+                        "ON CONFLICT (user_id, account, month) DO NOTHING")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserMonthlyBalance.class)
+                .setParameter("userId", userId)
+                .setParameter("account", account.name())
+                .setParameter("month", month)
+                .setParameter("now", now)
+                .executeUpdate();
+
+        entityManager.createNativeQuery(
+                        "UPDATE user_monthly_balances SET running_amount = running_amount + :amount, " +
+                        "month_amount = month_amount + CASE WHEN month = CAST(:month AS date) THEN :amount ELSE 0 END, " +
+                        "updated_at = :now " +
+                        "WHERE user_id = :userId AND account = :account AND month >= CAST(:month AS date)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserMonthlyBalance.class)
+                .setParameter("userId", userId)
+                .setParameter("account", account.name())
+                .setParameter("month", month)
+                .setParameter("amount", amount)
+                .setParameter("now", now)
+                .executeUpdate();
+    }
+}
@@ -25,28 +25,9 @@ public interface CategoryRepository extends JpaRepository<Category,Long> {
     Optional<Category> findByIdWithParent(@Param("id") Long id);
 
     /**
-     * Get all category IDs including the specified category and all its descendants (subcategories)
-     * This is used for hierarchical filtering where selecting a parent category should include all child categories
+     * Flat rows (id, parentId, name, description, createdAt) used to build the in-memory category tree
      */
-    @Query(value = """
-        WITH RECURSIVE category_tree AS (
-            SELECT category_id, parent_category_id, name, 0 as level
-            FROM categories 
-            WHERE category_id = :categoryId
-            
-            UNION ALL
-            
-            SELECT c.category_id, c.parent_category_id, c.name, ct.level + 1
-            FROM categories c
-            INNER JOIN category_tree ct ON c.parent_category_id = ct.category_id
-        )
-        SELECT category_id FROM category_tree
-        """, nativeQuery = true)
-    List<Long> findCategoryIdWithAllSubcategoryIds(@Param("categoryId") Long categoryId);
-
-    /**
-     * Check if a category has any subcategories
-     */
-    @Query("SELECT COUNT(c) > 0 FROM Category c WHERE c.parentCategory.categoryId = :categoryId")
-    boolean hasSubcategories(@Param("categoryId") Long categoryId);
+    @Query("SELECT c.categoryId, p.categoryId, c.name, c.description, c.createdAt " +
+           "FROM Category c LEFT JOIN c.parentCategory p")
+    List<Object[]> findAllForTree();
 }
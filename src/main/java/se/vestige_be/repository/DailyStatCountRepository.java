@@ -0,0 +1,31 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.DailyStatCount;
+import se.vestige_be.pojo.enums.StatDimension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyStatCountRepository extends JpaRepository<DailyStatCount, Long> {
+
+    /**
+     * Key and all-time total per value of the dimension.
+     */
+    @Query("SELECT c.dimensionKey, SUM(c.total) FROM DailyStatCount c WHERE c.dimension = :dimension " +
+           "GROUP BY c.dimensionKey")
+    List<Object[]> sumByKey(@Param("dimension") StatDimension dimension);
+
+    /**
+     * Key and total per value of the dimension over the days, largest first.
+     */
+    @Query("SELECT c.dimensionKey, SUM(c.total) FROM DailyStatCount c WHERE c.dimension = :dimension " +
+           "AND c.statDate BETWEEN :from AND :to GROUP BY c.dimensionKey ORDER BY SUM(c.total) DESC")
+    List<Object[]> sumByKeyBetween(@Param("dimension") StatDimension dimension, @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to, Pageable pageable);
+}
@@ -0,0 +1,26 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.DailyStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyStatsRepository extends JpaRepository<DailyStats, LocalDate>, DailyStatsRepositoryCustom {
+
+    List<DailyStats> findByStatDateBetweenOrderByStatDate(LocalDate from, LocalDate to);
+
+    @Query("SELECT d.statDate FROM DailyStats d WHERE d.statDate BETWEEN :from AND :to")
+    List<LocalDate> findStatDatesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * All-time orders created, delivered revenue and delivered fees, as a single row.
+     */
+    @Query("SELECT COALESCE(SUM(d.ordersCreated), 0), COALESCE(SUM(d.deliveredRevenue), 0), " +
+           "COALESCE(SUM(d.deliveredFees), 0) FROM DailyStats d")
+    List<Object[]> sumTotals();
+}
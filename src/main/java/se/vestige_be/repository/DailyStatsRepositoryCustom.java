@@ -0,0 +1,24 @@
+package se.vestige_be.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyStatsRepositoryCustom {
+
+    /**
+     * Replaces the day's totals and breakdowns with values aggregated from the current rows.
+     */
+    void recomputeDay(LocalDate day);
+
+    /**
+     * Distinct creation days of the given orders.
+     */
+    List<LocalDate> findOrderCreationDays(Collection<Long> orderIds);
+
+    /**
+     * Day of the first order or user registration, empty on an empty database.
+     */
+    Optional<LocalDate> findFirstActivityDay();
+}
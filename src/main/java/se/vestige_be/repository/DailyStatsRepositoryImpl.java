@@ -0,0 +1,132 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.pojo.DailyStatCount;
+import se.vestige_be.pojo.DailyStats;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.pojo.enums.StatDimension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class DailyStatsRepositoryImpl implements DailyStatsRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One upsert for the totals, then the breakdowns deleted and re-inserted from three GROUP BYs.
+     * Every statement is a range scan over the day's orders or users.
+     */
+    @Override
+    @Transactional
+    public void recomputeDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        entityManager.createNativeQuery(
+                        "WITH o AS (SELECT COUNT(*) AS orders_created, " +
+                        "COALESCE(SUM(total_amount) FILTER (WHERE status IN (:paidStatuses)), 0) AS revenue, " +
+                        "COALESCE(SUM(total_amount) FILTER (WHERE status = :delivered), 0) AS delivered_revenue " +
+                        "FROM orders WHERE created_at >= :from AND created_at < :to), " +
+                        "i AS (SELECT COALESCE(SUM(oi.platform_fee) FILTER (WHERE oi.status IN (:paidItemStatuses)), 0) AS fees, " +
+                        "COALESCE(SUM(oi.platform_fee) FILTER (WHERE oi.status = :itemDelivered), 0) AS delivered_fees " +
+                        "FROM order_items oi JOIN orders ord ON ord.order_id = oi.order_id " +
+                        "WHERE ord.created_at >= :from AND ord.created_at < :to), " +
+                        "u AS (SELECT COUNT(*) AS new_users FROM users WHERE joined_date >= :from AND joined_date < :to) " +
+                        "INSERT INTO daily_stats (stat_date, orders_created, revenue, fees, delivered_revenue, delivered_fees, " +
+                        "new_users, refreshed_at) " +
+                        "SELECT CAST(:day AS date), o.orders_created, o.revenue, i.fees, o.delivered_revenue, i.delivered_fees, " +
+                        "u.new_users, :now FROM o, i, u " +
+                        "ON CONFLICT (stat_date) DO UPDATE SET orders_created = EXCLUDED.orders_created, " +
+                        "revenue = EXCLUDED.revenue, fees = EXCLUDED.fees, delivered_revenue = EXCLUDED.delivered_revenue, " +
+                        "delivered_fees = EXCLUDED.delivered_fees, new_users = EXCLUDED.new_users, " +
+                        "refreshed_at = EXCLUDED.refreshed_at")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailyStats.class)
+                .setParameter("day", day)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("delivered", OrderStatus.DELIVERED.name())
+                .setParameterList("paidStatuses", List.of(OrderStatus.PROCESSING.name(),
+                        OrderStatus.OUT_FOR_DELIVERY.name(), OrderStatus.DELIVERED.name()))
+                .setParameter("itemDelivered", OrderItemStatus.DELIVERED.name())
+                .setParameterList("paidItemStatuses", List.of(OrderItemStatus.PROCESSING.name(),
+                        OrderItemStatus.OUT_FOR_DELIVERY.name(), OrderItemStatus.DELIVERED.name()))
+                .executeUpdate();
+
+        entityManager.createNativeQuery("DELETE FROM daily_stat_counts WHERE stat_date = :day")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailyStatCount.class)
+                .setParameter("day", day)
+                .executeUpdate();
+
+        entityManager.createNativeQuery(
+                        "INSERT INTO daily_stat_counts (stat_date, dimension, dimension_key, total) " +
+                        "SELECT CAST(:day AS date), :dimension, status, COUNT(*) FROM orders " +
+                        "WHERE created_at >= :from AND created_at < :to GROUP BY status")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailyStatCount.class)
+                .setParameter("day", day)
+                .setParameter("dimension", StatDimension.ORDER_STATUS.name())
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        insertDeliveredItemCounts(day, from, to, StatDimension.CATEGORY, "category_id");
+        insertDeliveredItemCounts(day, from, to, StatDimension.BRAND, "brand_id");
+    }
+
+    private void insertDeliveredItemCounts(LocalDate day, LocalDateTime from, LocalDateTime to,
+                                           StatDimension dimension, String productColumn) {
+        entityManager.createNativeQuery(
+                        "INSERT INTO daily_stat_counts (stat_date, dimension, dimension_key, total) " +
+                        "SELECT CAST(:day AS date), :dimension, CAST(p." + productColumn + " AS varchar), COUNT(*) " +
+                        "FROM order_items oi JOIN orders o ON o.order_id = oi.order_id " +
+                        "JOIN products p ON p.product_id = oi.product_id " +
+                        "WHERE o.created_at >= :from AND o.created_at < :to AND oi.status = :itemDelivered " +
+                        "AND p." + productColumn + " IS NOT NULL " +
+                        "GROUP BY p." + productColumn)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailyStatCount.class)
+                .setParameter("day", day)
+                .setParameter("dimension", dimension.name())
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("itemDelivered", OrderItemStatus.DELIVERED.name())
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<LocalDate> findOrderCreationDays(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createNativeQuery(
+                        "SELECT DISTINCT CAST(created_at AS date) AS created_day FROM orders WHERE order_id IN (:orderIds)")
+                .unwrap(NativeQuery.class)
+                .addScalar("created_day", LocalDate.class)
+                .setParameterList("orderIds", orderIds)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<LocalDate> findFirstActivityDay() {
+        Object day = entityManager.createNativeQuery(
+                        "SELECT CAST(LEAST((SELECT MIN(created_at) FROM orders), (SELECT MIN(joined_date) FROM users)) AS date) AS first_day")
+                .unwrap(NativeQuery.class)
+                .addScalar("first_day", LocalDate.class)
+                .getSingleResult();
+        return Optional.ofNullable((LocalDate) day);
+    }
+}
@@ -8,7 +8,7 @@ import se.vestige_be.pojo.EscrowRelease;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface EscrowReleaseRepository extends JpaRepository<EscrowRelease, Long> {
+public interface EscrowReleaseRepository extends JpaRepository<EscrowRelease, Long>, EscrowReleaseRepositoryCustom {
 
     // Find releases by status
     List<EscrowRelease> findByStatusOrderByCreatedAtDesc(String status);
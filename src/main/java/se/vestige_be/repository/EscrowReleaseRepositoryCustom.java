@@ -0,0 +1,14 @@
+package se.vestige_be.repository;
+
+import se.vestige_be.pojo.EscrowRelease;
+
+import java.util.List;
+
+public interface EscrowReleaseRepositoryCustom {
+
+    /**
+     * Appends the releases with multi-row inserts, stamping created_at with the current time.
+     * Generated ids are not written back to the releases.
+     */
+    void insertAll(List<EscrowRelease> releases);
+}
@@ -0,0 +1,58 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.EscrowRelease;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class EscrowReleaseRepositoryImpl implements EscrowReleaseRepositoryCustom {
+    // Six parameters per row, well below the driver's bind limit
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * IDENTITY ids keep Hibernate from batching inserts, so rows are written with one
+     * INSERT ... VALUES statement per chunk.
+     */
+    @Override
+    public void insertAll(List<EscrowRelease> releases) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < releases.size(); from += ROWS_PER_STATEMENT) {
+            insertChunk(releases.subList(from, Math.min(releases.size(), from + ROWS_PER_STATEMENT)), now);
+        }
+    }
+
+    private void insertChunk(List<EscrowRelease> rows, LocalDateTime now) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO escrow_releases (transaction_id, amount_released, status, release_reason, completed_at, created_at) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:transaction").append(i).append(", :amount").append(i).append(", :status").append(i)
+                    .append(", :reason").append(i).append(", :completedAt").append(i).append(", :now)");
+        }
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(EscrowRelease.class)
+                .setParameter("now", now);
+        for (int i = 0; i < rows.size(); i++) {
+            EscrowRelease row = rows.get(i);
+            query.setParameter("transaction" + i,
+                            row.getTransaction() != null ? row.getTransaction().getTransactionId() : null, Long.class)
+                    .setParameter("amount" + i, row.getAmountReleased())
+                    .setParameter("status" + i, row.getStatus())
+                    .setParameter("reason" + i, row.getReleaseReason(), String.class)
+                    .setParameter("completedAt" + i, row.getCompletedAt(), LocalDateTime.class);
+        }
+        query.executeUpdate();
+    }
+}
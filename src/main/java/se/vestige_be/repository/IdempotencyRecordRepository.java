@@ -0,0 +1,63 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims the key for a new request; an expired record is taken over. Returns 0 when the key is live.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys " +
+            "(record_key, request_hash, claim_token, response_body, error_message, created_at, expires_at) " +
+            "VALUES (:recordKey, :requestHash, :claimToken, NULL, NULL, :now, :expiresAt) " +
+            "ON CONFLICT (record_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "claim_token = EXCLUDED.claim_token, response_body = NULL, error_message = NULL, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :now",
+            nativeQuery = true)
+    int claim(@Param("recordKey") String recordKey, @Param("requestHash") String requestHash,
+              @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Stores the response, only while the claim is still held by the caller. Returns 0 otherwise.
+     */
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET response_body = :responseBody, expires_at = :expiresAt " +
+            "WHERE record_key = :recordKey AND claim_token = :claimToken " +
+            "AND response_body IS NULL AND error_message IS NULL", nativeQuery = true)
+    int complete(@Param("recordKey") String recordKey, @Param("claimToken") String claimToken,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Same as complete for a request that failed after committing something.
+     */
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET error_message = :errorMessage, expires_at = :expiresAt " +
+            "WHERE record_key = :recordKey AND claim_token = :claimToken " +
+            "AND response_body IS NULL AND error_message IS NULL", nativeQuery = true)
+    int fail(@Param("recordKey") String recordKey, @Param("claimToken") String claimToken,
+             @Param("errorMessage") String errorMessage, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Frees a key whose request failed without committing anything, so the client can retry with it.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE record_key = :recordKey AND claim_token = :claimToken " +
+            "AND response_body IS NULL AND error_message IS NULL",
+            nativeQuery = true)
+    int release(@Param("recordKey") String recordKey, @Param("claimToken") String claimToken);
+
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,22 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.OrderDetailView;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderDetailViewRepository extends JpaRepository<OrderDetailView, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO order_detail_views (order_id, document, built_at) " +
+            "VALUES (:orderId, CAST(:document AS jsonb), :builtAt) " +
+            "ON CONFLICT (order_id) DO UPDATE SET document = EXCLUDED.document, built_at = EXCLUDED.built_at",
+            nativeQuery = true)
+    void upsert(@Param("orderId") Long orderId, @Param("document") String document,
+                @Param("builtAt") LocalDateTime builtAt);
+}
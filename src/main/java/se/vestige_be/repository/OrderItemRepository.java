@@ -10,7 +10,9 @@ import se.vestige_be.pojo.User;
 import se.vestige_be.pojo.enums.OrderItemStatus;
 import se.vestige_be.pojo.enums.EscrowStatus;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -56,7 +58,13 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     // Admin methods for statistics
     List<OrderItem> findByStatus(OrderItemStatus status);
+
+    @Query("SELECT COALESCE(SUM(oi.platformFee), 0) FROM OrderItem oi WHERE oi.status = :status")
+    BigDecimal sumPlatformFeeByStatus(@Param("status") OrderItemStatus status);
     
+    @Query("SELECT DISTINCT oi.order.orderId FROM OrderItem oi WHERE oi.orderItemId IN :orderItemIds")
+    List<Long> findOrderIdsByOrderItemIds(@Param("orderItemIds") Collection<Long> orderItemIds);
+
     // Method for logistics with eager loading
     @Query("SELECT oi FROM OrderItem oi " +
            "LEFT JOIN FETCH oi.product p " +
@@ -69,11 +77,69 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Methods for admin order summaries
     List<OrderItem> findBySellerUserId(Long sellerId);
     
-    // Method for finding order items by order creation date range (for trend analysis)
-    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.createdAt BETWEEN :startDate AND :endDate")
-    List<OrderItem> findByOrderCreatedAtBetween(@Param("startDate") java.time.LocalDateTime startDate, 
-                                               @Param("endDate") java.time.LocalDateTime endDate);
-    
+    // Escrow and revenue sums straight from order items, served until the balance ledger has caught up with history
+    @Query("SELECT COALESCE(SUM(oi.price - oi.platformFee), 0) FROM OrderItem oi " +
+           "WHERE oi.seller.userId = :sellerId AND oi.escrowStatus IN :escrowStatuses")
+    BigDecimal sumSellerNetByEscrowStatuses(@Param("sellerId") Long sellerId,
+                                            @Param("escrowStatuses") Collection<EscrowStatus> escrowStatuses);
+
+    @Query("SELECT COALESCE(SUM(oi.price), 0) FROM OrderItem oi " +
+           "WHERE oi.order.buyer.userId = :buyerId AND oi.escrowStatus IN :escrowStatuses")
+    BigDecimal sumBuyerPriceByEscrowStatuses(@Param("buyerId") Long buyerId,
+                                             @Param("escrowStatuses") Collection<EscrowStatus> escrowStatuses);
+
+    @Query("SELECT COALESCE(SUM(oi.price - oi.platformFee), 0) FROM OrderItem oi " +
+           "WHERE oi.seller.userId = :sellerId AND oi.status = :status")
+    BigDecimal sumSellerNetByStatus(@Param("sellerId") Long sellerId, @Param("status") OrderItemStatus status);
+
+    @Query("SELECT COALESCE(SUM(oi.price), 0) FROM OrderItem oi " +
+           "WHERE oi.order.buyer.userId = :buyerId AND oi.status = :status")
+    BigDecimal sumBuyerPriceByStatus(@Param("buyerId") Long buyerId, @Param("status") OrderItemStatus status);
+
+    @Query("SELECT COALESCE(SUM(oi.price - oi.platformFee), 0) FROM OrderItem oi " +
+           "WHERE oi.seller.userId = :sellerId AND oi.status = :status " +
+           "AND oi.order.deliveredAt >= :from AND oi.order.deliveredAt < :to")
+    BigDecimal sumSellerNetByStatusDeliveredBetween(@Param("sellerId") Long sellerId,
+                                                    @Param("status") OrderItemStatus status,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(oi.price), 0) FROM OrderItem oi " +
+           "WHERE oi.order.buyer.userId = :buyerId AND oi.status = :status " +
+           "AND oi.order.deliveredAt >= :from AND oi.order.deliveredAt < :to")
+    BigDecimal sumBuyerPriceByStatusDeliveredBetween(@Param("buyerId") Long buyerId,
+                                                     @Param("status") OrderItemStatus status,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    // (orderItemId, sellerId, buyerId, price, platformFee, status, escrowStatus, order deliveredAt) of an order's items, for the balance ledger
+    @Query("SELECT oi.orderItemId, oi.seller.userId, o.buyer.userId, oi.price, oi.platformFee, oi.status, oi.escrowStatus, o.deliveredAt " +
+           "FROM OrderItem oi JOIN oi.order o WHERE o.orderId = :orderId")
+    List<Object[]> findLedgerRowsByOrderId(@Param("orderId") Long orderId);
+
+    // Price band index of an item, [floor, next floor) over 0, 100k, 500k, 1M, 5M and 10M dong as in SalesAggregationService
+    String SALES_PRICE_BAND = "CASE WHEN oi.price >= 10000000 THEN 5 WHEN oi.price >= 5000000 THEN 4 " +
+            "WHEN oi.price >= 1000000 THEN 3 WHEN oi.price >= 500000 THEN 2 WHEN oi.price >= 100000 THEN 1 ELSE 0 END";
+
+    // (categoryId, brandId, sellerId, price band, item count, price sum) of items in the status from orders created
+    // in [from, to), one row per group, for sales aggregation
+    @Query("SELECT c.categoryId, b.brandId, oi.seller.userId, " + SALES_PRICE_BAND + ", COUNT(oi), SUM(oi.price) " +
+           "FROM OrderItem oi JOIN oi.order o JOIN oi.product p LEFT JOIN p.category c LEFT JOIN p.brand b " +
+           "WHERE oi.status = :status AND o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY c.categoryId, b.brandId, oi.seller.userId, " + SALES_PRICE_BAND)
+    List<Object[]> sumSalesByGroup(@Param("status") OrderItemStatus status,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    @Query("SELECT c.categoryId, b.brandId, oi.seller.userId, " + SALES_PRICE_BAND + ", COUNT(oi), SUM(oi.price) " +
+           "FROM OrderItem oi JOIN oi.order o JOIN oi.product p LEFT JOIN p.category c LEFT JOIN p.brand b " +
+           "WHERE oi.seller.userId = :sellerId AND oi.status = :status AND o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY c.categoryId, b.brandId, oi.seller.userId, " + SALES_PRICE_BAND)
+    List<Object[]> sumSellerSalesByGroup(@Param("sellerId") Long sellerId,
+                                         @Param("status") OrderItemStatus status,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to);
+
     // New methods for trust score calculations
     @Query("SELECT COUNT(oi) FROM OrderItem oi WHERE oi.seller = :seller AND oi.status = :status AND oi.order.createdAt > :date")
     long countBySellerAndStatusAndCreatedAtAfter(@Param("seller") User seller, @Param("status") OrderItemStatus status, @Param("date") LocalDateTime date);
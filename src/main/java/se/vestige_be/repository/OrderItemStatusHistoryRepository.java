@@ -8,16 +8,17 @@ import se.vestige_be.pojo.OrderItemStatusHistory;
 import java.util.List;
 
 @Repository
-public interface OrderItemStatusHistoryRepository extends JpaRepository<OrderItemStatusHistory, Long> {
+public interface OrderItemStatusHistoryRepository extends JpaRepository<OrderItemStatusHistory, Long>, OrderItemStatusHistoryRepositoryCustom {
     
     /**
-     * Find all status history records for a specific order item, ordered by change time
+     * Find all status history records for a specific order item, ordered by change time.
+     * Entries written in the same instant keep their insertion order through the id.
      */
-    List<OrderItemStatusHistory> findByOrderItemOrderItemIdOrderByChangedAtDesc(Long orderItemId);
+    List<OrderItemStatusHistory> findByOrderItemOrderItemIdOrderByChangedAtDescIdDesc(Long orderItemId);
     
     /**
      * Get the latest status change for an order item
      */
-    @Query("SELECT h FROM OrderItemStatusHistory h WHERE h.orderItem.orderItemId = :orderItemId ORDER BY h.changedAt DESC LIMIT 1")
+    @Query("SELECT h FROM OrderItemStatusHistory h WHERE h.orderItem.orderItemId = :orderItemId ORDER BY h.changedAt DESC, h.id DESC LIMIT 1")
     OrderItemStatusHistory findLatestByOrderItemId(Long orderItemId);
 }
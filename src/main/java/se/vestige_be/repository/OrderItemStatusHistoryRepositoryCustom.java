@@ -0,0 +1,14 @@
+package se.vestige_be.repository;
+
+import se.vestige_be.pojo.OrderItemStatusHistory;
+
+import java.util.List;
+
+public interface OrderItemStatusHistoryRepositoryCustom {
+
+    /**
+     * Appends the entries in the given order with multi-row inserts.
+     * Generated ids are not written back to the entries.
+     */
+    void insertAll(List<OrderItemStatusHistory> entries);
+}
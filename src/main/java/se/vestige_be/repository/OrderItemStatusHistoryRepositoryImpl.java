@@ -0,0 +1,54 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.OrderItemStatusHistory;
+
+import java.util.List;
+
+@Repository
+public class OrderItemStatusHistoryRepositoryImpl implements OrderItemStatusHistoryRepositoryCustom {
+    // Five parameters per row, well below the driver's bind limit
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * IDENTITY ids keep Hibernate from batching inserts, so rows are written with one
+     * INSERT ... VALUES statement per chunk. Rows get ascending ids in list order.
+     */
+    @Override
+    public void insertAll(List<OrderItemStatusHistory> entries) {
+        for (int from = 0; from < entries.size(); from += ROWS_PER_STATEMENT) {
+            insertChunk(entries.subList(from, Math.min(entries.size(), from + ROWS_PER_STATEMENT)));
+        }
+    }
+
+    private void insertChunk(List<OrderItemStatusHistory> rows) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO order_item_status_history (order_item_id, status, changed_at, updated_by, notes) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:item").append(i).append(", :status").append(i).append(", :changedAt").append(i)
+                    .append(", :updatedBy").append(i).append(", :notes").append(i).append(')');
+        }
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderItemStatusHistory.class);
+        for (int i = 0; i < rows.size(); i++) {
+            OrderItemStatusHistory row = rows.get(i);
+            query.setParameter("item" + i, row.getOrderItem().getOrderItemId())
+                    .setParameter("status" + i, row.getStatus().name())
+                    .setParameter("changedAt" + i, row.getChangedAt())
+                    .setParameter("updatedBy" + i, row.getUpdatedBy(), String.class)
+                    .setParameter("notes" + i, row.getNotes(), String.class);
+        }
+        query.executeUpdate();
+    }
+}
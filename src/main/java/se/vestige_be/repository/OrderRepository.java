@@ -12,10 +12,11 @@ import se.vestige_be.pojo.enums.OrderStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderRepositoryCustom {
     @Query(value = "SELECT DISTINCT o FROM Order o " +
            "LEFT JOIN FETCH o.orderItems oi " +
            "LEFT JOIN FETCH oi.product p " +
@@ -36,9 +37,38 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
            "WHERE o.buyer.userId = :buyerId AND o.status = :status")
     Page<Order> findByBuyerUserIdAndStatusOrderByCreatedAtDesc(@Param("buyerId") Long buyerId, @Param("status") OrderStatus status, Pageable pageable);
     
+    // Loads the items of a keyset page selected beforehand, so no pagination happens over the fetch join
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "LEFT JOIN FETCH o.orderItems oi " +
+           "LEFT JOIN FETCH oi.product p " +
+           "LEFT JOIN FETCH oi.seller " +
+           "WHERE o.orderId IN :orderIds")
+    List<Order> findByOrderIdInWithItems(@Param("orderIds") List<Long> orderIds);
+
+    // Orders of the given items with all their items, for logistics runs over many items
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "LEFT JOIN FETCH o.orderItems oi " +
+           "LEFT JOIN FETCH oi.seller " +
+           "WHERE o.orderId IN (SELECT i.order.orderId FROM OrderItem i WHERE i.orderItemId IN :orderItemIds)")
+    List<Order> findByOrderItemIdsWithItems(@Param("orderItemIds") Collection<Long> orderItemIds);
+
     List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, LocalDateTime timestamp);
+
+    // (orderId, createdAt) of every order in the given status, for the order expiry scheduler
+    @Query("SELECT o.orderId, o.createdAt FROM Order o WHERE o.status = :status")
+    List<Object[]> findIdAndCreatedAtByStatus(@Param("status") OrderStatus status);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff")
+    List<Long> findIdsByStatusAndCreatedAtBefore(@Param("status") OrderStatus status, @Param("cutoff") LocalDateTime cutoff);
     
     long countByStatus(OrderStatus status);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :afterId ORDER BY o.orderId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // (status, order count, total amount) per status, seeds the live order counters
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+    List<Object[]> countAndSumTotalAmountByStatus();
     long countByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     List<Order> findByStatus(OrderStatus status);
 
@@ -73,6 +103,15 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
            "WHERE o.orderId = :orderId")
     Optional<Order> findByIdWithAllRelationships(@Param("orderId") Long orderId);
     
+    /**
+     * Locks the order row until the end of the transaction; empty if the order does not exist.
+     */
+    @Query(value = "SELECT order_id FROM orders WHERE order_id = :orderId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("orderId") Long orderId);
+
+    @Query("SELECT o.buyer.userId FROM Order o WHERE o.orderId = :orderId")
+    Optional<Long> findBuyerIdById(@Param("orderId") Long orderId);
+
     @Query("SELECT DISTINCT o FROM Order o " +
            "LEFT JOIN FETCH o.buyer " +
            "LEFT JOIN FETCH o.shippingAddress " +
@@ -0,0 +1,39 @@
+package se.vestige_be.repository;
+
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * An order moved from PENDING by a bulk close.
+     */
+    record ClosedOrder(Long orderId, BigDecimal totalAmount) {
+    }
+
+    /**
+     * An item of a closed order and the status it had before it was cancelled.
+     */
+    record CancelledItem(Long orderItemId, OrderItemStatus previousStatus, BigDecimal platformFee) {
+    }
+
+    /**
+     * Result of a bulk close: the orders that were still PENDING, their items, and the products released
+     * from them.
+     */
+    record ClosedOrders(List<ClosedOrder> orders, List<CancelledItem> cancelledItems, List<Long> releasedProductIds) {
+
+        public List<Long> orderIds() {
+            return orders.stream().map(ClosedOrder::orderId).toList();
+        }
+    }
+
+    /**
+     * @param status EXPIRED for a missed payment deadline, CANCELLED when the payment could not be set up
+     */
+    ClosedOrders closePendingOrders(Collection<Long> orderIds, OrderStatus status);
+}
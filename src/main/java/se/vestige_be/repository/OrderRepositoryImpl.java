@@ -0,0 +1,109 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.pojo.Order;
+import se.vestige_be.pojo.OrderItem;
+import se.vestige_be.pojo.Product;
+import se.vestige_be.pojo.Transaction;
+import se.vestige_be.pojo.enums.EscrowStatus;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.pojo.enums.ProductStatus;
+import se.vestige_be.pojo.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Closes the orders that are still PENDING with four set-based statements: the orders, their
+     * items, their transactions, and the products they held in PENDING_PAYMENT. Orders paid in the
+     * meantime are left alone. Bypasses the entity lifecycle; callers publish the order, item and
+     * product changes from what the statements return.
+     */
+    @Override
+    @Transactional
+    public ClosedOrders closePendingOrders(Collection<Long> orderIds, OrderStatus status) {
+        if (orderIds.isEmpty()) {
+            return new ClosedOrders(List.of(), List.of(), List.of());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> orderRows = entityManager.createNativeQuery(
+                        "UPDATE orders SET status = :closed " +
+                        "WHERE order_id IN (:orderIds) AND status = :pending RETURNING order_id, total_amount")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Order.class)
+                .setParameter("closed", status.name())
+                .setParameter("pending", OrderStatus.PENDING.name())
+                .setParameterList("orderIds", orderIds)
+                .getResultList();
+        if (orderRows.isEmpty()) {
+            return new ClosedOrders(List.of(), List.of(), List.of());
+        }
+        List<ClosedOrder> closed = orderRows.stream()
+                .map(row -> new ClosedOrder(((Number) row[0]).longValue(), (BigDecimal) row[1]))
+                .toList();
+        List<Long> closedIds = closed.stream().map(ClosedOrder::orderId).toList();
+
+        // RETURNING gives the new row, so the previous status is read from the rows locked for the update
+        @SuppressWarnings("unchecked")
+        List<Object[]> itemRows = entityManager.createNativeQuery(
+                        "UPDATE order_items oi SET status = :cancelled, escrow_status = :escrowCancelled, updated_at = :now " +
+                        "FROM (SELECT order_item_id, status FROM order_items WHERE order_id IN (:orderIds) FOR UPDATE) previous " +
+                        "WHERE oi.order_item_id = previous.order_item_id " +
+                        "RETURNING oi.order_item_id, previous.status, oi.platform_fee")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderItem.class)
+                .setParameter("cancelled", OrderItemStatus.CANCELLED.name())
+                // No money involved yet
+                .setParameter("escrowCancelled", EscrowStatus.CANCELLED.name())
+                .setParameter("now", Instant.now())
+                .setParameterList("orderIds", closedIds)
+                .getResultList();
+        List<CancelledItem> cancelledItems = itemRows.stream()
+                .filter(row -> !OrderItemStatus.CANCELLED.name().equals(row[1]))
+                .map(row -> new CancelledItem(((Number) row[0]).longValue(),
+                        row[1] != null ? OrderItemStatus.valueOf((String) row[1]) : null, (BigDecimal) row[2]))
+                .toList();
+
+        entityManager.createNativeQuery(
+                        "UPDATE transactions SET status = :cancelled " +
+                        "WHERE order_item_id IN (SELECT order_item_id FROM order_items WHERE order_id IN (:orderIds))")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Transaction.class)
+                .setParameter("cancelled", TransactionStatus.CANCELLED.name())
+                .setParameterList("orderIds", closedIds)
+                .executeUpdate();
+
+        List<Long> releasedProductIds = toIds(entityManager.createNativeQuery(
+                        "UPDATE products SET status = :active, updated_at = :now " +
+                        "WHERE status = :pendingPayment " +
+                        "AND product_id IN (SELECT product_id FROM order_items WHERE order_id IN (:orderIds)) " +
+                        "RETURNING product_id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Product.class)
+                .setParameter("active", ProductStatus.ACTIVE.name())
+                .setParameter("pendingPayment", ProductStatus.PENDING_PAYMENT.name())
+                .setParameter("now", LocalDateTime.now())
+                .setParameterList("orderIds", closedIds)
+                .getResultList());
+
+        return new ClosedOrders(closed, cancelledItems, releasedProductIds);
+    }
+
+    private static List<Long> toIds(List<?> rows) {
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+}
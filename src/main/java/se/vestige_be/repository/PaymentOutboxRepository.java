@@ -0,0 +1,37 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.PaymentOutbox;
+import se.vestige_be.pojo.enums.PaymentMethod;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutbox, Long> {
+
+    Optional<PaymentOutbox> findByOrderId(Long orderId);
+
+    @Query("SELECT p.id FROM PaymentOutbox p WHERE p.status = se.vestige_be.pojo.enums.PaymentOutboxStatus.PENDING " +
+           "AND p.nextAttemptAt <= :now ORDER BY p.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Takes a due record for one attempt and holds it until the lease ends.
+     * Returns 0 when another worker has it or it is no longer pending.
+     */
+    @Modifying
+    @Query(value = "UPDATE payment_outbox SET attempts = attempts + 1, next_attempt_at = :leaseUntil " +
+            "WHERE id = :id AND status = 'PENDING' AND next_attempt_at <= :now", nativeQuery = true)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE PaymentOutbox p SET p.clientToken = NULL WHERE p.provider = :provider AND p.clientToken IS NOT NULL")
+    int clearClientTokens(@Param("provider") PaymentMethod provider);
+}
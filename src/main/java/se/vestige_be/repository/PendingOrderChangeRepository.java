@@ -0,0 +1,39 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.PendingOrderChange;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingOrderChangeRepository extends JpaRepository<PendingOrderChange, Long> {
+
+    @Query("SELECT p.orderId FROM PendingOrderChange p WHERE p.consumer = :consumer ORDER BY p.markedAt, p.id")
+    List<Long> findOrderIds(@Param("consumer") OrderChangeConsumer consumer, Pageable pageable);
+
+    /**
+     * Takes the orders off the queue. Consumers call this before reading the orders, in the transaction
+     * that processes them: a change committed after the delete is queued again, and one still being
+     * written holds its row until it commits, so the reads that follow see it.
+     */
+    @Modifying
+    @Query("DELETE FROM PendingOrderChange p WHERE p.consumer = :consumer AND p.orderId IN :orderIds")
+    int deleteByConsumerAndOrderIds(@Param("consumer") OrderChangeConsumer consumer,
+                                    @Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Sends orders that failed to process to the back of the queue.
+     */
+    @Modifying
+    @Query("UPDATE PendingOrderChange p SET p.markedAt = :now WHERE p.consumer = :consumer AND p.orderId = :orderId")
+    int postpone(@Param("consumer") OrderChangeConsumer consumer, @Param("orderId") Long orderId,
+                 @Param("now") LocalDateTime now);
+}
@@ -8,11 +8,17 @@ import se.vestige_be.pojo.Product;
 import se.vestige_be.pojo.User;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductBoostRepository extends JpaRepository<ProductBoost, Long> {
     Optional<ProductBoost> findByProductAndBoostEndTimeAfter(Product product, LocalDateTime currentTime);
     
+    // (productId, product createdAt, product status, latest boostEndTime) for every product with a boost still running
+    @Query("SELECT p.productId, p.createdAt, p.status, MAX(pb.boostEndTime) FROM ProductBoost pb JOIN pb.product p " +
+           "WHERE pb.boostEndTime > :currentTime GROUP BY p.productId, p.createdAt, p.status")
+    List<Object[]> findActiveBoostRows(@Param("currentTime") LocalDateTime currentTime);
+
     @Query("SELECT pb FROM ProductBoost pb WHERE pb.user = :user AND pb.boostEndTime > :currentTime")
     Optional<ProductBoost> findActiveBoostByUser(@Param("user") User user, @Param("currentTime") LocalDateTime currentTime);
 }
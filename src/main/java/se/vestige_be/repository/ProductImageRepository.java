@@ -1,10 +1,18 @@
 package se.vestige_be.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.vestige_be.pojo.ProductImage;
 
 import java.util.List;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Integer>, ProductImageRepositoryCustom {
     List<ProductImage> findByProductProductIdAndActiveTrueOrderByDisplayOrderAsc(Long productId);
+
+    // (productId, imageUrl) of active images, primary image first then by display order
+    @Query("SELECT pi.product.productId, pi.imageUrl FROM ProductImage pi " +
+           "WHERE pi.product.productId IN :productIds AND pi.active = true " +
+           "ORDER BY pi.product.productId, CASE WHEN pi.isPrimary = true THEN 0 ELSE 1 END, pi.displayOrder")
+    List<Object[]> findActiveImageUrlsByProductIds(@Param("productIds") List<Long> productIds);
 }
@@ -1,8 +1,12 @@
 package se.vestige_be.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.vestige_be.pojo.ProductLike;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,4 +15,19 @@ public interface ProductLikeRepository extends JpaRepository<ProductLike, Long>
     List<ProductLike> findByUserUserId(Long userId);
     Long countByProductProductId(Long productId);
     void deleteByUserUserIdAndProductProductId(Long userId, Long productId);
+
+    // Single statement like: 1 when inserted, 0 when already liked or the product does not exist
+    @Modifying
+    @Query(value = "INSERT INTO product_likes (user_id, product_id, created_at) " +
+                   "SELECT :userId, p.product_id, CURRENT_TIMESTAMP FROM products p WHERE p.product_id = :productId " +
+                   "ON CONFLICT (user_id, product_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM ProductLike pl WHERE pl.user.userId = :userId AND pl.product.productId = :productId")
+    int deleteLike(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Query("SELECT pl.product.productId FROM ProductLike pl " +
+           "WHERE pl.user.userId = :userId AND pl.product.productId IN :productIds")
+    List<Long> findLikedProductIds(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
 }
@@ -11,11 +11,14 @@ import se.vestige_be.pojo.Product;
 import se.vestige_be.pojo.enums.ProductStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.time.LocalDateTime;
 
-public interface ProductRepository extends JpaRepository<Product,Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product,Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+    long countByStatus(ProductStatus status);
+
     Page<Product> findByStatus(ProductStatus status, Pageable pageable);
 
     Page<Product> findBySellerUserId(Long sellerId, Pageable pageable);
@@ -35,6 +38,14 @@ public interface ProductRepository extends JpaRepository<Product,Long>, JpaSpeci
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.seller WHERE p.productId = :id")
     Optional<Product> findByIdWithRelations(@Param("id") Long id);
 
+    // Page of products by id with the relations shown on list items
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand WHERE p.productId IN :productIds")
+    List<Product> findByProductIdInWithRelations(@Param("productIds") List<Long> productIds);
+
+    // Checkout: the ordered products with their sellers in one query
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller WHERE p.productId IN :productIds")
+    List<Product> findByProductIdInWithSeller(@Param("productIds") Collection<Long> productIds);
+
     // Method to load products with images (separate from other collections to avoid MultipleBagFetchException)
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.images WHERE p.productId IN :productIds")
     List<Product> findByProductIdInWithImages(@Param("productIds") List<Long> productIds);
@@ -57,11 +68,30 @@ public interface ProductRepository extends JpaRepository<Product,Long>, JpaSpeci
     // Add method for finding last product listing date for a user
     @Query("SELECT MAX(p.createdAt) FROM Product p WHERE p.seller.userId = :sellerId")
     LocalDateTime findLastListingDateBySellerUserId(@Param("sellerId") Long sellerId);
+
+    // (sellerId, listed, active, sold, last listing date) for each seller with products, for admin user statistics
+    @Query("SELECT p.seller.userId, COUNT(p), " +
+           "SUM(CASE WHEN p.status = :active THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.status = :sold THEN 1 ELSE 0 END), " +
+           "MAX(p.createdAt) " +
+           "FROM Product p WHERE p.seller.userId IN :sellerIds GROUP BY p.seller.userId")
+    List<Object[]> summarizeListingsBySellerUserIds(@Param("sellerIds") Collection<Long> sellerIds,
+                                                    @Param("active") ProductStatus active,
+                                                    @Param("sold") ProductStatus sold);
     
-    // Find products with boost priority - boosted products appear first
-    @Query("SELECT p FROM Product p LEFT JOIN ProductBoost b ON p.productId = b.product.productId " +
-           "WHERE p.status = :status AND (b.boostEndTime > :now OR b.id IS NULL) " +
-           "ORDER BY CASE WHEN b.id IS NOT NULL THEN 0 ELSE 1 END, p.createdAt DESC")
+    // Keyset batch loader used to (re)build in-memory product views such as the search index
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand " +
+           "WHERE p.status = :status AND p.productId > :afterId ORDER BY p.productId")
+    List<Product> findBatchByStatusWithRelations(@Param("status") ProductStatus status,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    // Find products with boost priority - boosted products appear first, once however many boosts are running
+    @Query(value = "SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand " +
+           "WHERE p.status = :status " +
+           "ORDER BY CASE WHEN EXISTS (SELECT 1 FROM ProductBoost b WHERE b.product = p AND b.boostEndTime > :now) " +
+           "THEN 0 ELSE 1 END, p.createdAt DESC",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.status = :status")
     Page<Product> findProductsWithBoostPriority(@Param("status") ProductStatus status, 
                                                @Param("now") LocalDateTime now, 
                                                Pageable pageable);
@@ -0,0 +1,18 @@
+package se.vestige_be.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+    List<Long> findActiveFeedIds(Collection<Long> excludedIds, long offset, int limit);
+
+    void incrementViewCounts(List<Long> productIds, List<Long> deltas);
+
+    void incrementLikeCounts(List<Long> productIds, List<Long> deltas);
+
+    List<Long> claimActiveProducts(Collection<Long> productIds);
+
+    List<Object[]> countActiveFacetGroups(Long sellerId, Collection<Long> productIds,
+                                          BigDecimal minPrice, BigDecimal maxPrice, long[] priceRangeFloors);
+}
@@ -0,0 +1,145 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.pojo.Product;
+import se.vestige_be.pojo.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Ids of ACTIVE products newest first, skipping the given ids. Only touches the
+     * (status, created_at, product_id) index; offset is not tied to page boundaries.
+     */
+    @Override
+    public List<Long> findActiveFeedIds(Collection<Long> excludedIds, long offset, int limit) {
+        boolean exclude = excludedIds != null && !excludedIds.isEmpty();
+        String jpql = "SELECT p.productId FROM Product p WHERE p.status = :status" +
+                (exclude ? " AND p.productId NOT IN :excludedIds" : "") +
+                " ORDER BY p.createdAt DESC, p.productId DESC";
+        var query = entityManager.createQuery(jpql, Long.class)
+                .setParameter("status", ProductStatus.ACTIVE)
+                .setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+                .setMaxResults(limit);
+        if (exclude) {
+            query.setParameter("excludedIds", excludedIds);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Adds each delta to the product's views_count in a single JDBC batch. Relative updates,
+     * so they compose with concurrent writers; bypasses the entity lifecycle on purpose.
+     */
+    @Override
+    @Transactional
+    public void incrementViewCounts(List<Long> productIds, List<Long> deltas) {
+        batchIncrement("UPDATE products SET views_count = COALESCE(views_count, 0) + ? WHERE product_id = ?",
+                productIds, deltas);
+    }
+
+    /**
+     * Same as incrementViewCounts for likes_count, never going below zero.
+     */
+    @Override
+    @Transactional
+    public void incrementLikeCounts(List<Long> productIds, List<Long> deltas) {
+        batchIncrement("UPDATE products SET likes_count = GREATEST(COALESCE(likes_count, 0) + ?, 0) WHERE product_id = ?",
+                productIds, deltas);
+    }
+
+    /**
+     * Moves the given products from ACTIVE to PENDING_PAYMENT in one conditional statement and
+     * returns the ids that were switched. Rows another transaction is claiming are waited for and
+     * then skipped, so two checkouts can never both get the same product. Bypasses the entity
+     * lifecycle; callers publish the change themselves.
+     */
+    @Override
+    @Transactional
+    public List<Long> claimActiveProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        List<?> rows = entityManager.createNativeQuery(
+                        "UPDATE products SET status = :pending, updated_at = :now " +
+                        "WHERE product_id IN (:productIds) AND status = :active RETURNING product_id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Product.class)
+                .setParameter("pending", ProductStatus.PENDING_PAYMENT.name())
+                .setParameter("active", ProductStatus.ACTIVE.name())
+                .setParameter("now", LocalDateTime.now())
+                .setParameterList("productIds", productIds)
+                .getResultList();
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    /**
+     * ACTIVE products grouped by (categoryId, brandId, brand name, condition, price range index,
+     * 1 if within [minPrice, maxPrice] else 0) with the count of each group. Seller and product ids
+     * narrow the products when given. Price ranges are [floor, next floor) over the given floors.
+     */
+    @Override
+    public List<Object[]> countActiveFacetGroups(Long sellerId, Collection<Long> productIds,
+                                                 BigDecimal minPrice, BigDecimal maxPrice, long[] priceRangeFloors) {
+        StringBuilder priceRange = new StringBuilder("CASE");
+        for (int i = priceRangeFloors.length - 1; i > 0; i--) {
+            priceRange.append(" WHEN p.price >= ").append(priceRangeFloors[i]).append(" THEN ").append(i);
+        }
+        priceRange.append(" ELSE 0 END");
+        String inPrice = "CASE WHEN " +
+                (minPrice != null ? "p.price >= :minPrice" : "TRUE") + " AND " +
+                (maxPrice != null ? "p.price <= :maxPrice" : "TRUE") + " THEN 1 ELSE 0 END";
+
+        String sql = "SELECT p.category_id, p.brand_id, b.name, p.condition, " + priceRange + ", " + inPrice + ", COUNT(*) " +
+                "FROM products p LEFT JOIN brands b ON b.brand_id = p.brand_id " +
+                "WHERE p.status = :status" +
+                (sellerId != null ? " AND p.seller_id = :sellerId" : "") +
+                (productIds != null ? " AND p.product_id IN (:productIds)" : "") +
+                " GROUP BY 1, 2, 3, 4, 5, 6";
+        var query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Product.class)
+                .setParameter("status", ProductStatus.ACTIVE.name());
+        if (sellerId != null) {
+            query.setParameter("sellerId", sellerId);
+        }
+        if (productIds != null) {
+            query.setParameterList("productIds", productIds);
+        }
+        if (minPrice != null) {
+            query.setParameter("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            query.setParameter("maxPrice", maxPrice);
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        return rows;
+    }
+
+    private void batchIncrement(String sql, List<Long> productIds, List<Long> deltas) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < productIds.size(); i++) {
+                    statement.setLong(1, deltas.get(i));
+                    statement.setLong(2, productIds.get(i));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
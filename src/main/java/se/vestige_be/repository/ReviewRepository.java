@@ -3,16 +3,18 @@ package se.vestige_be.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import se.vestige_be.pojo.Review;
 import se.vestige_be.pojo.Transaction;
 import se.vestige_be.pojo.User;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
     
     // Find all reviews for a user within a specific time window
     List<Review> findByReviewedUserAndCreatedAtAfter(User reviewedUser, LocalDateTime date);
@@ -25,6 +27,9 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     // Check if a review already exists for a transaction
     Optional<Review> findByTransaction(Transaction transaction);
+
+    // Batch variant used when mapping several order items at once
+    List<Review> findByTransactionTransactionIdIn(Collection<Long> transactionIds);
     
     // Check if a reviewer has already reviewed a specific transaction
     boolean existsByTransactionAndReviewer(Transaction transaction, User reviewer);
@@ -0,0 +1,29 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.SellerOrderInbox;
+
+@Repository
+public interface SellerOrderInboxRepository extends JpaRepository<SellerOrderInbox, Long> {
+
+    Page<SellerOrderInbox> findBySellerIdOrderByCreatedAtDescOrderIdDesc(Long sellerId, Pageable pageable);
+
+    @Query(value = "SELECT s FROM SellerOrderInbox s WHERE s.sellerId = :sellerId AND s.itemStatuses LIKE :statusPattern " +
+                   "ORDER BY s.createdAt DESC, s.orderId DESC",
+           countQuery = "SELECT COUNT(s) FROM SellerOrderInbox s WHERE s.sellerId = :sellerId AND s.itemStatuses LIKE :statusPattern")
+    Page<SellerOrderInbox> findBySellerIdAndItemStatus(@Param("sellerId") Long sellerId,
+                                                       @Param("statusPattern") String statusPattern,
+                                                       Pageable pageable);
+
+    boolean existsByOrderId(Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM SellerOrderInbox s WHERE s.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
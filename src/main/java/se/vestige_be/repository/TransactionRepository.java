@@ -9,11 +9,22 @@ import se.vestige_be.pojo.enums.EscrowStatus;
 import se.vestige_be.pojo.enums.TransactionStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
     Optional<Transaction> findByOrderItemOrderItemId(Long orderItemId);
+
+    // Batch variant used when mapping several order items at once
+    List<Transaction> findByOrderItemOrderItemIdIn(Collection<Long> orderItemIds);
+
+    // Bulk delivery replaces the evidence of every transaction it touches
+    @Query("SELECT DISTINCT t FROM Transaction t " +
+           "LEFT JOIN FETCH t.deliveryEvidence " +
+           "WHERE t.orderItem.orderItemId IN :orderItemIds")
+    List<Transaction> findByOrderItemIdsWithDeliveryEvidence(@Param("orderItemIds") Collection<Long> orderItemIds);
+
     Optional<Transaction> findFirstByStripePaymentIntentId(String paymentIntentId);
     Optional<Transaction> findByPayosOrderCode(String payosOrderCode);
     List<Transaction> findByStatusAndDeliveredAtBeforeAndEscrowStatus(
@@ -0,0 +1,19 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.UserMonthlyBalance;
+import se.vestige_be.pojo.enums.LedgerAccount;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface UserMonthlyBalanceRepository extends JpaRepository<UserMonthlyBalance, Long> {
+
+    // Latest row up to the month, which carries the balance at the month's end
+    Optional<UserMonthlyBalance> findFirstByUserIdAndAccountAndMonthLessThanEqualOrderByMonthDesc(
+            Long userId, LedgerAccount account, LocalDate month);
+
+    Optional<UserMonthlyBalance> findByUserIdAndAccountAndMonth(Long userId, LedgerAccount account, LocalDate month);
+}
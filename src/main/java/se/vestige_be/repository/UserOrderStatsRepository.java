@@ -0,0 +1,21 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.vestige_be.pojo.UserOrderStats;
+
+import java.util.List;
+
+@Repository
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, Long>, UserOrderStatsRepositoryCustom {
+
+    @Query(value = "SELECT u.user_id FROM users u " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM user_order_stats s WHERE s.user_id = u.user_id) " +
+                   "ORDER BY u.user_id LIMIT :limit", nativeQuery = true)
+    List<Long> findUserIdsWithoutRows(@Param("limit") int limit);
+
+    @Query(value = "SELECT user_id FROM users WHERE user_id > :afterId ORDER BY user_id LIMIT :limit", nativeQuery = true)
+    List<Long> findUserIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
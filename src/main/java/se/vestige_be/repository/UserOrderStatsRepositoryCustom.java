@@ -0,0 +1,36 @@
+package se.vestige_be.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import se.vestige_be.pojo.User;
+import se.vestige_be.pojo.UserOrderStats;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserOrderStatsRepositoryCustom {
+
+    /**
+     * A user with their order statistics row, null when not built yet.
+     */
+    record UserWithStats(User user, UserOrderStats stats) {
+    }
+
+    /**
+     * Replaces the users' rows with values aggregated from their current orders and sold items.
+     */
+    void recompute(Collection<Long> userIds);
+
+    /**
+     * Buyers and sellers of the given orders.
+     */
+    List<Long> findUserIdsOfOrders(Collection<Long> orderIds);
+
+    /**
+     * Page of users joined with their statistics rows. Search matches username, first name, last name or
+     * email; null filters are ignored. Sortable by user fields and by the statistics (totalOrders,
+     * totalOrderValue, totalSpent, totalItems, totalEarned, lastOrderDate, lastSaleDate); other sort
+     * properties are ignored.
+     */
+    Page<UserWithStats> findUsersWithStats(String search, Boolean isVerified, String accountStatus, Pageable pageable);
+}
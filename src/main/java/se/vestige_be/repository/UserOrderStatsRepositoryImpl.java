@@ -0,0 +1,159 @@
+package se.vestige_be.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.pojo.User;
+import se.vestige_be.pojo.UserOrderStats;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class UserOrderStatsRepositoryImpl implements UserOrderStatsRepositoryCustom {
+
+    // Sort properties accepted by findUsersWithStats and the paths they order by
+    private static final Map<String, String> SORT_PATHS = Map.ofEntries(
+            Map.entry("userId", "u.userId"),
+            Map.entry("username", "u.username"),
+            Map.entry("email", "u.email"),
+            Map.entry("joinedDate", "u.joinedDate"),
+            Map.entry("lastLoginAt", "u.lastLoginAt"),
+            Map.entry("accountStatus", "u.accountStatus"),
+            Map.entry("totalOrders", "s.buyerOrders"),
+            Map.entry("totalOrderValue", "s.buyerOrderValue"),
+            Map.entry("totalSpent", "s.buyerSpent"),
+            Map.entry("lastOrderDate", "s.lastOrderAt"),
+            Map.entry("totalItems", "s.sellerItems"),
+            Map.entry("totalEarned", "s.sellerEarned"),
+            Map.entry("lastSaleDate", "s.lastSaleAt")
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One upsert per batch: orders grouped by buyer and status, items grouped by seller and status,
+     * each rolled up per user with the status counts as a JSON object. Users without orders get zeros.
+     */
+    @Override
+    @Transactional
+    public void recompute(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        entityManager.createNativeQuery(
+                        "WITH b AS (SELECT buyer_id, SUM(cnt) AS orders, SUM(order_value) AS order_value, " +
+                        "SUM(spent) AS spent, jsonb_object_agg(status, cnt) AS status_counts, MAX(last_at) AS last_at " +
+                        "FROM (SELECT buyer_id, status, COUNT(*) AS cnt, SUM(total_amount) AS order_value, " +
+                        "COALESCE(SUM(total_amount) FILTER (WHERE status IN (:paidStatuses)), 0) AS spent, " +
+                        "MAX(created_at) AS last_at " +
+                        "FROM orders WHERE buyer_id IN (:userIds) GROUP BY buyer_id, status) bs GROUP BY buyer_id), " +
+                        "s AS (SELECT seller_id, SUM(cnt) AS items, SUM(earned) AS earned, " +
+                        "jsonb_object_agg(status, cnt) AS status_counts, MAX(last_at) AS last_at " +
+                        "FROM (SELECT oi.seller_id, oi.status, COUNT(*) AS cnt, " +
+                        "COALESCE(SUM(oi.price - oi.platform_fee) FILTER (WHERE oi.status IN (:paidItemStatuses)), 0) AS earned, " +
+                        "MAX(o.created_at) AS last_at " +
+                        "FROM order_items oi JOIN orders o ON o.order_id = oi.order_id " +
+                        "WHERE oi.seller_id IN (:userIds) GROUP BY oi.seller_id, oi.status) ss GROUP BY seller_id) " +
+                        "INSERT INTO user_order_stats (user_id, buyer_orders, buyer_order_value, buyer_spent, " +
+                        "buyer_status_counts, last_order_at, seller_items, seller_earned, seller_status_counts, " +
+                        "last_sale_at, updated_at) " +
+                        "SELECT u.user_id, COALESCE(b.orders, 0), COALESCE(b.order_value, 0), COALESCE(b.spent, 0), " +
+                        "COALESCE(b.status_counts, CAST('{}' AS jsonb)), b.last_at, COALESCE(s.items, 0), COALESCE(s.earned, 0), " +
+                        "COALESCE(s.status_counts, CAST('{}' AS jsonb)), s.last_at, :now " +
+                        "FROM users u LEFT JOIN b ON b.buyer_id = u.user_id LEFT JOIN s ON s.seller_id = u.user_id " +
+                        "WHERE u.user_id IN (:userIds) " +
+                        "ON CONFLICT (user_id) DO UPDATE SET buyer_orders = EXCLUDED.buyer_orders, " +
+                        "buyer_order_value = EXCLUDED.buyer_order_value, buyer_spent = EXCLUDED.buyer_spent, " +
+                        "buyer_status_counts = EXCLUDED.buyer_status_counts, last_order_at = EXCLUDED.last_order_at, " +
+                        "seller_items = EXCLUDED.seller_items, seller_earned = EXCLUDED.seller_earned, " +
+                        "seller_status_counts = EXCLUDED.seller_status_counts, last_sale_at = EXCLUDED.last_sale_at, " +
+                        "updated_at = EXCLUDED.updated_at")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserOrderStats.class)
+                .setParameterList("userIds", userIds)
+                .setParameterList("paidStatuses", List.of(OrderStatus.PROCESSING.name(),
+                        OrderStatus.OUT_FOR_DELIVERY.name(), OrderStatus.DELIVERED.name()))
+                .setParameterList("paidItemStatuses", List.of(OrderItemStatus.PROCESSING.name(),
+                        OrderItemStatus.OUT_FOR_DELIVERY.name(), OrderItemStatus.DELIVERED.name()))
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> findUserIdsOfOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> rows = entityManager.createNativeQuery(
+                        "SELECT buyer_id FROM orders WHERE order_id IN (:orderIds) " +
+                        "UNION SELECT seller_id FROM order_items WHERE order_id IN (:orderIds)")
+                .unwrap(NativeQuery.class)
+                .setParameterList("orderIds", orderIds)
+                .getResultList();
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    @Override
+    public Page<UserWithStats> findUsersWithStats(String search, Boolean isVerified, String accountStatus, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (search != null && !search.trim().isEmpty()) {
+            where.append(" AND (LOWER(u.username) LIKE :search OR LOWER(u.firstName) LIKE :search " +
+                    "OR LOWER(u.lastName) LIKE :search OR LOWER(u.email) LIKE :search)");
+            parameters.put("search", "%" + search.trim().toLowerCase() + "%");
+        }
+        if (isVerified != null) {
+            where.append(" AND u.isVerified = :isVerified");
+            parameters.put("isVerified", isVerified);
+        }
+        if (accountStatus != null && !accountStatus.trim().isEmpty()) {
+            where.append(" AND u.accountStatus = :accountStatus");
+            parameters.put("accountStatus", accountStatus.trim());
+        }
+
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : pageable.getSort()) {
+            String path = SORT_PATHS.get(order.getProperty());
+            if (path == null) {
+                // Unknown properties fall back to the id order
+                continue;
+            }
+            orderBy.append(orderBy.isEmpty() ? " ORDER BY " : ", ")
+                    .append(path).append(order.isAscending() ? " ASC" : " DESC").append(" NULLS LAST");
+        }
+        // Stable pages
+        orderBy.append(orderBy.isEmpty() ? " ORDER BY " : ", ").append("u.userId");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                "SELECT u, s FROM User u LEFT JOIN UserOrderStats s ON s.userId = u.userId" + where + orderBy, Object[].class);
+        TypedQuery<Long> countQuery = entityManager.createQuery(
+                "SELECT COUNT(u) FROM User u" + where, Long.class);
+        parameters.forEach((name, value) -> {
+            query.setParameter(name, value);
+            countQuery.setParameter(name, value);
+        });
+
+        List<UserWithStats> content = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList().stream()
+                .map(row -> new UserWithStats((User) row[0], (UserOrderStats) row[1]))
+                .toList();
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::getSingleResult);
+    }
+}
@@ -2,9 +2,13 @@ package se.vestige_be.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.vestige_be.pojo.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User,Long>, JpaSpecificationExecutor<User> {
@@ -13,6 +17,12 @@ public interface UserRepository extends JpaRepository<User,Long>, JpaSpecificati
     Optional<User> findByStripeAccountId(String stripeAccountId);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Bypasses loaded User entities, which keep their old count until reloaded
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.successfulTransactions = COALESCE(u.successfulTransactions, 0) + :count " +
+           "WHERE u.userId IN :userIds")
+    int incrementSuccessfulTransactions(@Param("userIds") Collection<Long> userIds, @Param("count") int count);
     
     // Additional methods for user statistics and activity monitoring
     long countByJoinedDateAfter(LocalDateTime since);
@@ -0,0 +1,365 @@
+package se.vestige_be.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.exception.BusinessLogicException;
+import se.vestige_be.pojo.enums.EscrowStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.pojo.enums.TransactionStatus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams admin order and transaction exports as CSV or NDJSON. Rows come from a forward-only
+ * cursor read with a server-side fetch size and are written out as they arrive, so an export
+ * holds one fetch batch in memory however many rows it covers. Filters match
+ * {@link OrderService#getAllOrdersForAdmin} and {@link OrderService#getAllTransactionsForAdmin}.
+ */
+@Service
+@Slf4j
+public class AdminExportService {
+
+    // PostgreSQL only honours the fetch size inside a transaction
+    private static final int FETCH_SIZE = 1000;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessLogicException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AdminExportService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportOrders(String status, Long buyerId, Long sellerId, String search,
+                             LocalDateTime startDate, LocalDateTime endDate,
+                             Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT o.order_id, o.status, o.payment_method, o.buyer_id, b.username AS buyer_username, " +
+                "o.total_amount, " +
+                "(SELECT COUNT(*) FROM order_items oi WHERE oi.order_id = o.order_id) AS item_count, " +
+                "o.created_at, o.paid_at, o.shipped_at, o.delivered_at " +
+                "FROM orders o JOIN users b ON b.user_id = o.buyer_id WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+
+        if (status != null && !status.trim().isEmpty()) {
+            appendEnumFilter(sql, args, "o.status", OrderStatus.class, status);
+        }
+        if (buyerId != null) {
+            sql.append(" AND o.buyer_id = ?");
+            args.add(buyerId);
+        }
+        if (sellerId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM order_items oi WHERE oi.order_id = o.order_id AND oi.seller_id = ?)");
+            args.add(sellerId);
+        }
+        appendDateRange(sql, args, "o.created_at", startDate, endDate);
+        if (search != null && !search.trim().isEmpty()) {
+            String searchPattern = "%" + search.toLowerCase() + "%";
+            sql.append(" AND (LOWER(b.username) LIKE ? OR CAST(o.order_id AS VARCHAR) LIKE ?)");
+            args.add(searchPattern);
+            args.add(searchPattern);
+        }
+        sql.append(" ORDER BY o.created_at, o.order_id");
+
+        stream(sql.toString(), args, format, out);
+    }
+
+    public void exportTransactions(String status, String escrowStatus, Long buyerId, Long sellerId,
+                                   LocalDateTime startDate, LocalDateTime endDate, String search,
+                                   Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT t.transaction_id, oi.order_id, t.order_item_id, oi.product_id, p.title AS product_title, " +
+                "t.buyer_id, b.username AS buyer_username, t.seller_id, s.username AS seller_username, " +
+                "t.amount, t.platform_fee, t.fee_percentage, t.status, t.escrow_status, t.dispute_status, " +
+                "t.tracking_number, t.created_at, t.paid_at, t.shipped_at, t.delivered_at " +
+                "FROM transactions t " +
+                "LEFT JOIN order_items oi ON oi.order_item_id = t.order_item_id " +
+                "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                "LEFT JOIN users b ON b.user_id = t.buyer_id " +
+                "LEFT JOIN users s ON s.user_id = t.seller_id WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+
+        if (status != null && !status.trim().isEmpty()) {
+            appendEnumFilter(sql, args, "t.status", TransactionStatus.class, status);
+        }
+        if (escrowStatus != null && !escrowStatus.trim().isEmpty()) {
+            appendEnumFilter(sql, args, "t.escrow_status", EscrowStatus.class, escrowStatus);
+        }
+        if (buyerId != null) {
+            sql.append(" AND t.buyer_id = ?");
+            args.add(buyerId);
+        }
+        if (sellerId != null) {
+            sql.append(" AND t.seller_id = ?");
+            args.add(sellerId);
+        }
+        appendDateRange(sql, args, "t.created_at", startDate, endDate);
+        if (search != null && !search.trim().isEmpty()) {
+            String searchPattern = "%" + search.toLowerCase() + "%";
+            sql.append(" AND (LOWER(t.tracking_number) LIKE ? OR LOWER(t.dispute_reason) LIKE ?" +
+                    " OR LOWER(b.username) LIKE ? OR LOWER(s.username) LIKE ?)");
+            for (int i = 0; i < 4; i++) {
+                args.add(searchPattern);
+            }
+        }
+        sql.append(" ORDER BY t.created_at, t.transaction_id");
+
+        stream(sql.toString(), args, format, out);
+    }
+
+    private <E extends Enum<E>> void appendEnumFilter(StringBuilder sql, List<Object> args, String column,
+                                                      Class<E> type, String value) {
+        try {
+            args.add(Enum.valueOf(type, value.toUpperCase()).name());
+            sql.append(" AND ").append(column).append(" = ?");
+        } catch (IllegalArgumentException e) {
+            // Invalid status - export nothing, like the paged admin listing
+            sql.append(" AND 1 = 0");
+        }
+    }
+
+    private void appendDateRange(StringBuilder sql, List<Object> args, String column,
+                                 LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            sql.append(" AND ").append(column).append(" <= ?");
+            args.add(Timestamp.valueOf(endDate));
+        }
+    }
+
+    private void stream(String sql, List<Object> args, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == Format.NDJSON ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+        long[] rows = {0};
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (ResultSetExtractor<Void>) resultSet -> {
+            try {
+                rowWriter.start(resultSet.getMetaData());
+                while (resultSet.next()) {
+                    rowWriter.write(resultSet);
+                    rows[0]++;
+                }
+            } catch (IOException e) {
+                // Client went away; abandons the cursor
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+
+        try {
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Admin export streamed {} rows as {}", rows[0], format);
+    }
+
+    private static Object readValue(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void start(ResultSetMetaData metaData) throws SQLException, IOException;
+
+        void write(ResultSet resultSet) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private int columnCount;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException, IOException {
+            columnCount = metaData.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writer.write(metaData.getColumnLabel(i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = readValue(resultSet, i);
+                if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value instanceof String text) {
+                    writer.write(escape(text));
+                } else if (value != null) {
+                    writer.write(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private static String escape(String text) {
+            // Keep spreadsheets from evaluating user-supplied text as a formula
+            if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private String[] names;
+        private boolean empty = true;
+
+        NdjsonRowWriter(Writer writer) {
+            try {
+                this.generator = objectMapper.getFactory().createGenerator(writer)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            names = new String[metaData.getColumnCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = toCamelCase(metaData.getColumnLabel(i + 1));
+            }
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                Object value = readValue(resultSet, i + 1);
+                generator.writeFieldName(names[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+
+        // Matches the field names of the JSON API
+        private static String toCamelCase(String column) {
+            StringBuilder name = new StringBuilder(column.length());
+            boolean upper = false;
+            for (char c : column.toCharArray()) {
+                if (c == '_') {
+                    upper = true;
+                } else {
+                    name.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                }
+            }
+            return name.toString();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package se.vestige_be.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.event.ProductBoostedEvent;
+import se.vestige_be.event.ProductChangedEvent;
+import se.vestige_be.pojo.enums.ProductStatus;
+import se.vestige_be.repository.ProductBoostRepository;
+import se.vestige_be.repository.ProductRepository;
+import se.vestige_be.util.HashedWheelTimer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default home feed: currently boosted ACTIVE products first, then every other ACTIVE product,
+ * both newest first. Boosts are kept in memory and dropped by a wheel timer when they end, so a
+ * feed page is a slice of the boosted set plus an id-only query on the product status index.
+ * A product with several running boosts appears once and stays boosted until the last one ends.
+ * The page total is a count of ACTIVE products refreshed in the background, not counted per request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BoostedFeedService {
+
+    private static final long TIMER_TICK_SECONDS = 1;
+    private static final int TIMER_WHEEL_SIZE = 1024;
+    private static final long ACTIVE_COUNT_REFRESH_MILLIS = 30 * 1000;
+
+    private final ProductBoostRepository productBoostRepository;
+    private final ProductRepository productRepository;
+
+    private record BoostedProduct(Long productId, LocalDateTime createdAt, LocalDateTime boostEndTime, boolean active) {
+    }
+
+    private static final Comparator<BoostedProduct> NEWEST_FIRST = Comparator
+            .comparing(BoostedProduct::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(BoostedProduct::productId, Comparator.reverseOrder());
+
+    // Every running boost, including products that are currently not ACTIVE
+    private final Map<Long, BoostedProduct> boosts = new ConcurrentHashMap<>();
+    // Running boosts of ACTIVE products in feed order
+    private final NavigableSet<BoostedProduct> feed = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final HashedWheelTimer<Long> expiryTimer = new HashedWheelTimer<>(
+            "boost-expiry", TIMER_TICK_SECONDS, TimeUnit.SECONDS, TIMER_WHEEL_SIZE, this::expire);
+    private volatile boolean ready = false;
+    private volatile long activeProductCount;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Resynchronizes with the database, picking up boosts or status changes made outside this instance.
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public synchronized void reload() {
+        List<Object[]> rows = productBoostRepository.findActiveBoostRows(LocalDateTime.now());
+
+        boosts.clear();
+        feed.clear();
+        expiryTimer.clear();
+        for (Object[] row : rows) {
+            put(new BoostedProduct((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[3],
+                    ProductStatus.ACTIVE.equals(row[2])));
+        }
+        refreshActiveProductCount();
+        ready = true;
+        log.debug("Boosted feed loaded with {} running boosts", boosts.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductBoosted(ProductBoostedEvent event) {
+        BoostedProduct existing = boosts.get(event.getProductId());
+        boolean active = existing != null ? existing.active()
+                : productRepository.findById(event.getProductId())
+                        .map(product -> ProductStatus.ACTIVE.equals(product.getStatus()))
+                        .orElse(false);
+        // Overlapping boosts of one product: the one ending last decides
+        LocalDateTime boostEndTime = existing != null && existing.boostEndTime().isAfter(event.getBoostEndTime())
+                ? existing.boostEndTime()
+                : event.getBoostEndTime();
+        put(new BoostedProduct(event.getProductId(), event.getProductCreatedAt(), boostEndTime, active));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        BoostedProduct existing = boosts.get(event.getProductId());
+        if (existing == null) {
+            return;
+        }
+        if (event.isRemoved()) {
+            expire(event.getProductId());
+            return;
+        }
+        boolean active = productRepository.findById(event.getProductId())
+                .map(product -> ProductStatus.ACTIVE.equals(product.getStatus()))
+                .orElse(false);
+        if (active != existing.active()) {
+            put(new BoostedProduct(existing.productId(), existing.createdAt(), existing.boostEndTime(), active));
+        }
+    }
+
+    /**
+     * Number of ACTIVE products as of the last refresh, used as the feed's page total.
+     */
+    public long getActiveProductCount() {
+        return activeProductCount;
+    }
+
+    @Scheduled(fixedDelay = ACTIVE_COUNT_REFRESH_MILLIS, initialDelay = ACTIVE_COUNT_REFRESH_MILLIS)
+    public void refreshActiveProductCount() {
+        activeProductCount = productRepository.countByStatus(ProductStatus.ACTIVE);
+    }
+
+    /**
+     * Ids of ACTIVE boosted products in feed order.
+     */
+    public List<Long> getBoostedIds() {
+        return feed.stream().map(BoostedProduct::productId).toList();
+    }
+
+    /**
+     * Product ids for one page of the default feed.
+     */
+    public List<Long> getFeedPageIds(long offset, int size) {
+        List<Long> boostedIds = getBoostedIds();
+        List<Long> pageIds = new ArrayList<>(size);
+        if (offset < boostedIds.size()) {
+            pageIds.addAll(boostedIds.subList((int) offset, (int) Math.min(boostedIds.size(), offset + size)));
+        }
+        int remaining = size - pageIds.size();
+        if (remaining > 0) {
+            long plainOffset = Math.max(0, offset - boostedIds.size());
+            pageIds.addAll(productRepository.findActiveFeedIds(boostedIds, plainOffset, remaining));
+        }
+        return pageIds;
+    }
+
+    private void put(BoostedProduct boosted) {
+        BoostedProduct previous = boosts.put(boosted.productId(), boosted);
+        if (previous != null) {
+            feed.remove(previous);
+        }
+        if (boosted.active()) {
+            feed.add(boosted);
+        }
+        expiryTimer.schedule(boosted.productId(),
+                boosted.boostEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private synchronized void expire(Long productId) {
+        BoostedProduct removed = boosts.remove(productId);
+        if (removed != null) {
+            feed.remove(removed);
+            expiryTimer.cancel(productId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        expiryTimer.close();
+    }
+}
@@ -1,9 +1,11 @@
 package se.vestige_be.service;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import se.vestige_be.dto.response.BrandResponse;
+import se.vestige_be.event.BrandChangedEvent;
 import se.vestige_be.pojo.Brand;
 import se.vestige_be.repository.BrandRepository;
 
@@ -14,6 +16,7 @@ import java.util.List;
 @AllArgsConstructor
 public class BrandService {
     private final BrandRepository brandRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<BrandResponse> findAll() {
         return brandRepository.findAll().stream()
@@ -38,6 +41,7 @@ public class BrandService {
                 .createdAt(LocalDateTime.now())
                 .build();
         Brand savedBrand = brandRepository.save(brand);
+        eventPublisher.publishEvent(new BrandChangedEvent(savedBrand.getBrandId()));
         return convertToDTO(savedBrand);
     }
 
@@ -57,6 +61,7 @@ public class BrandService {
             existingBrand.setLogoUrl(logoUrl);
         }
         Brand savedBrand = brandRepository.save(existingBrand);
+        eventPublisher.publishEvent(new BrandChangedEvent(savedBrand.getBrandId()));
         return convertToDTO(savedBrand);
     }
 
@@ -73,6 +78,7 @@ public class BrandService {
         }
 
         brandRepository.delete(brand);
+        eventPublisher.publishEvent(new BrandChangedEvent(id));
     }
 
 }
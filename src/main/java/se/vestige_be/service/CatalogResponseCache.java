@@ -0,0 +1,151 @@
+package se.vestige_be.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import se.vestige_be.event.BrandChangedEvent;
+import se.vestige_be.event.CategoryTreeChangedEvent;
+import se.vestige_be.event.ProductBoostedEvent;
+import se.vestige_be.event.ProductChangedEvent;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized anonymous catalog responses (product list, product by slug, facets, categories, brands)
+ * with their ETags. A product write or boost evicts the detail response of that product and every
+ * aggregate response, i.e. product lists and facets: any product write can change which products a
+ * list holds, its total or a facet count. Category and brand writes drop every entry. Entries also
+ * expire after a short TTL, which is how view and like counters and boost expiry are picked up, as
+ * they do not write the product entity.
+ */
+@Service
+@Slf4j
+public class CatalogResponseCache {
+
+    /**
+     * Request attribute holding the id of the product a detail response shows,
+     * so cache hits still count as views.
+     */
+    public static final String VIEWED_PRODUCT_ATTRIBUTE = CatalogResponseCache.class.getName() + ".viewedProductId";
+
+    // Past this many remembered product evictions, drop everything and start over
+    private static final int MAX_TRACKED_EVICTIONS = 10_000;
+
+    private final long ttlMillis;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Entry> entries;
+    // Generation of the last full invalidation; entries built before it are stale
+    private long clearedAtGeneration;
+    // Generation of the last product write; aggregate responses built before it are stale
+    private long aggregatesEvictedAtGeneration;
+    // Generation of each product's last eviction, checked against detail responses still being built
+    private final Map<Long, Long> productEvictions = new HashMap<>();
+
+    public record Entry(long generation, long expiresAt, byte[] body, String contentType, String etag,
+                        Long viewedProductId, boolean aggregate) {
+    }
+
+    public CatalogResponseCache(@Value("${app.catalog-cache.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${app.catalog-cache.max-entries:2000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        // Access-ordered, so the least recently served entry is evicted first
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Generation to pass to {@link #put} for a response that is about to be built.
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.generation() < clearedAtGeneration || entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a response built from data read at the given generation. A response that raced with a
+     * write it depends on is still returned with its ETag but not stored, so it cannot outlive the eviction.
+     *
+     * @param viewedProductId product a detail response shows, null for other responses
+     * @param aggregate       whether the response lists or counts products
+     */
+    public synchronized Entry put(String key, long builtAtGeneration, byte[] body, String contentType,
+                                  Long viewedProductId, boolean aggregate) {
+        Entry entry = new Entry(builtAtGeneration, System.currentTimeMillis() + ttlMillis, body, contentType,
+                "\"" + DigestUtils.md5DigestAsHex(body) + "\"", viewedProductId, aggregate);
+        if (!isStale(entry)) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public synchronized void invalidateAll() {
+        clearedAtGeneration = generation.incrementAndGet();
+        productEvictions.clear();
+        entries.clear();
+    }
+
+    /**
+     * Drops the detail response of the product and every aggregate response.
+     */
+    public synchronized void evictProduct(Long productId) {
+        long evictedAt = generation.incrementAndGet();
+        aggregatesEvictedAtGeneration = evictedAt;
+        productEvictions.put(productId, evictedAt);
+        if (productEvictions.size() > MAX_TRACKED_EVICTIONS) {
+            invalidateAll();
+            return;
+        }
+        entries.values().removeIf(entry -> entry.aggregate() || productId.equals(entry.viewedProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evictProduct(event.getProductId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductBoosted(ProductBoostedEvent event) {
+        evictProduct(event.getProductId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryTreeChanged(CategoryTreeChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        invalidateAll();
+    }
+
+    private boolean isStale(Entry entry) {
+        if (entry.generation() < clearedAtGeneration) {
+            return true;
+        }
+        if (entry.aggregate() && aggregatesEvictedAtGeneration > entry.generation()) {
+            return true;
+        }
+        return entry.viewedProductId() != null
+                && productEvictions.getOrDefault(entry.viewedProductId(), Long.MIN_VALUE) > entry.generation();
+    }
+}
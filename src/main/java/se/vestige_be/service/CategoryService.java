@@ -2,9 +2,11 @@ package se.vestige_be.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import se.vestige_be.dto.response.CategoryResponse;
+import se.vestige_be.event.CategoryTreeChangedEvent;
 import se.vestige_be.pojo.Category;
 import se.vestige_be.repository.CategoryRepository;
 
@@ -15,9 +17,12 @@ import java.util.Optional;
 @Service
 @AllArgsConstructor
 public class CategoryService {
-    private final CategoryRepository categoryRepository;    public List<CategoryResponse> findAll() {
-        List<Category> categories = categoryRepository.findByParentCategoryIsNull();
-        return CategoryResponse.fromEntityList(categories);
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public List<CategoryResponse> findAll() {
+        return categoryTreeService.getRootTrees();
     }
 
     public Optional<Category> findById(Long id) {
@@ -47,6 +52,7 @@ public class CategoryService {
                 .build();
         
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent(savedCategory.getCategoryId()));
         
         // Reload the saved category with parent data to avoid lazy loading issues
         if (savedCategory.getCategoryId() != null) {
@@ -82,6 +88,7 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(existingCategory);
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent(savedCategory.getCategoryId()));
         
         // Reload the saved category with parent data to avoid lazy loading issues
         if (savedCategory.getCategoryId() != null) {
@@ -108,31 +115,20 @@ public class CategoryService {
         }
 
         categoryRepository.deleteById(categoryId);
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent(categoryId));
     }    @Transactional(readOnly = true)
     public Optional<Category> findByIdWithProducts(Long id) {
         return categoryRepository.findByIdWithSubcategories(id);
     }
 
-    @Transactional(readOnly = true)
     public CategoryResponse getCategoryById(Long id) {
-        Category category = findById(id)
+        return categoryTreeService.getTree(id)
                 .orElseThrow(() -> new EntityNotFoundException("Category with id '" + id + "' not found"));
-        return CategoryResponse.fromEntity(category, 0);
-    }    private boolean isCircularReference(Long categoryId, Long parentCategoryId) {
-        if (categoryId.equals(parentCategoryId)) {
-            return true;
-        }
-
-        Category parent = categoryRepository.findByIdWithParent(parentCategoryId).orElse(null);
-        while (parent != null && parent.getParentCategory() != null) {
-            if (parent.getParentCategory().getCategoryId().equals(categoryId)) {
-                return true;
-            }
-            // For the next iteration, we need to fetch the parent's parent with its parent data too
-            parent = categoryRepository.findByIdWithParent(parent.getParentCategory().getCategoryId()).orElse(null);
-        }
+    }
 
-        return false;
+    private boolean isCircularReference(Long categoryId, Long parentCategoryId) {
+        // Circular when the category being moved is the new parent itself or one of its ancestors
+        return categoryTreeService.isSelfOrAncestor(categoryId, parentCategoryId);
     }
 
     /**
@@ -140,37 +136,32 @@ public class CategoryService {
      * This is useful for hierarchical filtering where selecting a parent category 
      * should include products from all child categories
      */
-    @Transactional(readOnly = true)
     public List<Long> getCategoryWithAllSubcategoryIds(Long categoryId) {
         if (categoryId == null) {
             return List.of();
         }
         
-        return categoryRepository.findCategoryIdWithAllSubcategoryIds(categoryId);
+        return categoryTreeService.getDescendantIds(categoryId);
     }
     
     /**
      * Check if a category has subcategories
      * This helps the frontend determine if a category can be expanded
      */
-    @Transactional(readOnly = true)
     public boolean hasSubcategories(Long categoryId) {
         if (categoryId == null) {
             return false;
         }
         
-        return categoryRepository.hasSubcategories(categoryId);
+        return categoryTreeService.hasChildren(categoryId);
     }
       /**
      * Get category tree for display purposes
      * Returns the category with all its subcategories loaded
      */
-    @Transactional(readOnly = true)
     public CategoryResponse getCategoryTree(Long categoryId) {
-        Category category = categoryRepository.findByIdWithSubcategories(categoryId)
+        return categoryTreeService.getTree(categoryId)
                 .orElseThrow(() -> new EntityNotFoundException("Category not found with id: " + categoryId));
-        
-        return CategoryResponse.fromEntity(category, 0);
     }
 
 }
@@ -0,0 +1,222 @@
+package se.vestige_be.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.dto.response.CategoryResponse;
+import se.vestige_be.event.CategoryTreeChangedEvent;
+import se.vestige_be.repository.CategoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an immutable copy of the category hierarchy in memory so hierarchical filters and tree
+ * endpoints do not hit the database. The whole snapshot is rebuilt and swapped after every
+ * committed category change; readers always see one consistent version.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    @Getter
+    public static final class Node {
+        private final Long categoryId;
+        private final Long parentId;
+        private final String name;
+        private final String description;
+        private final LocalDateTime createdAt;
+        private final int level;
+        // Ordered by id
+        private final List<Long> childIds;
+        // The category itself followed by all of its descendants (pre-order)
+        private final List<Long> descendantIds;
+        // From the root down to the direct parent
+        private final List<Long> ancestorIds;
+
+        private Node(Long categoryId, Long parentId, String name, String description, LocalDateTime createdAt,
+                     int level, List<Long> childIds, List<Long> descendantIds, List<Long> ancestorIds) {
+            this.categoryId = categoryId;
+            this.parentId = parentId;
+            this.name = name;
+            this.description = description;
+            this.createdAt = createdAt;
+            this.level = level;
+            this.childIds = childIds;
+            this.descendantIds = descendantIds;
+            this.ancestorIds = ancestorIds;
+        }
+    }
+
+    @Getter
+    public static final class Snapshot {
+        private final long version;
+        private final List<Long> rootIds;
+        private final Map<Long, Node> nodes;
+
+        private Snapshot(long version, List<Long> rootIds, Map<Long, Node> nodes) {
+            this.version = version;
+            this.rootIds = rootIds;
+            this.nodes = nodes;
+        }
+
+        public Node get(Long categoryId) {
+            return categoryId != null ? nodes.get(categoryId) : null;
+        }
+    }
+
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    public long getVersion() {
+        return snapshot().getVersion();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCategoryTreeChanged(CategoryTreeChangedEvent event) {
+        rebuild();
+    }
+
+    public synchronized Snapshot rebuild() {
+        List<Object[]> rows = categoryRepository.findAllForTree();
+
+        Map<Long, Object[]> rowsById = new HashMap<>();
+        Map<Long, List<Long>> childrenByParent = new HashMap<>();
+        List<Long> rootIds = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Long parentId = (Long) row[1];
+            rowsById.put(id, row);
+            if (parentId == null) {
+                rootIds.add(id);
+            } else {
+                childrenByParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(id);
+            }
+        }
+        Collections.sort(rootIds);
+        childrenByParent.values().forEach(Collections::sort);
+
+        Map<Long, Node> nodes = new HashMap<>();
+        for (Long rootId : rootIds) {
+            buildNode(rootId, List.of(), rowsById, childrenByParent, nodes);
+        }
+        if (nodes.size() < rowsById.size()) {
+            // Only possible with a parent cycle already stored in the database
+            log.warn("Category tree snapshot skipped {} categories not reachable from a root",
+                    rowsById.size() - nodes.size());
+        }
+
+        Snapshot snapshot = new Snapshot(versions.incrementAndGet(), List.copyOf(rootIds), Map.copyOf(nodes));
+        current.set(snapshot);
+        log.debug("Category tree snapshot v{} built with {} categories", snapshot.getVersion(), nodes.size());
+        return snapshot;
+    }
+
+    private List<Long> buildNode(Long id, List<Long> ancestorIds, Map<Long, Object[]> rowsById,
+                                 Map<Long, List<Long>> childrenByParent, Map<Long, Node> nodes) {
+        Object[] row = rowsById.get(id);
+        List<Long> childIds = childrenByParent.getOrDefault(id, List.of());
+        List<Long> childAncestors = new ArrayList<>(ancestorIds);
+        childAncestors.add(id);
+        List<Long> immutableChildAncestors = List.copyOf(childAncestors);
+
+        List<Long> descendantIds = new ArrayList<>();
+        descendantIds.add(id);
+        for (Long childId : childIds) {
+            descendantIds.addAll(buildNode(childId, immutableChildAncestors, rowsById, childrenByParent, nodes));
+        }
+
+        List<Long> immutableDescendants = List.copyOf(descendantIds);
+        nodes.put(id, new Node(id, (Long) row[1], (String) row[2], (String) row[3], (LocalDateTime) row[4],
+                ancestorIds.size(), List.copyOf(childIds), immutableDescendants, ancestorIds));
+        return immutableDescendants;
+    }
+
+    /**
+     * The category and all of its descendants, or an empty list for an unknown category.
+     */
+    public List<Long> getDescendantIds(Long categoryId) {
+        Node node = snapshot().get(categoryId);
+        return node != null ? node.getDescendantIds() : List.of();
+    }
+
+    public boolean exists(Long categoryId) {
+        return snapshot().get(categoryId) != null;
+    }
+
+    public boolean hasChildren(Long categoryId) {
+        Node node = snapshot().get(categoryId);
+        return node != null && !node.getChildIds().isEmpty();
+    }
+
+    /**
+     * True when ancestorId is the category itself or one of its ancestors.
+     */
+    public boolean isSelfOrAncestor(Long ancestorId, Long categoryId) {
+        if (Objects.equals(ancestorId, categoryId)) {
+            return true;
+        }
+        Node node = snapshot().get(categoryId);
+        return node != null && node.getAncestorIds().contains(ancestorId);
+    }
+
+    public List<CategoryResponse> getRootTrees() {
+        Snapshot snapshot = snapshot();
+        return snapshot.getRootIds().stream()
+                .map(rootId -> toResponse(snapshot, snapshot.get(rootId), 0))
+                .collect(Collectors.toList());
+    }
+
+    public Optional<CategoryResponse> getTree(Long categoryId) {
+        Snapshot snapshot = snapshot();
+        return Optional.ofNullable(snapshot.get(categoryId))
+                .map(node -> toResponse(snapshot, node, 0));
+    }
+
+    private CategoryResponse toResponse(Snapshot snapshot, Node node, int level) {
+        Node parent = snapshot.get(node.getParentId());
+        List<CategoryResponse> children = node.getChildIds().stream()
+                .map(childId -> toResponse(snapshot, snapshot.get(childId), level + 1))
+                .collect(Collectors.toList());
+
+        return CategoryResponse.builder()
+                .categoryId(node.getCategoryId())
+                .name(node.getName())
+                .description(node.getDescription())
+                .createdAt(node.getCreatedAt())
+                .parent(parent != null
+                        ? CategoryResponse.CategoryParentResponse.builder()
+                                .categoryId(parent.getCategoryId())
+                                .name(parent.getName())
+                                .build()
+                        : null)
+                .children(children)
+                .hasChildren(!children.isEmpty())
+                .childrenCount(children.size())
+                .level(level)
+                .build();
+    }
+}
@@ -0,0 +1,220 @@
+package se.vestige_be.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.event.OrderChangedEvent;
+import se.vestige_be.pojo.Brand;
+import se.vestige_be.pojo.Category;
+import se.vestige_be.pojo.DailyStats;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.pojo.enums.StatDimension;
+import se.vestige_be.repository.BrandRepository;
+import se.vestige_be.repository.CategoryRepository;
+import se.vestige_be.repository.DailyStatCountRepository;
+import se.vestige_be.repository.DailyStatsRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Daily rollups behind the admin dashboard, so trends and totals are read from one row per day
+ * instead of loading orders into memory. A changed order marks its creation day dirty and the day
+ * is recomputed a few seconds later with set-based statements. Today and yesterday are also
+ * recomputed periodically, which picks up new users and writes from other instances, and a
+ * backfill fills in days that have no row yet.
+ */
+@Service
+@Slf4j
+public class DailyStatsService {
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final DailyStatCountRepository dailyStatCountRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> dirtyOrderIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * All-time totals summed over the daily rows.
+     */
+    public record Totals(long orders, BigDecimal deliveredRevenue, BigDecimal deliveredFees) {
+    }
+
+    public DailyStatsService(DailyStatsRepository dailyStatsRepository,
+                             DailyStatCountRepository dailyStatCountRepository,
+                             CategoryRepository categoryRepository,
+                             BrandRepository brandRepository,
+                             @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.dailyStatCountRepository = dailyStatCountRepository;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+        // Each day commits on its own, whatever the caller runs in
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        dirtyOrderIds.add(event.getOrderId());
+    }
+
+    /**
+     * Recomputes the creation days of the orders changed since the last run.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void refreshDirtyDays() {
+        if (dirtyOrderIds.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = new ArrayList<>(dirtyOrderIds);
+        dirtyOrderIds.removeAll(orderIds);
+
+        Set<LocalDate> days = new TreeSet<>();
+        try {
+            for (int from = 0; from < orderIds.size(); from += LOOKUP_CHUNK_SIZE) {
+                days.addAll(dailyStatsRepository.findOrderCreationDays(
+                        orderIds.subList(from, Math.min(orderIds.size(), from + LOOKUP_CHUNK_SIZE))));
+            }
+        } catch (Exception e) {
+            // Retried on the next run
+            dirtyOrderIds.addAll(orderIds);
+            log.error("Failed to resolve days of changed orders: {}", e.getMessage(), e);
+            return;
+        }
+        days.forEach(this::recompute);
+    }
+
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 60 * 1000)
+    public void refreshRecentDays() {
+        LocalDate today = LocalDate.now();
+        recompute(today.minusDays(1));
+        recompute(today);
+    }
+
+    /**
+     * Computes the days between the first order or registration and today that have no row,
+     * a batch per run.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 2 * 60 * 1000)
+    public void backfill() {
+        Optional<LocalDate> firstDay = dailyStatsRepository.findFirstActivityDay();
+        if (firstDay.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Set<LocalDate> present = new HashSet<>(dailyStatsRepository.findStatDatesBetween(firstDay.get(), today));
+
+        int computed = 0;
+        for (LocalDate day = firstDay.get(); !day.isAfter(today) && computed < BACKFILL_BATCH_SIZE; day = day.plusDays(1)) {
+            if (!present.contains(day)) {
+                recompute(day);
+                computed++;
+            }
+        }
+        if (computed > 0) {
+            log.info("Backfilled daily statistics for {} days", computed);
+        }
+    }
+
+    public Totals getTotals() {
+        Object[] row = dailyStatsRepository.sumTotals().getFirst();
+        return new Totals(((Number) row[0]).longValue(), toBigDecimal(row[1]), toBigDecimal(row[2]));
+    }
+
+    /**
+     * All-time order count per current status, every status present.
+     */
+    public Map<OrderStatus, Long> getOrderStatusCounts() {
+        Map<OrderStatus, Long> counts = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : dailyStatCountRepository.sumByKey(StatDimension.ORDER_STATUS)) {
+            try {
+                counts.put(OrderStatus.valueOf((String) row[0]), ((Number) row[1]).longValue());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unknown order status {} in daily statistics", row[0]);
+            }
+        }
+        return counts;
+    }
+
+    public List<DailyStats> getDays(LocalDate from, LocalDate to) {
+        return dailyStatsRepository.findByStatDateBetweenOrderByStatDate(from, to);
+    }
+
+    /**
+     * Categories with the most delivered items among orders created in the days.
+     */
+    public List<Map<String, Object>> getTopCategories(int limit, LocalDate from, LocalDate to) {
+        return top(StatDimension.CATEGORY, limit, from, to, "categoryId",
+                ids -> {
+                    Map<Long, String> names = new HashMap<>();
+                    for (Category category : categoryRepository.findAllById(ids)) {
+                        names.put(category.getCategoryId(), category.getName());
+                    }
+                    return names;
+                });
+    }
+
+    /**
+     * Brands with the most delivered items among orders created in the days.
+     */
+    public List<Map<String, Object>> getTopBrands(int limit, LocalDate from, LocalDate to) {
+        return top(StatDimension.BRAND, limit, from, to, "brandId",
+                ids -> {
+                    Map<Long, String> names = new HashMap<>();
+                    for (Brand brand : brandRepository.findAllById(ids)) {
+                        names.put(brand.getBrandId(), brand.getName());
+                    }
+                    return names;
+                });
+    }
+
+    private List<Map<String, Object>> top(StatDimension dimension, int limit, LocalDate from, LocalDate to, String idKey,
+                                          Function<List<Long>, Map<Long, String>> namesById) {
+        List<Object[]> rows = dailyStatCountRepository.sumByKeyBetween(dimension, from, to, PageRequest.of(0, limit));
+        List<Long> ids = rows.stream().map(row -> Long.valueOf((String) row[0])).toList();
+        Map<Long, String> names = ids.isEmpty() ? Map.of() : namesById.apply(ids);
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Long id = ids.get(i);
+            if (!names.containsKey(id)) {
+                // Deleted since
+                continue;
+            }
+            Map<String, Object> entry = new HashMap<>();
+            entry.put(idKey, id);
+            entry.put("name", names.get(id));
+            entry.put("count", ((Number) rows.get(i)[1]).longValue());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private void recompute(LocalDate day) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> dailyStatsRepository.recomputeDay(day));
+        } catch (Exception e) {
+            log.error("Failed to recompute daily statistics for {}: {}", day, e.getMessage(), e);
+        }
+    }
+}
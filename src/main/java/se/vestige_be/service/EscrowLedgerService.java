@@ -0,0 +1,268 @@
+package se.vestige_be.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.pojo.BackfillProgress;
+import se.vestige_be.pojo.UserMonthlyBalance;
+import se.vestige_be.pojo.enums.EscrowStatus;
+import se.vestige_be.pojo.enums.LedgerAccount;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.repository.BackfillProgressRepository;
+import se.vestige_be.repository.BalanceLedgerRepository;
+import se.vestige_be.repository.OrderItemRepository;
+import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.PendingOrderChangeRepository;
+import se.vestige_be.repository.UserMonthlyBalanceRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Posts order item escrow and delivery changes to the append-only balance ledger and reads balances
+ * from the per-user monthly totals it maintains. Posting reconciles: for each item of a changed order,
+ * what the item should contribute to each account is compared with what its entries already sum to,
+ * and only the difference is appended. Reposting an order is therefore harmless. Changed orders are
+ * queued in pending_order_changes by the transaction that changes them, so none is lost to a restart,
+ * and a one-time sweep over all orders fills in history. Balances are read from order items until that
+ * sweep has finished.
+ */
+@Service
+@Slf4j
+public class EscrowLedgerService {
+
+    private static final int POST_BATCH_SIZE = 200;
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final String SWEEP_NAME = "balance-ledger";
+
+    private final BalanceLedgerRepository ledgerRepository;
+    private final UserMonthlyBalanceRepository balanceRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final BackfillProgressRepository progressRepository;
+    private final PendingOrderChangeRepository pendingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Only ever goes from false to true
+    private volatile boolean reconciled;
+
+    public EscrowLedgerService(BalanceLedgerRepository ledgerRepository,
+                               UserMonthlyBalanceRepository balanceRepository,
+                               OrderRepository orderRepository,
+                               OrderItemRepository orderItemRepository,
+                               BackfillProgressRepository progressRepository,
+                               PendingOrderChangeRepository pendingRepository,
+                               @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate) {
+        this.ledgerRepository = ledgerRepository;
+        this.balanceRepository = balanceRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.progressRepository = progressRepository;
+        this.pendingRepository = pendingRepository;
+        // Each order posts in its own transaction, whatever the caller runs in
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Posts the next batch of queued orders. An order that fails to post stays queued behind the others.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void postChangedOrders() {
+        List<Long> orderIds = pendingRepository.findOrderIds(
+                OrderChangeConsumer.BALANCE_LEDGER, PageRequest.of(0, POST_BATCH_SIZE));
+        for (Long orderId : orderIds) {
+            if (!post(orderId)) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> pendingRepository.postpone(
+                            OrderChangeConsumer.BALANCE_LEDGER, orderId, LocalDateTime.now()));
+                } catch (Exception e) {
+                    log.error("Failed to postpone ledger posting of order {}: {}", orderId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconciles every order once, a batch per run, from a watermark kept in backfill_progress so a
+     * restart or another instance carries on where the last run stopped. A batch with an order that
+     * failed to post only moves the watermark up to the order before it, so history is never skipped.
+     * Orders changed while or after it runs are posted from the queue, so it never has to run again.
+     */
+    @Scheduled(fixedDelay = 10 * 1000, initialDelay = 60 * 1000)
+    public void sweep() {
+        if (isReconciled()) {
+            return;
+        }
+
+        long afterId = progressRepository.findById(SWEEP_NAME).map(BackfillProgress::getLastId).orElse(0L);
+        List<Long> orderIds = orderRepository.findIdsAfter(afterId, PageRequest.of(0, SWEEP_BATCH_SIZE));
+        if (orderIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    progressRepository.complete(SWEEP_NAME, afterId, LocalDateTime.now()));
+            reconciled = true;
+            log.info("Balance ledger reconciled with every order");
+            return;
+        }
+
+        long lastId = afterId;
+        for (Long orderId : orderIds) {
+            if (!post(orderId)) {
+                break;
+            }
+            lastId = orderId;
+        }
+        if (lastId > afterId) {
+            long reachedId = lastId;
+            transactionTemplate.executeWithoutResult(status ->
+                    progressRepository.advance(SWEEP_NAME, reachedId, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Whether the sweep has posted every order's history. Until then ledger balances can be short and
+     * readers get sums computed from order items instead.
+     */
+    public boolean isReconciled() {
+        if (!reconciled) {
+            reconciled = progressRepository.findById(SWEEP_NAME)
+                    .map(progress -> progress.getCompletedAt() != null)
+                    .orElse(false);
+        }
+        return reconciled;
+    }
+
+    /**
+     * Current balance of the account, zero when nothing was ever posted.
+     */
+    public BigDecimal getBalance(Long userId, LedgerAccount account) {
+        if (!isReconciled()) {
+            return sumFromOrderItems(userId, account);
+        }
+        return balanceRepository.findFirstByUserIdAndAccountAndMonthLessThanEqualOrderByMonthDesc(
+                        userId, account, YearMonth.now().atDay(1))
+                .map(UserMonthlyBalance::getRunningAmount)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Movements of the account booked in the given month. Until the ledger is reconciled, SELLER_REVENUE
+     * and BUYER_SPENT are summed from the items delivered in that month; the escrow accounts are booked
+     * in the month they were posted, which order items do not record, so for those the entries posted so
+     * far are returned, which can be short.
+     */
+    public BigDecimal getMonthAmount(Long userId, LedgerAccount account, YearMonth month) {
+        if (!isReconciled()) {
+            return sumDeliveredFromOrderItems(userId, account, month);
+        }
+        return postedMonthAmount(userId, account, month);
+    }
+
+    private BigDecimal postedMonthAmount(Long userId, LedgerAccount account, YearMonth month) {
+        return balanceRepository.findByUserIdAndAccountAndMonth(userId, account, month.atDay(1))
+                .map(UserMonthlyBalance::getMonthAmount)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private BigDecimal sumFromOrderItems(Long userId, LedgerAccount account) {
+        return switch (account) {
+            case SELLER_HOLDING -> orderItemRepository.sumSellerNetByEscrowStatuses(userId, List.of(EscrowStatus.HOLDING));
+            case SELLER_RELEASED -> orderItemRepository.sumSellerNetByEscrowStatuses(
+                    userId, List.of(EscrowStatus.RELEASED, EscrowStatus.TRANSFERRED));
+            case SELLER_REVENUE -> orderItemRepository.sumSellerNetByStatus(userId, OrderItemStatus.DELIVERED);
+            case BUYER_HOLDING -> orderItemRepository.sumBuyerPriceByEscrowStatuses(userId, List.of(EscrowStatus.HOLDING));
+            case BUYER_SPENT -> orderItemRepository.sumBuyerPriceByStatus(userId, OrderItemStatus.DELIVERED);
+        };
+    }
+
+    private BigDecimal sumDeliveredFromOrderItems(Long userId, LedgerAccount account, YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        return switch (account) {
+            case SELLER_REVENUE -> orderItemRepository.sumSellerNetByStatusDeliveredBetween(
+                    userId, OrderItemStatus.DELIVERED, from, to);
+            case BUYER_SPENT -> orderItemRepository.sumBuyerPriceByStatusDeliveredBetween(
+                    userId, OrderItemStatus.DELIVERED, from, to);
+            case SELLER_HOLDING, SELLER_RELEASED, BUYER_HOLDING -> postedMonthAmount(userId, account, month);
+        };
+    }
+
+    private boolean post(Long orderId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Serializes posting of the same order across threads and instances, and with the
+                // transaction that queues it, so taking it off the queue before reading cannot lose a change
+                boolean exists = orderRepository.lockById(orderId).isPresent();
+                pendingRepository.deleteByConsumerAndOrderIds(OrderChangeConsumer.BALANCE_LEDGER, List.of(orderId));
+                if (!exists) {
+                    return;
+                }
+                reconcile(orderItemRepository.findLedgerRowsByOrderId(orderId));
+            });
+            return true;
+        } catch (Exception e) {
+            // Still queued, or picked up again by the sweep
+            log.error("Failed to post order {} to the balance ledger: {}", orderId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void reconcile(List<Object[]> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<LedgerAccount, BigDecimal>> posted = new HashMap<>();
+        List<Long> itemIds = items.stream().map(row -> (Long) row[0]).toList();
+        for (Object[] row : ledgerRepository.sumByOrderItemIds(itemIds)) {
+            posted.computeIfAbsent((Long) row[0], id -> new EnumMap<>(LedgerAccount.class))
+                    .put((LedgerAccount) row[1], (BigDecimal) row[2]);
+        }
+
+        // Buyer and sellers locked in id order so concurrent postings cannot deadlock
+        Set<Long> userIds = new TreeSet<>();
+        items.forEach(row -> {
+            userIds.add((Long) row[1]);
+            userIds.add((Long) row[2]);
+        });
+        ledgerRepository.lockUsers(userIds);
+
+        LocalDate currentMonth = YearMonth.now().atDay(1);
+        for (Object[] row : items) {
+            Long itemId = (Long) row[0];
+            Long sellerId = (Long) row[1];
+            Long buyerId = (Long) row[2];
+            BigDecimal price = (BigDecimal) row[3];
+            BigDecimal net = price.subtract((BigDecimal) row[4]);
+            OrderItemStatus status = (OrderItemStatus) row[5];
+            EscrowStatus escrowStatus = (EscrowStatus) row[6];
+            LocalDateTime deliveredAt = (LocalDateTime) row[7];
+            LocalDate deliveryMonth = deliveredAt != null ? YearMonth.from(deliveredAt).atDay(1) : currentMonth;
+
+            boolean holding = escrowStatus == EscrowStatus.HOLDING;
+            boolean released = escrowStatus == EscrowStatus.RELEASED || escrowStatus == EscrowStatus.TRANSFERRED;
+            boolean delivered = status == OrderItemStatus.DELIVERED;
+
+            Map<LedgerAccount, BigDecimal> itemPosted = posted.getOrDefault(itemId, Map.of());
+            post(sellerId, itemId, LedgerAccount.SELLER_HOLDING, currentMonth, holding ? net : BigDecimal.ZERO, itemPosted);
+            post(sellerId, itemId, LedgerAccount.SELLER_RELEASED, currentMonth, released ? net : BigDecimal.ZERO, itemPosted);
+            post(sellerId, itemId, LedgerAccount.SELLER_REVENUE, deliveryMonth, delivered ? net : BigDecimal.ZERO, itemPosted);
+            post(buyerId, itemId, LedgerAccount.BUYER_HOLDING, currentMonth, holding ? price : BigDecimal.ZERO, itemPosted);
+            post(buyerId, itemId, LedgerAccount.BUYER_SPENT, deliveryMonth, delivered ? price : BigDecimal.ZERO, itemPosted);
+        }
+    }
+
+    private void post(Long userId, Long itemId, LedgerAccount account, LocalDate month, BigDecimal expected,
+                      Map<LedgerAccount, BigDecimal> itemPosted) {
+        BigDecimal delta = expected.subtract(itemPosted.getOrDefault(account, BigDecimal.ZERO));
+        if (delta.signum() != 0) {
+            ledgerRepository.post(userId, itemId, account, month, delta);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package se.vestige_be.service;
 
+import jakarta.persistence.EntityManager;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import se.vestige_be.pojo.EscrowRelease;
@@ -15,7 +17,11 @@ import se.vestige_be.repository.UserRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -27,34 +33,57 @@ public class EscrowService {
     private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
     private final EscrowCalculationService escrowCalculationService;
+    private final EntityManager entityManager;
 
+    /**
+     * Releases the escrow of every item in one go: one multi-row insert of the release records and one
+     * counter update per distinct number of items a seller had released.
+     */
     @Transactional
-    public void releaseEscrowFunds(OrderItem orderItem, String reason) {
-        log.info("Releasing escrow funds for order item: {}, reason: {}", orderItem.getOrderItemId(), reason);
-
-        // Calculate seller amount (minus platform fee)
-        BigDecimal sellerAmount = orderItem.getPrice().subtract(orderItem.getPlatformFee());
-
-        // Update escrow status
-        orderItem.setEscrowStatus(EscrowStatus.RELEASED);
-
-        // Create escrow release record
-        EscrowRelease escrowRelease = EscrowRelease.builder()
-                .transaction(getTransactionForOrderItem(orderItem))
-                .amountReleased(sellerAmount)
-                .status("COMPLETED")
-                .releaseReason(reason)
-                .completedAt(LocalDateTime.now())
-                .build();
-
-        escrowReleaseRepository.save(escrowRelease);
-
-        // Update seller's successful transaction count
-        User seller = orderItem.getSeller();
-        seller.setSuccessfulTransactions(seller.getSuccessfulTransactions() + 1);
-        userRepository.save(seller);
-
-        log.info("Escrow funds released: {} VND to seller: {}", sellerAmount, seller.getUsername());
+    public void releaseEscrowFunds(Collection<OrderItem> orderItems, String reason) {
+        if (orderItems.isEmpty()) {
+            return;
+        }
+        log.info("Releasing escrow funds for {} order items, reason: {}", orderItems.size(), reason);
+
+        List<EscrowRelease> releases = new ArrayList<>(orderItems.size());
+        Map<Long, Integer> releasedBySeller = new HashMap<>();
+        for (OrderItem orderItem : orderItems) {
+            // Calculate seller amount (minus platform fee)
+            BigDecimal sellerAmount = orderItem.getPrice().subtract(orderItem.getPlatformFee());
+
+            // Update escrow status
+            orderItem.setEscrowStatus(EscrowStatus.RELEASED);
+
+            releases.add(EscrowRelease.builder()
+                    .transaction(getTransactionForOrderItem(orderItem))
+                    .amountReleased(sellerAmount)
+                    .status("COMPLETED")
+                    .releaseReason(reason)
+                    .completedAt(LocalDateTime.now())
+                    .build());
+            releasedBySeller.merge(orderItem.getSeller().getUserId(), 1, Integer::sum);
+
+            log.info("Escrow funds released: {} VND to seller: {}", sellerAmount, orderItem.getSeller().getUserId());
+        }
+        escrowReleaseRepository.insertAll(releases);
+
+        // Update sellers' successful transaction counts, grouped by how much each one goes up
+        Map<Integer, List<Long>> sellersByCount = new HashMap<>();
+        releasedBySeller.forEach((sellerId, count) ->
+                sellersByCount.computeIfAbsent(count, c -> new ArrayList<>()).add(sellerId));
+        sellersByCount.forEach((count, sellerIds) -> userRepository.incrementSuccessfulTransactions(sellerIds, count));
+
+        // The update bypasses the persistence context: reload the sellers already loaded in it, so the rest of
+        // the transaction neither reads nor writes back their old counts
+        Map<Long, User> loadedSellers = new HashMap<>();
+        for (OrderItem orderItem : orderItems) {
+            User seller = orderItem.getSeller();
+            if (Hibernate.isInitialized(seller) && entityManager.contains(seller)) {
+                loadedSellers.putIfAbsent(seller.getUserId(), seller);
+            }
+        }
+        loadedSellers.values().forEach(entityManager::refresh);
     }
 
     @Transactional
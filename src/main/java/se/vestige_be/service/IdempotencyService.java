@@ -0,0 +1,245 @@
+package se.vestige_be.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.configuration.WriteCommitTracker;
+import se.vestige_be.exception.BusinessLogicException;
+import se.vestige_be.exception.ConflictException;
+import se.vestige_be.pojo.IdempotencyRecord;
+import se.vestige_be.repository.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Makes non-repeatable requests (order creation, payment intent creation) safe to retry with an
+ * Idempotency-Key header. The first request with a key claims it in idempotency_keys and its
+ * response is stored there; a replay with the same key and the same body gets the stored response
+ * without running anything. A request that fails frees its key only if it committed nothing;
+ * otherwise (an order committed before a later step failed) the failure is stored and replayed, so a
+ * retry cannot repeat the committed part. Outcomes are also kept in memory, so most replays do not
+ * touch the database. The table is what makes it hold across instances and restarts.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String UNSTORED_RESPONSE_MESSAGE =
+            "The request was processed but its response could not be stored";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final WriteCommitTracker writeCommitTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final Duration ttl;
+    private final Duration inProgressLease;
+
+    private final Map<String, Completed> completed;
+
+    // Exactly one of responseBody and errorMessage is set
+    private record Completed(String requestHash, String responseBody, String errorMessage, LocalDateTime expiresAt) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              WriteCommitTracker writeCommitTracker,
+                              @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.in-progress-lease-seconds:120}") long inProgressLeaseSeconds,
+                              @Value("${app.idempotency.max-cached-entries:10000}") int maxCachedEntries) {
+        this.recordRepository = recordRepository;
+        this.writeCommitTracker = writeCommitTracker;
+        // Claims and results must be visible to other requests right away, whatever the caller runs in
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.writer = this.objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inProgressLease = Duration.ofSeconds(inProgressLeaseSeconds);
+        this.completed = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > maxCachedEntries;
+            }
+        };
+    }
+
+    /**
+     * Runs the action once per key. Without a key the action simply runs.
+     *
+     * @param operation    name of the endpoint, keys are scoped to it and to the user
+     * @param request      request body; a replay with a different body is rejected
+     * @param responseType type the stored response is read back as
+     */
+    public <T> T execute(String operation, Long userId, String idempotencyKey, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessLogicException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String recordKey = operation + ":" + userId + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        Completed cached = getCached(recordKey);
+        if (cached != null) {
+            return replay(recordKey, cached, requestHash, responseType);
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                recordRepository.claim(recordKey, requestHash, claimToken, now, now.plus(inProgressLease)));
+        if (claimed == null || claimed == 0) {
+            IdempotencyRecord existing = transactionTemplate.execute(status ->
+                    recordRepository.findById(recordKey).orElse(null));
+            if (existing == null || (existing.getResponseBody() == null && existing.getErrorMessage() == null)) {
+                throw new ConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            Completed stored = new Completed(existing.getRequestHash(), existing.getResponseBody(),
+                    existing.getErrorMessage(), existing.getExpiresAt());
+            cache(recordKey, stored);
+            return replay(recordKey, stored, requestHash, responseType);
+        }
+
+        long commitsBefore = writeCommitTracker.currentThreadCommits();
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            if (writeCommitTracker.currentThreadCommits() == commitsBefore) {
+                // Nothing was committed, so the key may be used again
+                release(recordKey, claimToken);
+            } else {
+                // Part of the work is committed; running the action again would repeat it
+                store(recordKey, claimToken, new Completed(requestHash, null,
+                        e.getMessage() != null ? e.getMessage() : "Request failed", LocalDateTime.now().plus(ttl)));
+            }
+            throw e;
+        }
+
+        String body;
+        try {
+            body = serialize(response);
+        } catch (RuntimeException e) {
+            // The work is done; retries get an error instead of a conflict or a second run
+            log.error("Cannot store idempotent response for {}: {}", recordKey, e.getMessage(), e);
+            store(recordKey, claimToken, new Completed(requestHash, null, UNSTORED_RESPONSE_MESSAGE,
+                    LocalDateTime.now().plus(ttl)));
+            return response;
+        }
+        store(recordKey, claimToken, new Completed(requestHash, body, null, LocalDateTime.now().plus(ttl)));
+        return response;
+    }
+
+    /**
+     * Drops expired keys from memory and from the table.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (completed) {
+            completed.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+        }
+        Integer deleted = transactionTemplate.execute(status -> recordRepository.deleteExpired(now));
+        log.debug("Purged {} expired idempotency keys", deleted);
+    }
+
+    private <T> T replay(String recordKey, Completed stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new BusinessLogicException("Idempotency-Key was already used with a different request");
+        }
+        if (stored.errorMessage() != null) {
+            log.info("Replaying stored failure for idempotent request {}", recordKey);
+            throw new BusinessLogicException(stored.errorMessage());
+        }
+        log.info("Replaying stored response for idempotent request {}", recordKey);
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for " + recordKey + " cannot be read", e);
+        }
+    }
+
+    private Completed getCached(String recordKey) {
+        synchronized (completed) {
+            Completed entry = completed.get(recordKey);
+            if (entry != null && entry.expiresAt().isBefore(LocalDateTime.now())) {
+                completed.remove(recordKey);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void cache(String recordKey, Completed entry) {
+        synchronized (completed) {
+            completed.put(recordKey, entry);
+        }
+    }
+
+    /**
+     * Stores the outcome under the key if this request still holds the claim.
+     */
+    private void store(String recordKey, String claimToken, Completed outcome) {
+        Integer updated;
+        try {
+            updated = transactionTemplate.execute(status -> outcome.errorMessage() == null
+                    ? recordRepository.complete(recordKey, claimToken, outcome.responseBody(), outcome.expiresAt())
+                    : recordRepository.fail(recordKey, claimToken, outcome.errorMessage(), outcome.expiresAt()));
+        } catch (Exception e) {
+            // The claim stays until its lease runs out; this instance still replays from memory
+            log.error("Failed to store idempotent outcome for {}: {}", recordKey, e.getMessage(), e);
+            cache(recordKey, outcome);
+            return;
+        }
+        if (updated == null || updated == 0) {
+            log.warn("Idempotency key {} was claimed by another request after its lease ran out; outcome not stored",
+                    recordKey);
+            return;
+        }
+        cache(recordKey, outcome);
+    }
+
+    private void release(String recordKey, String claimToken) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> recordRepository.release(recordKey, claimToken));
+        } catch (Exception e) {
+            log.error("Failed to release idempotency key {}: {}", recordKey, e.getMessage());
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            return DigestUtils.md5DigestAsHex(writer.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return writer.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response", e);
+        }
+    }
+}
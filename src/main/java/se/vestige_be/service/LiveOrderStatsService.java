@@ -0,0 +1,189 @@
+package se.vestige_be.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.event.OrderItemStatusChangedEvent;
+import se.vestige_be.event.OrderStatusChangedEvent;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.repository.OrderItemRepository;
+import se.vestige_be.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live platform order counters: orders per status, orders placed today, and revenue and platform fees
+ * of delivered orders, kept in striped adders (amounts in minor units) and moved by every committed
+ * status transition. Seeded from a GROUP BY at startup and re-seeded periodically, which also picks up
+ * transitions committed through other instances. Published as Micrometer gauges.
+ */
+@Service
+@Slf4j
+public class LiveOrderStatsService {
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    private volatile Counters counters = new Counters();
+    private final AtomicReference<DayCount> todayOrders = new AtomicReference<>(new DayCount(LocalDate.now(), new LongAdder()));
+
+    /**
+     * Point-in-time read of the counters.
+     */
+    public record Snapshot(long totalOrders, long todayOrders, BigDecimal deliveredRevenue,
+                           BigDecimal platformFeesCollected, Map<OrderStatus, Long> statusCounts) {
+    }
+
+    private record DayCount(LocalDate day, LongAdder orders) {
+    }
+
+    private static final class Counters {
+        private final Map<OrderStatus, LongAdder> statusCounts = new EnumMap<>(OrderStatus.class);
+        private final LongAdder deliveredRevenue = new LongAdder();
+        private final LongAdder deliveredFees = new LongAdder();
+
+        private Counters() {
+            for (OrderStatus status : OrderStatus.values()) {
+                statusCounts.put(status, new LongAdder());
+            }
+        }
+    }
+
+    public LiveOrderStatsService(OrderRepository orderRepository,
+                                 OrderItemRepository orderItemRepository,
+                                 MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+
+        for (OrderStatus status : OrderStatus.values()) {
+            Gauge.builder("orders.status", this, stats -> stats.counters.statusCounts.get(status).sum())
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("orders.today", this, LiveOrderStatsService::getTodayOrders)
+                .register(meterRegistry);
+        Gauge.builder("orders.delivered.revenue", this, stats -> toAmount(stats.counters.deliveredRevenue.sum()).doubleValue())
+                .register(meterRegistry);
+        Gauge.builder("orders.delivered.platform.fees", this, stats -> toAmount(stats.counters.deliveredFees.sum()).doubleValue())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reseed();
+    }
+
+    /**
+     * Replaces the counters with fresh totals from the database.
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public synchronized void reseed() {
+        try {
+            Counters seeded = new Counters();
+            for (Object[] row : orderRepository.countAndSumTotalAmountByStatus()) {
+                OrderStatus status = (OrderStatus) row[0];
+                seeded.statusCounts.get(status).add(((Number) row[1]).longValue());
+                if (status == OrderStatus.DELIVERED) {
+                    seeded.deliveredRevenue.add(toMinorUnits(toBigDecimal(row[2])));
+                }
+            }
+            seeded.deliveredFees.add(toMinorUnits(orderItemRepository.sumPlatformFeeByStatus(OrderItemStatus.DELIVERED)));
+
+            LocalDate today = LocalDate.now();
+            LongAdder placedToday = new LongAdder();
+            placedToday.add(orderRepository.countByCreatedAtBetween(today.atStartOfDay(), today.plusDays(1).atStartOfDay()));
+
+            counters = seeded;
+            todayOrders.set(new DayCount(today, placedToday));
+        } catch (Exception e) {
+            // Keeps counting from the previous seed
+            log.error("Failed to seed live order counters: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Counters current = counters;
+        if (event.getFrom() != null) {
+            current.statusCounts.get(event.getFrom()).decrement();
+        } else {
+            today().orders().increment();
+        }
+        if (event.getTo() != null) {
+            current.statusCounts.get(event.getTo()).increment();
+        }
+        if (event.getFrom() == OrderStatus.DELIVERED) {
+            current.deliveredRevenue.add(-toMinorUnits(event.getTotalAmount()));
+        }
+        if (event.getTo() == OrderStatus.DELIVERED) {
+            current.deliveredRevenue.add(toMinorUnits(event.getTotalAmount()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderItemStatusChanged(OrderItemStatusChangedEvent event) {
+        Counters current = counters;
+        if (event.getFrom() == OrderItemStatus.DELIVERED) {
+            current.deliveredFees.add(-toMinorUnits(event.getPlatformFee()));
+        }
+        if (event.getTo() == OrderItemStatus.DELIVERED) {
+            current.deliveredFees.add(toMinorUnits(event.getPlatformFee()));
+        }
+    }
+
+    public Snapshot getSnapshot() {
+        Counters current = counters;
+        Map<OrderStatus, Long> statusCounts = new LinkedHashMap<>();
+        long totalOrders = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            long count = current.statusCounts.get(status).sum();
+            statusCounts.put(status, count);
+            totalOrders += count;
+        }
+        return new Snapshot(totalOrders, getTodayOrders(), toAmount(current.deliveredRevenue.sum()),
+                toAmount(current.deliveredFees.sum()), statusCounts);
+    }
+
+    private long getTodayOrders() {
+        DayCount count = todayOrders.get();
+        return count.day().equals(LocalDate.now()) ? count.orders().sum() : 0;
+    }
+
+    private DayCount today() {
+        LocalDate today = LocalDate.now();
+        DayCount count = todayOrders.get();
+        while (!count.day().equals(today)) {
+            // First order after midnight starts a new day
+            todayOrders.compareAndSet(count, new DayCount(today, new LongAdder()));
+            count = todayOrders.get();
+        }
+        return count;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+}
@@ -5,8 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.dto.request.BulkConfirmDeliveryRequest;
 import se.vestige_be.dto.request.ConfirmPickupRequest;
+import se.vestige_be.dto.response.BulkLogisticsResponse;
 import se.vestige_be.dto.response.OrderDetailResponse;
 import se.vestige_be.dto.response.PickupItemResponse;
 import se.vestige_be.dto.response.UserAddressResponse;
@@ -23,8 +27,16 @@ import se.vestige_be.repository.DeliveryEvidenceRepository;
 import se.vestige_be.repository.TransactionRepository;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +44,9 @@ import java.util.ArrayList;
 @Slf4j
 public class LogisticsService {
 
+    private static final int BULK_CHUNK_SIZE = 100;
+    private static final String DELIVERY_RELEASE_REASON = "Item delivered by Vestige Shipping with photo proof.";
+
     private final OrderItemRepository orderItemRepository;
     private final OrderRepository orderRepository;
     private final TransactionRepository transactionRepository;
@@ -41,6 +56,7 @@ public class LogisticsService {
     private final OrderService orderService;
     private final StatusHistoryService statusHistoryService;
     private final UserAddressService userAddressService;
+    private final TransactionTemplate transactionTemplate;
 
     public List<PickupItemResponse> getItemsByStatus(OrderItemStatus status) {
         List<OrderItem> items = orderItemRepository.findByStatusWithDetails(status);
@@ -55,34 +71,8 @@ public class LogisticsService {
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found for order item: " + request.getOrderItemId()));
 
         OrderItem orderItem = transaction.getOrderItem();
-        if (orderItem.getStatus() != OrderItemStatus.AWAITING_PICKUP) {
-            throw new BusinessLogicException("Item must be in AWAITING_PICKUP status to confirm pickup. Current status: " + orderItem.getStatus());
-        }
+        applyPickup(orderItem, transaction, request.getPhotoUrls(), getCurrentUsername());
 
-        orderItem.setStatus(OrderItemStatus.IN_WAREHOUSE);
-
-        // Record status change in history
-        statusHistoryService.recordStatusChange(
-            orderItem, 
-            OrderItemStatus.IN_WAREHOUSE, 
-            getCurrentUsername(), 
-            "Item picked up from seller. " + request.getPhotoUrls().size() + " evidence photos recorded."
-        );
-
-        // Generate internal tracking number
-        String trackingNumber = "VSTG-" + orderItem.getOrderItemId();
-        transaction.setTrackingNumber(trackingNumber);
-        
-        // Save evidence photos
-        for (String imageUrl : request.getPhotoUrls()) {
-            PickupEvidence evidence = PickupEvidence.builder()
-                    .transaction(transaction)
-                    .imageUrl(imageUrl)
-                    .uploadedAt(LocalDateTime.now())
-                    .build();
-            pickupEvidenceRepository.save(evidence);
-        }
-        
         // Save transaction and order item
         transactionRepository.save(transaction);
         orderItemRepository.save(orderItem);
@@ -93,7 +83,7 @@ public class LogisticsService {
         orderRepository.save(order);
 
         log.info("Pickup confirmed for order item {}. Tracking number: {}. Evidence photos saved: {}", 
-                request.getOrderItemId(), trackingNumber, request.getPhotoUrls().size());
+                request.getOrderItemId(), transaction.getTrackingNumber(), request.getPhotoUrls().size());
         return convertToDetailResponse(order);
     }
 
@@ -104,24 +94,7 @@ public class LogisticsService {
         OrderItem orderItem = orderItemRepository.findById(itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order item not found: " + itemId));
 
-        // Validate current status
-        if (orderItem.getStatus() != OrderItemStatus.IN_WAREHOUSE) {
-            throw new BusinessLogicException("Item must be in IN_WAREHOUSE status to dispatch. Current status: " + orderItem.getStatus());
-        }
-
-        // Change status to OUT_FOR_DELIVERY
-        orderItem.setStatus(OrderItemStatus.OUT_FOR_DELIVERY);
-
-        // Record status change in history
-        Transaction transaction = getTransactionForOrderItem(orderItem.getOrderItemId());
-        String trackingInfo = transaction.getTrackingNumber() != null ? 
-            "Tracking: " + transaction.getTrackingNumber() : "No tracking number assigned";
-        statusHistoryService.recordStatusChange(
-            orderItem, 
-            OrderItemStatus.OUT_FOR_DELIVERY, 
-            getCurrentUsername(), 
-            "Item dispatched for delivery. " + trackingInfo
-        );
+        applyDispatch(orderItem, getTransactionForOrderItem(orderItem.getOrderItemId()), getCurrentUsername());
         orderItemRepository.save(orderItem);
 
         // Update overall order status and return response
@@ -135,22 +108,238 @@ public class LogisticsService {
 
     @Transactional
     public OrderDetailResponse confirmDelivery(Long itemId, List<String> photoUrls) {
-        log.info("Confirming delivery for item: {} with {} photo URLs", itemId, photoUrls.size());
-
         if (photoUrls == null || photoUrls.isEmpty()) {
             throw new BusinessLogicException("At least one photo URL is required as proof of delivery.");
         }
+        log.info("Confirming delivery for item: {} with {} photo URLs", itemId, photoUrls.size());
 
         OrderItem orderItem = orderItemRepository.findById(itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order item not found: " + itemId));
 
-        if (orderItem.getStatus() != OrderItemStatus.OUT_FOR_DELIVERY) {
-            throw new BusinessLogicException("Item must be in OUT_FOR_DELIVERY status to confirm delivery. Current status: " + orderItem.getStatus());
+        Transaction transaction = getTransactionForOrderItem(orderItem.getOrderItemId());
+        applyDelivery(orderItem, transaction, photoUrls, getCurrentUsername());
+        escrowService.releaseEscrowFunds(List.of(orderItem), DELIVERY_RELEASE_REASON);
+
+        // Save entities
+        transactionRepository.save(transaction); // Saving the parent will cascade to the children
+        orderItemRepository.save(orderItem);
+
+        Order order = orderItem.getOrder();
+        updateOverallOrderStatus(order);
+        orderRepository.save(order);
+
+        log.info("Delivery confirmed for item {}. Saved {} evidence photos. Escrow funds released.", itemId, photoUrls.size());
+        return convertToDetailResponse(order);
+    }
+
+    /**
+     * Confirms many pickups at once. Items are processed in chunks, each in its own transaction;
+     * an item in the wrong status is reported and skipped without affecting the others.
+     * Results come back in request order.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkLogisticsResponse confirmPickups(List<ConfirmPickupRequest> pickups) {
+        String username = getCurrentUsername();
+        BulkLogisticsResponse.ItemResult[] results = new BulkLogisticsResponse.ItemResult[pickups.size()];
+        List<BulkItem<List<String>>> items = uniqueItems(pickups,
+                ConfirmPickupRequest::getOrderItemId, ConfirmPickupRequest::getPhotoUrls, results);
+        return runBulk("pickup", items, results, false,
+                (orderItem, transaction, photoUrls) -> applyPickup(orderItem, transaction, photoUrls, username),
+                applied -> { });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkLogisticsResponse dispatchItems(List<Long> orderItemIds) {
+        String username = getCurrentUsername();
+        BulkLogisticsResponse.ItemResult[] results = new BulkLogisticsResponse.ItemResult[orderItemIds.size()];
+        List<BulkItem<Boolean>> items = uniqueItems(orderItemIds, orderItemId -> orderItemId, orderItemId -> Boolean.TRUE, results);
+        return runBulk("dispatch", items, results, false,
+                (orderItem, transaction, ignored) -> applyDispatch(orderItem, transaction, username),
+                applied -> { });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkLogisticsResponse confirmDeliveries(List<BulkConfirmDeliveryRequest.Delivery> deliveries) {
+        String username = getCurrentUsername();
+        BulkLogisticsResponse.ItemResult[] results = new BulkLogisticsResponse.ItemResult[deliveries.size()];
+        List<BulkItem<List<String>>> items = uniqueItems(deliveries,
+                BulkConfirmDeliveryRequest.Delivery::getOrderItemId, BulkConfirmDeliveryRequest.Delivery::getPhotoUrls, results);
+        return runBulk("delivery", items, results, true,
+                (orderItem, transaction, photoUrls) -> applyDelivery(orderItem, transaction, photoUrls, username),
+                delivered -> escrowService.releaseEscrowFunds(delivered, DELIVERY_RELEASE_REASON));
+    }
+
+    @FunctionalInterface
+    private interface ItemTransition<T> {
+        void apply(OrderItem orderItem, Transaction transaction, T payload);
+    }
+
+    /**
+     * One item of a bulk request and its position in the request, where its result goes.
+     */
+    private record BulkItem<T>(int position, Long orderItemId, T payload) {
+    }
+
+    // The first occurrence of each item is processed; later ones are reported as duplicates at their own position
+    private static <R, T> List<BulkItem<T>> uniqueItems(List<R> requests, Function<R, Long> orderItemIdOf,
+                                                        Function<R, T> payloadOf,
+                                                        BulkLogisticsResponse.ItemResult[] results) {
+        Set<Long> seen = new HashSet<>();
+        List<BulkItem<T>> items = new ArrayList<>(requests.size());
+        for (int position = 0; position < requests.size(); position++) {
+            R request = requests.get(position);
+            Long orderItemId = orderItemIdOf.apply(request);
+            if (seen.add(orderItemId)) {
+                items.add(new BulkItem<>(position, orderItemId, payloadOf.apply(request)));
+            } else {
+                results[position] = failure(orderItemId, "Duplicate item in request");
+            }
+        }
+        return items;
+    }
+
+    private <T> BulkLogisticsResponse runBulk(String operation, List<BulkItem<T>> items,
+                                              BulkLogisticsResponse.ItemResult[] results,
+                                              boolean withDeliveryEvidence, ItemTransition<T> transition,
+                                              Consumer<List<OrderItem>> afterChunk) {
+        for (int from = 0; from < items.size(); from += BULK_CHUNK_SIZE) {
+            List<BulkItem<T>> chunk = items.subList(from, Math.min(items.size(), from + BULK_CHUNK_SIZE));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        processChunk(chunk, results, withDeliveryEvidence, transition, afterChunk));
+            } catch (Exception e) {
+                // The chunk rolled back as a whole, including the results it had already reported
+                log.error("Bulk {} chunk failed: {}", operation, e.getMessage(), e);
+                chunk.forEach(item -> results[item.position()] = failure(item.orderItemId(), "Not processed: " + e.getMessage()));
+            }
         }
 
+        int succeeded = (int) Arrays.stream(results).filter(BulkLogisticsResponse.ItemResult::isSuccess).count();
+        log.info("Bulk {} processed {} items: {} succeeded, {} failed",
+                operation, results.length, succeeded, results.length - succeeded);
+        return BulkLogisticsResponse.builder()
+                .requested(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Loads the orders with all their items and the transactions of the chunk in two queries,
+     * applies the transition per item, hands the items it succeeded on to afterChunk, then
+     * recomputes each touched order's status once. Each item's result is stored at its position.
+     */
+    private <T> void processChunk(List<BulkItem<T>> chunk, BulkLogisticsResponse.ItemResult[] results,
+                                  boolean withDeliveryEvidence, ItemTransition<T> transition,
+                                  Consumer<List<OrderItem>> afterChunk) {
+        List<Long> orderItemIds = chunk.stream().map(BulkItem::orderItemId).toList();
+
+        Map<Long, OrderItem> itemsById = new HashMap<>();
+        for (Order order : orderRepository.findByOrderItemIdsWithItems(orderItemIds)) {
+            order.getOrderItems().forEach(item -> itemsById.put(item.getOrderItemId(), item));
+        }
+        List<Transaction> transactions = withDeliveryEvidence
+                ? transactionRepository.findByOrderItemIdsWithDeliveryEvidence(orderItemIds)
+                : transactionRepository.findByOrderItemOrderItemIdIn(orderItemIds);
+        Map<Long, Transaction> transactionsByItem = new HashMap<>();
+        transactions.forEach(transaction ->
+                transactionsByItem.put(transaction.getOrderItem().getOrderItemId(), transaction));
+
+        Map<Long, Order> touchedOrders = new LinkedHashMap<>();
+        List<OrderItem> applied = new ArrayList<>(chunk.size());
+        for (BulkItem<T> item : chunk) {
+            Long orderItemId = item.orderItemId();
+            OrderItem orderItem = itemsById.get(orderItemId);
+            if (orderItem == null) {
+                results[item.position()] = failure(orderItemId, "Order item not found: " + orderItemId);
+                continue;
+            }
+            Transaction transaction = transactionsByItem.get(orderItemId);
+            if (transaction == null) {
+                results[item.position()] = failure(orderItemId, "Transaction not found for order item: " + orderItemId);
+                continue;
+            }
+            try {
+                transition.apply(orderItem, transaction, item.payload());
+            } catch (BusinessLogicException e) {
+                results[item.position()] = failure(orderItemId, e.getMessage());
+                continue;
+            }
+            touchedOrders.put(orderItem.getOrder().getOrderId(), orderItem.getOrder());
+            applied.add(orderItem);
+            results[item.position()] = BulkLogisticsResponse.ItemResult.builder()
+                    .orderItemId(orderItemId)
+                    .orderId(orderItem.getOrder().getOrderId())
+                    .success(true)
+                    .status(orderItem.getStatus())
+                    .trackingNumber(transaction.getTrackingNumber())
+                    .build();
+        }
+        afterChunk.accept(applied);
+        // Dirty checking writes the items, transactions and orders on commit
+        touchedOrders.values().forEach(this::updateOverallOrderStatus);
+    }
+
+    private static BulkLogisticsResponse.ItemResult failure(Long orderItemId, String error) {
+        return BulkLogisticsResponse.ItemResult.builder()
+                .orderItemId(orderItemId)
+                .success(false)
+                .error(error)
+                .build();
+    }
+
+    // Transitions shared by the single-item and bulk operations. Each checks the status before changing anything.
+
+    private void applyPickup(OrderItem orderItem, Transaction transaction, List<String> photoUrls, String username) {
+        requireStatus(orderItem, OrderItemStatus.AWAITING_PICKUP, "confirm pickup");
+        orderItem.setStatus(OrderItemStatus.IN_WAREHOUSE);
+
+        // Record status change in history
+        statusHistoryService.recordStatusChange(
+            orderItem, 
+            OrderItemStatus.IN_WAREHOUSE, 
+            username, 
+            "Item picked up from seller. " + photoUrls.size() + " evidence photos recorded."
+        );
+
+        // Generate internal tracking number
+        transaction.setTrackingNumber("VSTG-" + orderItem.getOrderItemId());
+
+        // Save evidence photos
+        List<PickupEvidence> evidence = new ArrayList<>(photoUrls.size());
+        for (String imageUrl : photoUrls) {
+            evidence.add(PickupEvidence.builder()
+                    .transaction(transaction)
+                    .imageUrl(imageUrl)
+                    .uploadedAt(LocalDateTime.now())
+                    .build());
+        }
+        pickupEvidenceRepository.saveAll(evidence);
+    }
+
+    private void applyDispatch(OrderItem orderItem, Transaction transaction, String username) {
+        requireStatus(orderItem, OrderItemStatus.IN_WAREHOUSE, "dispatch");
+
+        // Change status to OUT_FOR_DELIVERY
+        orderItem.setStatus(OrderItemStatus.OUT_FOR_DELIVERY);
+
+        // Record status change in history
+        String trackingInfo = transaction.getTrackingNumber() != null ? 
+            "Tracking: " + transaction.getTrackingNumber() : "No tracking number assigned";
+        statusHistoryService.recordStatusChange(
+            orderItem, 
+            OrderItemStatus.OUT_FOR_DELIVERY, 
+            username, 
+            "Item dispatched for delivery. " + trackingInfo
+        );
+    }
+
+    private void applyDelivery(OrderItem orderItem, Transaction transaction, List<String> photoUrls, String username) {
+        requireStatus(orderItem, OrderItemStatus.OUT_FOR_DELIVERY, "confirm delivery");
+
         orderItem.setStatus(OrderItemStatus.DELIVERED);
 
-        Transaction transaction = getTransactionForOrderItem(orderItem.getOrderItemId());
         transaction.setStatus(TransactionStatus.DELIVERED);
         transaction.setEscrowStatus(EscrowStatus.AWAITING_RELEASE);
         transaction.setDeliveredAt(LocalDateTime.now());
@@ -178,23 +367,19 @@ public class LogisticsService {
         statusHistoryService.recordStatusChange(
                 orderItem,
                 OrderItemStatus.DELIVERED,
-                getCurrentUsername(),
+                username,
                 "Item successfully delivered to buyer. " + photoUrls.size() + " evidence photos recorded."
         );
 
-        // Save entities
-        transactionRepository.save(transaction); // Saving the parent will cascade to the children
-        orderItemRepository.save(orderItem);
-
-        Order order = orderItem.getOrder();
-        order.setDeliveredAt(LocalDateTime.now());
-        updateOverallOrderStatus(order);
-        orderRepository.save(order);
-
-        escrowService.releaseEscrowFunds(orderItem, "Item delivered by Vestige Shipping with photo proof.");
+        orderItem.getOrder().setDeliveredAt(LocalDateTime.now());
+        // Escrow of delivered items is released by the caller, for all of them at once
+    }
 
-        log.info("Delivery confirmed for item {}. Saved {} evidence photos. Escrow funds released.", itemId, photoUrls.size());
-        return convertToDetailResponse(order);
+    private void requireStatus(OrderItem orderItem, OrderItemStatus expected, String action) {
+        if (orderItem.getStatus() != expected) {
+            throw new BusinessLogicException("Item must be in " + expected + " status to " + action
+                    + ". Current status: " + orderItem.getStatus());
+        }
     }
 
     // Helper methods
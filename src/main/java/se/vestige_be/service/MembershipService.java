@@ -2,11 +2,13 @@ package se.vestige_be.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import se.vestige_be.dto.UserMembershipDTO;
 import se.vestige_be.dto.response.UserSubscriptionStatusResponse;
+import se.vestige_be.event.ProductBoostedEvent;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.exception.ResourceNotFoundException;
 import se.vestige_be.mapper.ModelMapper;
@@ -37,6 +39,7 @@ public class MembershipService {
     private final TransactionRepository transactionRepository;
     private final ModelMapper modelMapper;
     private final PayOsService payOsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<MembershipPlan> getAllPlans() {
@@ -176,7 +179,10 @@ public class MembershipService {
                 .build();
 
         log.info("User {} boosted product {}. Boosts remaining: {}", user.getUsername(), productId, activeMembership.getBoostsRemaining());
-        return productBoostRepository.save(productBoost);
+        ProductBoost savedBoost = productBoostRepository.save(productBoost);
+        eventPublisher.publishEvent(new ProductBoostedEvent(
+                product.getProductId(), product.getCreatedAt(), savedBoost.getBoostEndTime()));
+        return savedBoost;
     }
 
     @Transactional
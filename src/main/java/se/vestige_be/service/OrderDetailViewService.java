@@ -0,0 +1,159 @@
+package se.vestige_be.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.dto.response.OrderDetailResponse;
+import se.vestige_be.mapper.OrderMapper;
+import se.vestige_be.pojo.Order;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+import se.vestige_be.repository.OrderDetailViewRepository;
+import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.PendingOrderChangeRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one serialized {@link OrderDetailResponse} per order in order_detail_views, so
+ * GET /api/orders/{id} is a primary-key read instead of the wide fetch-join behind the mapper.
+ * The transaction that changes an order deletes its document before committing (see
+ * {@link se.vestige_be.event.OrderChangeMarker}), so a stored document is always current and an order
+ * without one is read through the mapper. The same transaction queues the order in pending_order_changes,
+ * and a scheduled job rebuilds queued orders, and orders a reader found without a document, off the
+ * writer's thread and connection. Seller and product details copied into the document (ratings, titles)
+ * are refreshed with the next change to the order.
+ */
+@Service
+@Slf4j
+public class OrderDetailViewService {
+
+    private static final int REBUILD_BATCH_SIZE = 200;
+
+    private final OrderRepository orderRepository;
+    private final OrderDetailViewRepository viewRepository;
+    private final PendingOrderChangeRepository pendingRepository;
+    private final OrderMapper orderMapper;
+    private final SellerOrderInboxService sellerOrderInboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    // Orders a reader found without a document; losing them only means the next reader asks again
+    private final Set<Long> requestedOrderIds = ConcurrentHashMap.newKeySet();
+
+    public OrderDetailViewService(OrderRepository orderRepository,
+                                  OrderDetailViewRepository viewRepository,
+                                  PendingOrderChangeRepository pendingRepository,
+                                  OrderMapper orderMapper,
+                                  SellerOrderInboxService sellerOrderInboxService,
+                                  ObjectMapper objectMapper,
+                                  @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate) {
+        this.orderRepository = orderRepository;
+        this.viewRepository = viewRepository;
+        this.pendingRepository = pendingRepository;
+        this.orderMapper = orderMapper;
+        this.sellerOrderInboxService = sellerOrderInboxService;
+        // Each rebuild commits on its own
+        this.transactionTemplate = transactionTemplate;
+        // Tolerate documents written before a field was removed from the response
+        this.reader = objectMapper.readerFor(OrderDetailResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.writer = objectMapper.writerFor(OrderDetailResponse.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * The stored document, or empty when the order has none yet or changed since it was built.
+     */
+    public Optional<OrderDetailResponse> find(Long orderId) {
+        return viewRepository.findById(orderId).flatMap(view -> {
+            try {
+                return Optional.of(reader.<OrderDetailResponse>readValue(view.getDocument()));
+            } catch (JsonProcessingException e) {
+                log.warn("Unreadable detail document for order {}: {}", orderId, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Queues a document build for an order a reader found without one. The build runs on the scheduler,
+     * so the read path never opens a write transaction of its own.
+     */
+    public void requestBuild(Long orderId) {
+        requestedOrderIds.add(orderId);
+    }
+
+    /**
+     * Rebuilds the next batch of queued orders and the orders requested since the last run. An order
+     * changed again while it is being rebuilt is queued again and rebuilt on a later run.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void rebuildChangedOrders() {
+        Set<Long> orderIds = new LinkedHashSet<>(pendingRepository.findOrderIds(
+                OrderChangeConsumer.ORDER_VIEWS, PageRequest.of(0, REBUILD_BATCH_SIZE)));
+        List<Long> requested = new ArrayList<>(requestedOrderIds);
+        requestedOrderIds.removeAll(requested);
+        orderIds.addAll(requested);
+        orderIds.forEach(this::rebuild);
+    }
+
+    /**
+     * Rebuilds the document and the order's seller inbox rows from the current rows and takes the order
+     * off the queue. Rebuilds of the same order are serialized on the order row, and so is the writer's
+     * delete of the document and queueing of the order, so a document is never stored from a state older
+     * than the last committed change. A failed rebuild stays queued behind the other orders.
+     */
+    public void rebuild(Long orderId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                boolean exists = orderRepository.lockById(orderId).isPresent();
+                pendingRepository.deleteByConsumerAndOrderIds(OrderChangeConsumer.ORDER_VIEWS, List.of(orderId));
+                if (!exists) {
+                    viewRepository.deleteById(orderId);
+                    sellerOrderInboxService.remove(orderId);
+                    return;
+                }
+                Order order = orderRepository.findByIdWithAllRelationships(orderId).orElseThrow();
+                viewRepository.upsert(orderId, serialize(orderMapper.convertToDetailResponse(order)),
+                        LocalDateTime.now());
+                sellerOrderInboxService.refresh(order);
+            });
+        } catch (Exception e) {
+            log.error("Failed to rebuild detail document for order {}: {}", orderId, e.getMessage(), e);
+            // Readers fall back to the mapper rather than see a stale document
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    viewRepository.deleteById(orderId);
+                    pendingRepository.postpone(OrderChangeConsumer.ORDER_VIEWS, orderId, LocalDateTime.now());
+                });
+            } catch (Exception ignored) {
+                log.error("Failed to drop stale detail document for order {}", orderId);
+            }
+        }
+    }
+
+    private String serialize(OrderDetailResponse response) {
+        try {
+            return writer.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + response.getOrderId(), e);
+        }
+    }
+}
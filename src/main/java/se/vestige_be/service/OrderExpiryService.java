@@ -0,0 +1,190 @@
+package se.vestige_be.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.event.OrderChangedEvent;
+import se.vestige_be.event.OrderCreatedEvent;
+import se.vestige_be.event.OrderItemStatusChangedEvent;
+import se.vestige_be.event.OrderStatusChangedEvent;
+import se.vestige_be.event.ProductChangedEvent;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.OrderRepositoryCustom;
+import se.vestige_be.util.HashedWheelTimer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires unpaid orders at their payment deadline and puts their products back on sale.
+ * Every PENDING order has a deadline in a wheel timer, registered when the order is placed and
+ * rebuilt from the database on startup. Orders whose deadline passed are queued and expired a
+ * chunk at a time with set-based updates; orders paid in the meantime are skipped by the update.
+ * Orders placed through another instance are only picked up by the reload every ten minutes (first
+ * one ten minutes after startup), so such an order can stay PENDING up to ten minutes past its deadline.
+ */
+@Service
+@Slf4j
+public class OrderExpiryService {
+
+    private static final long TIMER_TICK_SECONDS = 1;
+    private static final int TIMER_WHEEL_SIZE = 1024;
+    private static final int CHUNK_SIZE = 200;
+
+    private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long paymentTimeoutMinutes;
+
+    private final Queue<Long> due = new ConcurrentLinkedQueue<>();
+    private final HashedWheelTimer<Long> deadlines = new HashedWheelTimer<>(
+            "order-expiry", TIMER_TICK_SECONDS, TimeUnit.SECONDS, TIMER_WHEEL_SIZE, orderId -> due.add(orderId));
+
+    public OrderExpiryService(OrderRepository orderRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate,
+                              @Value("${app.orders.payment-timeout-minutes:30}") long paymentTimeoutMinutes) {
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+        // Each chunk commits on its own, also when called from inside a (read-only) transaction
+        this.transactionTemplate = transactionTemplate;
+        this.paymentTimeoutMinutes = paymentTimeoutMinutes;
+    }
+
+    /**
+     * Payment deadline of an order created at the given time.
+     */
+    public LocalDateTime getDeadline(LocalDateTime createdAt) {
+        return (createdAt != null ? createdAt : LocalDateTime.now()).plusMinutes(paymentTimeoutMinutes);
+    }
+
+    /**
+     * Orders created before this are past their payment deadline.
+     */
+    public LocalDateTime getCutoff() {
+        return LocalDateTime.now().minusMinutes(paymentTimeoutMinutes);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        schedule(event.getOrderId(), event.getCreatedAt());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Registers every PENDING order, including orders placed through other instances.
+     * Deadlines already in the past fire on the next tick.
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void reload() {
+        List<Object[]> rows = orderRepository.findIdAndCreatedAtByStatus(OrderStatus.PENDING);
+        for (Object[] row : rows) {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+        }
+        log.debug("Order expiry scheduler tracking {} pending orders", deadlines.size());
+    }
+
+    /**
+     * Expires the orders whose deadline has fired.
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void expireDue() {
+        List<Long> chunk = new ArrayList<>(CHUNK_SIZE);
+        Long orderId;
+        while ((orderId = due.poll()) != null) {
+            chunk.add(orderId);
+            if (chunk.size() == CHUNK_SIZE) {
+                expire(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            expire(chunk);
+        }
+    }
+
+    /**
+     * Expires every PENDING order past its deadline right away, without waiting for the timer.
+     * Returns the number of orders expired.
+     */
+    public int expireOverdue() {
+        List<Long> overdue = orderRepository.findIdsByStatusAndCreatedAtBefore(OrderStatus.PENDING, getCutoff());
+        int expired = 0;
+        for (int from = 0; from < overdue.size(); from += CHUNK_SIZE) {
+            expired += expire(overdue.subList(from, Math.min(overdue.size(), from + CHUNK_SIZE)));
+        }
+        return expired;
+    }
+
+    /**
+     * Cancels a PENDING order whose payment could not be set up and puts its products back on sale,
+     * instead of leaving them reserved until the deadline. Returns false when it was no longer PENDING.
+     */
+    public boolean cancelUnpaid(Long orderId) {
+        return close(List.of(orderId), OrderStatus.CANCELLED) > 0;
+    }
+
+    private int expire(Collection<Long> orderIds) {
+        return close(orderIds, OrderStatus.EXPIRED);
+    }
+
+    private int close(Collection<Long> orderIds, OrderStatus closedStatus) {
+        try {
+            OrderRepositoryCustom.ClosedOrders result = transactionTemplate.execute(status -> {
+                OrderRepositoryCustom.ClosedOrders closed = orderRepository.closePendingOrders(orderIds, closedStatus);
+                // The bulk update skips the entity listeners
+                closed.orders().forEach(order -> {
+                    eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                            order.orderId(), OrderStatus.PENDING, closedStatus, order.totalAmount()));
+                    eventPublisher.publishEvent(new OrderChangedEvent(order.orderId()));
+                });
+                closed.cancelledItems().forEach(item -> eventPublisher.publishEvent(new OrderItemStatusChangedEvent(
+                        item.orderItemId(), item.previousStatus(), OrderItemStatus.CANCELLED, item.platformFee())));
+                closed.releasedProductIds().forEach(productId ->
+                        eventPublisher.publishEvent(new ProductChangedEvent(productId, false)));
+                return closed;
+            });
+            orderIds.forEach(deadlines::cancel);
+            if (result == null || result.orderIds().isEmpty()) {
+                return 0;
+            }
+            log.info("Set {} unpaid orders to {} and released {} products",
+                    result.orderIds().size(), closedStatus, result.releasedProductIds().size());
+            return result.orderIds().size();
+        } catch (Exception e) {
+            // Left PENDING; expired at the deadline or picked up again by the next reload
+            log.error("Failed to set orders {} to {}: {}", orderIds, closedStatus, e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    private void schedule(Long orderId, LocalDateTime createdAt) {
+        deadlines.schedule(orderId, getDeadline(createdAt).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlines.close();
+    }
+}
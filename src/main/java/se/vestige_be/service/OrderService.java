@@ -1,14 +1,15 @@
 package se.vestige_be.service;
 
 import com.stripe.model.Dispute;
-import com.stripe.model.PaymentIntent;
 import com.stripe.model.Transfer;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +17,7 @@ import jakarta.persistence.criteria.JoinType;
 import se.vestige_be.dto.request.OrderCreateRequest;
 import se.vestige_be.dto.request.OrderStatusUpdateRequest;
 import se.vestige_be.dto.response.*;
+import se.vestige_be.event.OrderCreatedEvent;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.exception.ResourceNotFoundException;
 import se.vestige_be.exception.UnauthorizedException;
@@ -23,6 +25,7 @@ import se.vestige_be.pojo.*;
 import se.vestige_be.pojo.enums.*;
 import se.vestige_be.repository.*;
 import se.vestige_be.mapper.OrderMapper;
+import se.vestige_be.util.PaginationUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -54,9 +57,22 @@ public class OrderService {
     private final StripeService stripeService;
     private final PayOsService payOsService;
     private final OrderMapper orderMapper;
+    private final ProductReservationService productReservationService;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderDetailViewService orderDetailViewService;
+    private final PaymentOutboxService paymentOutboxService;
+    private final SellerOrderInboxService sellerOrderInboxService;
+    private final DailyStatsService dailyStatsService;
+    private final LiveOrderStatsService liveOrderStatsService;
+    private final UserOrderStatsService userOrderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public OrderDetailResponse createOrder(OrderCreateRequest request, Long buyerId) {
+        List<Long> productIds = validateItemProductIds(request.getItems());
+        // Claim every product first, so concurrent checkouts of the same item fail before doing any work
+        productReservationService.reserve(productIds);
+
         User buyer = userRepository.findById(buyerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Buyer not found with ID: " + buyerId));
         UserAddress shippingAddress = userAddressRepository.findById(request.getShippingAddressId())
@@ -64,7 +80,7 @@ public class OrderService {
         if (!shippingAddress.getUser().getUserId().equals(buyerId)) {
             throw new UnauthorizedException("Shipping address does not belong to the buyer");
         }
-        List<OrderItemData> itemDataList = validateAndProcessItems(request.getItems(), buyerId, request.getPaymentMethod());
+        List<OrderItemData> itemDataList = validateAndProcessItems(request.getItems(), productIds, buyerId, request.getPaymentMethod());
         BigDecimal totalAmount = itemDataList.stream()
                 .map(OrderItemData::getItemPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -77,31 +93,6 @@ public class OrderService {
                 .status(OrderStatus.PENDING)
                 .build();
         order = orderRepository.save(order);
-        String paymentIntentId = null;
-        String clientSecret = null;
-        String payosCheckoutUrl = null;
-        
-        if (request.getPaymentMethod() == PaymentMethod.STRIPE_CARD) {
-            try {
-                PaymentIntent paymentIntent = stripeService.createPlatformCharge(order.getTotalAmount(), order.getOrderId());
-                paymentIntentId = paymentIntent.getId();
-                clientSecret = paymentIntent.getClientSecret();
-
-//                order.setStripePaymentIntentId(paymentIntentId);
-                order = orderRepository.save(order);
-            } catch (Exception e) {
-                throw new BusinessLogicException("Could not initialize payment. Please try again later.");
-            }
-        } else if (request.getPaymentMethod() == PaymentMethod.PAYOS) {
-            try {
-                // For PayOS, we need to create the payment link after order items are created
-                // This will be handled after order items creation
-                log.info("PayOS payment will be created for order {}", order.getOrderId());
-            } catch (Exception e) {
-                log.error("Failed to prepare PayOS payment for order {}: {}", order.getOrderId(), e.getMessage());
-                throw new BusinessLogicException("Could not initialize PayOS payment. Please try again later.");
-            }
-        }
 
         List<OrderItem> orderItems = createOrderItems(itemDataList, order);
         order.setOrderItems(orderItems);
@@ -109,24 +100,34 @@ public class OrderService {
         order = orderRepository.save(order);
 
         // Create transactions after order items have been saved and have IDs
-        createTransactions(order.getOrderItems(), buyer, shippingAddress, paymentIntentId);
-        
-        markProductsAsPendingPayment(itemDataList);
+        String payosOrderCode = null;
+        if (request.getPaymentMethod() == PaymentMethod.PAYOS) {
+            payosOrderCode = generatePayOsOrderCode();
+            createTransactionsWithPayOS(order.getOrderItems(), buyer, shippingAddress, payosOrderCode);
+        } else {
+            createTransactions(order.getOrderItems(), buyer, shippingAddress, null);
+        }
+        // The provider is called once this commits, so a slow provider never holds the order's rows or a connection
+        if (request.getPaymentMethod() == PaymentMethod.STRIPE_CARD || request.getPaymentMethod() == PaymentMethod.PAYOS) {
+            paymentOutboxService.enqueue(order, payosOrderCode);
+        }
+        // Starts the payment deadline once the order is committed
+        eventPublisher.publishEvent(new OrderCreatedEvent(order.getOrderId(), order.getCreatedAt()));
 
         // Refresh the order from database to ensure all relationships are loaded
         order = orderRepository.findById(order.getOrderId())
                 .orElseThrow(() -> new IllegalStateException("Order not found after creation"));
 
         // Convert to response after everything is properly saved
-        OrderDetailResponse response = convertToDetailResponse(order);
-//        if (clientSecret != null) {
-//            response.setMetadata(Map.of("clientSecret", clientSecret));
-//        }
-        if (payosCheckoutUrl != null) {
-            response.setMetadata(Map.of("payosCheckoutUrl", payosCheckoutUrl));
-        }
+        return convertToDetailResponse(order);
+    }
 
-        return response;
+    /**
+     * Generates an 11-digit PayOS order code from the current time.
+     */
+    private String generatePayOsOrderCode() {
+        long timestamp = System.currentTimeMillis();
+        return String.valueOf(timestamp).substring(5) + String.format("%03d", (int) (timestamp % 1000));
     }
 
     /**
@@ -321,8 +322,17 @@ public class OrderService {
     public PagedResponse<OrderListResponse> getUserOrders(Long userId, String status, String role, Pageable pageable) {
     Page<Order> orders;
 
-        if ("seller".equalsIgnoreCase(role)) {
+    if ("seller".equalsIgnoreCase(role)) {
+        if (sellerOrderInboxService.isBackfillComplete()) {
+            // One range scan over the seller's inbox rows, which carry the serialized list entries
+            return PagedResponse.of(sellerOrderInboxService.findOrders(userId, status, pageable));
+        }
+        // Older orders may not have inbox rows yet
         orders = getSellerOrders(userId, status, pageable);
+        if (orders.hasContent()) {
+            // Initializes orderItems of the whole page in one query instead of one per order
+            orderRepository.findByOrderIdInWithItems(orders.getContent().stream().map(Order::getOrderId).toList());
+        }
     } else {
         orders = getBuyerOrders(userId, status, pageable);
     }
@@ -334,9 +344,54 @@ public class OrderService {
         return PagedResponse.of(orderResponses);
 }
 
+/**
+ * Buyer orders in cursor mode: newest first on (createdAt, orderId) without offset or count query.
+ * Only the page's order ids are selected by the keyset query; items are fetched for those ids afterwards.
+ */
+public PagedResponse<OrderListResponse> getBuyerOrdersByCursor(Long userId, String status, String cursor, int size) {
+    PaginationUtils.Cursor after = PaginationUtils.decodeCursor(cursor);
+    int pageSize = PaginationUtils.safeCursorPageSize(size);
+
+    OrderStatus orderStatus = null;
+    if (status != null && !status.trim().isEmpty()) {
+        try {
+            orderStatus = OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid OrderStatus: {}. Returning all orders", status);
+        }
+    }
+    OrderStatus statusFilter = orderStatus;
+
+    Specification<Order> spec = Specification.<Order>where((root, query, cb) ->
+                    cb.equal(root.get("buyer").get("userId"), userId))
+            .and((root, query, cb) -> statusFilter == null ? null : cb.equal(root.get("status"), statusFilter))
+            .and(PaginationUtils.afterCursor(after, "orderId"));
+    List<Order> rows = orderRepository.findBy(spec, query -> query
+            .sortBy(PaginationUtils.keysetSort("orderId"))
+            .limit(pageSize + 1)
+            .all());
+
+    if (!rows.isEmpty()) {
+        // Initializes orderItems on the already managed orders
+        orderRepository.findByOrderIdInWithItems(rows.stream().map(Order::getOrderId).toList());
+        loadProductImagesForOrders(rows);
+    }
+
+    return PagedResponse.ofCursor(rows, pageSize, orderMapper::convertToListResponse,
+            order -> PaginationUtils.encodeCursor(order.getCreatedAt(), order.getOrderId()));
+}
+
 public OrderDetailResponse getOrderById(Long orderId, Long userId) {
+    Optional<OrderDetailResponse> stored = orderDetailViewService.find(orderId);
+    if (stored.isPresent()) {
+        validateParticipant(stored.get(), userId);
+        return stored.get();
+    }
+
     Order order = getOrderWithValidation(orderId, userId, false);
-    return convertToDetailResponse(order);
+    OrderDetailResponse response = convertToDetailResponse(order);
+    orderDetailViewService.requestBuild(orderId);
+    return response;
 }
 
 /**
@@ -559,40 +614,18 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
      */
     @Transactional(readOnly = true)
     public Object getSystemOrderStats() {
-        // Get total counts by status
-        Map<OrderStatus, Long> statusCounts = Arrays.stream(OrderStatus.values())
-                .collect(Collectors.toMap(
-                        status -> status,
-                        orderRepository::countByStatus,
-                        (existing, replacement) -> existing,
-                        LinkedHashMap::new
-                ));
-
-        // Get today's orders
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
-        long todayOrders = orderRepository.countByCreatedAtBetween(startOfDay, endOfDay);
-
-        // Calculate total revenue (completed orders)
-        BigDecimal totalRevenue = orderRepository.findByStatus(OrderStatus.DELIVERED)
-                .stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Calculate platform fees collected
-        BigDecimal totalPlatformFees = orderItemRepository.findByStatus(OrderItemStatus.DELIVERED)
-                .stream()
-                .map(OrderItem::getPlatformFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Live counters, no queries
+        LiveOrderStatsService.Snapshot stats = liveOrderStatsService.getSnapshot();
+        long deliveredOrders = stats.statusCounts().get(OrderStatus.DELIVERED);
 
         return Map.of(
-                "totalOrders", orderRepository.count(),
-                "todayOrders", todayOrders,
-                "totalRevenue", totalRevenue,
-                "platformFeesCollected", totalPlatformFees,
-                "statusBreakdown", statusCounts,
-                "avgOrderValue", statusCounts.get(OrderStatus.DELIVERED) > 0 ?
-                        totalRevenue.divide(BigDecimal.valueOf(statusCounts.get(OrderStatus.DELIVERED)), 2, RoundingMode.HALF_UP) :
+                "totalOrders", stats.totalOrders(),
+                "todayOrders", stats.todayOrders(),
+                "totalRevenue", stats.deliveredRevenue(),
+                "platformFeesCollected", stats.platformFeesCollected(),
+                "statusBreakdown", stats.statusCounts(),
+                "avgOrderValue", deliveredOrders > 0 ?
+                        stats.deliveredRevenue().divide(BigDecimal.valueOf(deliveredOrders), 2, RoundingMode.HALF_UP) :
                         BigDecimal.ZERO
         );
     }
@@ -612,29 +645,17 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
         LocalDateTime start = startDate != null ? startDate : LocalDateTime.now().minusMonths(12);
         LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
 
-        // 1. Order metrics
-        Map<OrderStatus, Long> statusCounts = Arrays.stream(OrderStatus.values())
-                .collect(Collectors.toMap(
-                        status -> status,
-                        orderRepository::countByStatus,
-                        (existing, replacement) -> existing,
-                        LinkedHashMap::new
-                ));
+        // 1. Order metrics, summed over the daily rollups
+        Map<OrderStatus, Long> statusCounts = dailyStatsService.getOrderStatusCounts();
+        DailyStatsService.Totals totals = dailyStatsService.getTotals();
 
-        long totalOrders = orderRepository.count();
-        long totalCompletedOrders = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        long totalCancelledOrders = orderRepository.countByStatus(OrderStatus.CANCELLED);
+        long totalOrders = totals.orders();
+        long totalCompletedOrders = statusCounts.get(OrderStatus.DELIVERED);
+        long totalCancelledOrders = statusCounts.get(OrderStatus.CANCELLED);
 
         // 2. Financial metrics
-        BigDecimal totalRevenue = orderRepository.findByStatus(OrderStatus.DELIVERED)
-                .stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalPlatformFees = orderItemRepository.findByStatus(OrderItemStatus.DELIVERED)
-                .stream()
-                .map(OrderItem::getPlatformFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = totals.deliveredRevenue();
+        BigDecimal totalPlatformFees = totals.deliveredFees();
 
         // Calculate average order value
         BigDecimal avgOrderValue = totalCompletedOrders > 0 ?
@@ -663,10 +684,10 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
                 (double)totalCancelledOrders / completedTransactions * 100 : 0;
 
         // 7. Category analysis - top selling categories
-        List<Map<String, Object>> topCategories = getTopSellingCategories(5, start, end);
+        List<Map<String, Object>> topCategories = dailyStatsService.getTopCategories(5, start.toLocalDate(), end.toLocalDate());
 
         // 8. Brand analysis - top selling brands
-        List<Map<String, Object>> topBrands = getTopSellingBrands(5, start, end);
+        List<Map<String, Object>> topBrands = dailyStatsService.getTopBrands(5, start.toLocalDate(), end.toLocalDate());
 
         // Build the comprehensive response
         Map<String, Object> result = new LinkedHashMap<>();
@@ -760,39 +781,26 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
             currentPeriodStart = periodStartFunc.apply(start);
         }
 
-        // Generate data for each period
+        // Generate data for each period from the daily rollups, read in one query
         LocalDateTime periodStart = currentPeriodStart;
+        List<DailyStats> days = dailyStatsService.getDays(periodStart.toLocalDate(), end.toLocalDate());
+        int nextDay = 0;
 
         while (!periodStart.isAfter(end)) {
-            LocalDateTime periodEnd = periodEndFunc.apply(periodStart);
-            if (periodEnd.isAfter(end)) {
-                periodEnd = end;
+            LocalDate periodEndDay = periodEndFunc.apply(periodStart).toLocalDate();
+
+            long periodOrders = 0;
+            BigDecimal periodRevenue = BigDecimal.ZERO;
+            BigDecimal periodFees = BigDecimal.ZERO;
+            long newUsers = 0;
+            while (nextDay < days.size() && days.get(nextDay).getStatDate().isBefore(periodEndDay)) {
+                DailyStats day = days.get(nextDay++);
+                periodOrders += day.getOrdersCreated();
+                periodRevenue = periodRevenue.add(day.getRevenue());
+                periodFees = periodFees.add(day.getFees());
+                newUsers += day.getNewUsers();
             }
 
-            // Count orders in this period
-            long periodOrders = orderRepository.countByCreatedAtBetween(periodStart, periodEnd);
-
-            // Calculate revenue in this period
-            BigDecimal periodRevenue = orderRepository.findByCreatedAtBetween(periodStart, periodEnd)
-                    .stream()
-                    .filter(order -> order.getStatus() == OrderStatus.PROCESSING ||
-                            order.getStatus() == OrderStatus.OUT_FOR_DELIVERY ||
-                            order.getStatus() == OrderStatus.DELIVERED)
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Calculate platform fees collected in this period
-            BigDecimal periodFees = orderItemRepository.findByOrderCreatedAtBetween(periodStart, periodEnd)
-                    .stream()
-                    .filter(item -> item.getStatus() == OrderItemStatus.PROCESSING ||
-                            item.getStatus() == OrderItemStatus.OUT_FOR_DELIVERY ||
-                            item.getStatus() == OrderItemStatus.DELIVERED)
-                    .map(OrderItem::getPlatformFee)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Count new users in this period
-            long newUsers = userRepository.countByJoinedDateBetween(periodStart, periodEnd);
-
             // Add data for this period
             Map<String, Object> trendEntry = new HashMap<>();
             trendEntry.put("period", periodLabelFunc.apply(periodStart));
@@ -809,55 +817,6 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
         return trends;
     }
 
-    /**
-     * Gets the top selling categories within the date range
-     */
-    private List<Map<String, Object>> getTopSellingCategories(int limit, LocalDateTime start, LocalDateTime end) {
-        return orderItemRepository.findByOrderCreatedAtBetween(start, end)
-                .stream()
-                .filter(item -> item.getStatus() == OrderItemStatus.DELIVERED)
-                .filter(item -> item.getProduct() != null && item.getProduct().getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        item -> item.getProduct().getCategory(),
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<Category, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> categoryMap = new HashMap<>();
-                    categoryMap.put("categoryId", entry.getKey().getCategoryId());
-                    categoryMap.put("name", entry.getKey().getName());
-                    categoryMap.put("count", entry.getValue());
-                    return categoryMap;
-                })
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Gets the top selling brands within the date range
-     */
-    private List<Map<String, Object>> getTopSellingBrands(int limit, LocalDateTime start, LocalDateTime end) {
-        return orderItemRepository.findByOrderCreatedAtBetween(start, end)
-                .stream()
-                .filter(item -> item.getStatus() == OrderItemStatus.DELIVERED)
-                .filter(item -> item.getProduct() != null && item.getProduct().getBrand() != null)
-                .collect(Collectors.groupingBy(
-                        item -> item.getProduct().getBrand(),
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<Brand, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> brandMap = new HashMap<>();
-                    brandMap.put("brandId", entry.getKey().getBrandId());
-                    brandMap.put("name", entry.getKey().getName());
-                    brandMap.put("count", entry.getValue());
-                    return brandMap;
-                })
-                .collect(Collectors.toList());
-    }
     /**
      * Webhook handlers
      */
@@ -978,56 +937,14 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
     }
 
     /**
-     * Scheduled job to clean up expired unpaid orders
-     * Runs every 30 minutes to check for orders that have been pending payment for more than 30 minutes
+     * Expire every unpaid order past its payment deadline right away.
+     * Orders normally expire on their own at the deadline, see {@link OrderExpiryService}.
      */
-    @Scheduled(fixedRate = 1800000) // 30 minutes
-    @Transactional
     public void cleanupExpiredPendingOrders() {
-        LocalDateTime expirationTime = LocalDateTime.now().minusMinutes(30);
-
-        List<Order> expiredOrders = orderRepository.findByStatusAndCreatedAtBefore(
-                OrderStatus.PENDING, expirationTime);
-
-        if (!expiredOrders.isEmpty()) {
-            log.info("Found {} expired pending orders to clean up", expiredOrders.size());
-
-            for (Order order : expiredOrders) {
-                try {
-                    expireOrder(order);
-                    log.info("Successfully expired order {}", order.getOrderId());
-                } catch (Exception e) {
-                    log.error("Failed to expire order {}: {}", order.getOrderId(), e.getMessage());
-                }
-            }
-        }
+        orderExpiryService.expireOverdue();
     }
 
     /**
-     * Scheduled task to clean up expired orders (runs every 15 minutes)
-     * Orders that are PENDING for more than 30 minutes will be expired
-     */
-    @Scheduled(fixedRate = 900000) // 15 minutes
-    @Transactional
-    public void cleanupExpiredOrders() {
-        LocalDateTime thirtyMinutesAgo = LocalDateTime.now().minusMinutes(30);
-
-        List<Order> expiredOrders = orderRepository.findByStatusAndCreatedAtBefore(
-                OrderStatus.PENDING, thirtyMinutesAgo);
-
-        if (!expiredOrders.isEmpty()) {
-            log.info("Found {} expired orders to clean up", expiredOrders.size());
-
-            for (Order order : expiredOrders) {
-                try {
-                    expireOrder(order);
-                    log.info("Successfully expired order {}", order.getOrderId());
-                } catch (Exception e) {
-                    log.error("Failed to expire order {}: {}", order.getOrderId(), e.getMessage());
-                }
-            }
-        }
-    }    /**
      * Expire a single order and restore product availability
      */    @Transactional
     public void expireOrder(Order order) {
@@ -1066,6 +983,13 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
         log.info("Order {} expired and cleaned up successfully", order.getOrderId());
     }
 
+    /**
+     * Orders created before this are past their payment deadline
+     */
+    public LocalDateTime getPaymentDeadlineCutoff() {
+        return orderExpiryService.getCutoff();
+    }
+
     /**
      * Find expired orders for manual inspection
      */
@@ -1077,38 +1001,43 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
     /**
      * Manual cleanup method for admin use
      */
-    @Transactional
     public int cleanupExpiredOrdersManually() {
-        LocalDateTime thirtyMinutesAgo = LocalDateTime.now().minusMinutes(30);
-
-        List<Order> expiredOrders = orderRepository.findByStatusAndCreatedAtBefore(
-                OrderStatus.PENDING, thirtyMinutesAgo);
-
-        int cleanedCount = 0;
-        for (Order order : expiredOrders) {
-            try {
-                expireOrder(order);
-                cleanedCount++;
-                log.info("Manually expired order {}", order.getOrderId());
-            } catch (Exception e) {
-                log.error("Failed to manually expire order {}: {}", order.getOrderId(), e.getMessage());
-            }
-        }
-
+        int cleanedCount = orderExpiryService.expireOverdue();
         log.info("Manual cleanup completed: {} orders expired", cleanedCount);
         return cleanedCount;
     }
 
 // Private helper methods
 
-    private List<OrderItemData> validateAndProcessItems(List<OrderCreateRequest.OrderItemRequest> itemRequests, Long buyerId, PaymentMethod paymentMethod) {
+    private List<Long> validateItemProductIds(List<OrderCreateRequest.OrderItemRequest> itemRequests) {
         if (itemRequests.isEmpty()) {
             throw new BusinessLogicException("Order must contain at least one item");
         }
 
+        List<Long> productIds = itemRequests.stream()
+                .map(OrderCreateRequest.OrderItemRequest::getProductId)
+                .toList();
+        if (new HashSet<>(productIds).size() < productIds.size()) {
+            throw new BusinessLogicException("Order contains the same product more than once");
+        }
+        return productIds;
+    }
+
+    // Products must already be reserved for this order
+    private List<OrderItemData> validateAndProcessItems(List<OrderCreateRequest.OrderItemRequest> itemRequests, List<Long> productIds,
+                                                        Long buyerId, PaymentMethod paymentMethod) {
+        Map<Long, Product> products = productRepository.findByProductIdInWithSeller(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+
         List<OrderItemData> itemDataList = new ArrayList<>();
         for (OrderCreateRequest.OrderItemRequest itemRequest : itemRequests) {
-            OrderItemData itemData = validateAndProcessItem(itemRequest, buyerId, paymentMethod);
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found: " + itemRequest.getProductId());
+            }
+            // An instance loaded earlier in this transaction still shows the status from before the reservation
+            product.setStatus(ProductStatus.PENDING_PAYMENT);
+            OrderItemData itemData = validateAndProcessItem(itemRequest, product, buyerId, paymentMethod);
             itemDataList.add(itemData);
         }
 
@@ -1118,15 +1047,7 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
     // Data class for order processing
 
 
-    private OrderItemData validateAndProcessItem(OrderCreateRequest.OrderItemRequest itemRequest, Long buyerId, PaymentMethod paymentMethod) {
-        Product product = productRepository.findById(itemRequest.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + itemRequest.getProductId()));
-
-        // Validate product status
-        if (!ProductStatus.ACTIVE.equals(product.getStatus())) {
-            throw new BusinessLogicException("Product '" + product.getTitle() + "' is not available for purchase");
-        }
-
+    private OrderItemData validateAndProcessItem(OrderCreateRequest.OrderItemRequest itemRequest, Product product, Long buyerId, PaymentMethod paymentMethod) {
         // Validate not buying own product
         if (product.getSeller().getUserId().equals(buyerId)) {
             throw new BusinessLogicException("Cannot purchase your own product: " + product.getTitle());
@@ -1242,14 +1163,6 @@ public OrderDetailResponse getOrderById(Long orderId, Long userId) {
         }
     }
 
-    private void markProductsAsPendingPayment(List<OrderItemData> itemDataList) {
-        itemDataList.forEach(data -> {
-            Product product = data.getProduct();
-            product.setStatus(ProductStatus.PENDING_PAYMENT);
-            productRepository.save(product);
-        });
-    }
-
 
 
     private void handleItemDelivered(OrderItem orderItem) {
@@ -1531,6 +1444,18 @@ private void validateItemStatusUpdate(OrderItemStatus currentStatus, OrderItemSt
         }
     }
 
+    /**
+     * Same check as {@link #getOrderWithValidation} for a stored order detail document
+     */
+    private void validateParticipant(OrderDetailResponse order, Long userId) {
+        boolean isBuyer = order.getBuyer() != null && userId.equals(order.getBuyer().getUserId());
+        boolean isSeller = order.getOrderItems() != null && order.getOrderItems().stream()
+                .anyMatch(item -> item.getSeller() != null && userId.equals(item.getSeller().getUserId()));
+        if (!isBuyer && !isSeller) {
+            throw new UnauthorizedException("User not authorized to access this order");
+        }
+    }
+
     private Order getOrderWithValidation(Long orderId, Long userId, boolean buyerOnly) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
@@ -2169,33 +2094,18 @@ public OrderDetailResponse adminUpdateUserOrder(Long userId, Long orderId, Strin
     /**
      * Admin-only method to get all users with their order summary statistics
      *
-     * @param search Optional search term to filter by username or email
+     * @param search Optional search term to filter by username, name or email
      * @param accountStatus Optional filter for account status (active/inactive)
      * @param pageable Pagination and sorting parameters
      * @return Paginated list of users with their order statistics
      */
     public PagedResponse<Object> getAllUsersWithOrderSummary(String search, String accountStatus, Pageable pageable) {
-        Page<User> usersPage;
-
-        if (search != null && !search.isEmpty() && accountStatus != null && !accountStatus.isEmpty()) {
-            // Filter by both search term and account status
-            usersPage = userRepository.findByUsernameContainingOrEmailContainingAndAccountStatus(
-                    search, search, accountStatus, pageable);
-        } else if (search != null && !search.isEmpty()) {
-            // Filter by search term only
-            usersPage = userRepository.findByUsernameContainingOrEmailContaining(search, search, pageable);
-        } else if (accountStatus != null && !accountStatus.isEmpty()) {
-            // Filter by account status only
-            usersPage = userRepository.findByAccountStatus(accountStatus, pageable);
-        } else {
-            // No filters
-            usersPage = userRepository.findAll(pageable);
-        }
+        // Users joined with their user_order_stats rows, so the statistics are sortable too
+        Page<UserOrderStatsRepositoryCustom.UserWithStats> usersPage =
+                userOrderStatsService.findUsersWithStats(search, null, accountStatus, pageable);
 
-        // Process each user to add order summary
         List<Object> userSummaries = usersPage.getContent().stream()
-                .map(this::buildUserOrderSummary)
-                .map(map -> (Object) map)
+                .map(row -> (Object) buildUserOrderSummary(row.user(), row.stats()))
                 .collect(Collectors.toList());
 
         // Create paged response with explicit Object type
@@ -2206,58 +2116,9 @@ public OrderDetailResponse adminUpdateUserOrder(Long userId, Long orderId, Strin
     /**
      * Builds a summary of order statistics for a user
      */
-    private Map<String, Object> buildUserOrderSummary(User user) {
-        // Get all orders where user is buyer
-        List<Order> buyerOrders = orderRepository.findByBuyerUserId(user.getUserId());
-
-        // Count orders by status for this buyer
-        Map<OrderStatus, Long> buyerStatusCounts = Arrays.stream(OrderStatus.values())
-                .collect(Collectors.toMap(
-                        status -> status,
-                        status -> buyerOrders.stream().filter(o -> o.getStatus() == status).count(),
-                        (existing, replacement) -> existing,
-                        LinkedHashMap::new
-                ));
-
-        // Calculate total spent as buyer
-        BigDecimal totalSpent = buyerOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.PROCESSING ||
-                        o.getStatus() == OrderStatus.OUT_FOR_DELIVERY ||
-                        o.getStatus() == OrderStatus.DELIVERED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Get all order items where user is seller
-        List<OrderItem> sellerItems = orderItemRepository.findBySellerUserId(user.getUserId());
-
-        // Count items by status for this seller
-        Map<OrderItemStatus, Long> sellerStatusCounts = Arrays.stream(OrderItemStatus.values())
-                .collect(Collectors.toMap(
-                        status -> status,
-                        status -> sellerItems.stream().filter(i -> i.getStatus() == status).count(),
-                        (existing, replacement) -> existing,
-                        LinkedHashMap::new
-                ));
-
-        // Calculate total earned as seller (minus platform fees)
-        BigDecimal totalEarned = sellerItems.stream()
-                .filter(i -> i.getStatus() == OrderItemStatus.PROCESSING ||
-                        i.getStatus() == OrderItemStatus.OUT_FOR_DELIVERY ||
-                        i.getStatus() == OrderItemStatus.DELIVERED)
-                .map(i -> i.getPrice().subtract(i.getPlatformFee()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Get date of last order (as buyer)
-        LocalDateTime lastOrderDate = buyerOrders.stream()
-                .map(Order::getCreatedAt)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-
-        // Get date of last sale (as seller)
-        LocalDateTime lastSaleDate = sellerItems.stream()
-                .map(i -> i.getOrder().getCreatedAt())
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+    private Map<String, Object> buildUserOrderSummary(User user, UserOrderStats stats) {
+        Map<OrderStatus, Long> buyerStatusCounts = userOrderStatsService.getBuyerStatusCounts(stats);
+        Map<OrderItemStatus, Long> sellerStatusCounts = userOrderStatsService.getSellerStatusCounts(stats);
 
         // Build and return the summary
         Map<String, Object> summary = new LinkedHashMap<>();
@@ -2276,17 +2137,17 @@ public OrderDetailResponse adminUpdateUserOrder(Long userId, Long orderId, Strin
 
         // Buyer statistics
         Map<String, Object> buyerMap = new HashMap<>();
-        buyerMap.put("totalOrders", buyerOrders.size());
-        buyerMap.put("totalSpent", totalSpent);
-        buyerMap.put("lastOrderDate", lastOrderDate);
+        buyerMap.put("totalOrders", stats != null ? stats.getBuyerOrders() : 0L);
+        buyerMap.put("totalSpent", stats != null ? stats.getBuyerSpent() : BigDecimal.ZERO);
+        buyerMap.put("lastOrderDate", stats != null ? stats.getLastOrderAt() : null);
         buyerMap.put("statusCounts", buyerStatusCounts);
         summary.put("buyer", buyerMap);
 
         // Seller statistics
         Map<String, Object> sellerMap = new HashMap<>();
-        sellerMap.put("totalItems", sellerItems.size());
-        sellerMap.put("totalEarned", totalEarned);
-        sellerMap.put("lastSaleDate", lastSaleDate);
+        sellerMap.put("totalItems", stats != null ? stats.getSellerItems() : 0L);
+        sellerMap.put("totalEarned", stats != null ? stats.getSellerEarned() : BigDecimal.ZERO);
+        sellerMap.put("lastSaleDate", stats != null ? stats.getLastSaleAt() : null);
         sellerMap.put("statusCounts", sellerStatusCounts);
         sellerMap.put("rating", user.getSellerRating());
         sellerMap.put("reviewsCount", user.getSellerReviewsCount());
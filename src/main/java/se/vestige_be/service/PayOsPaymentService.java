@@ -4,50 +4,54 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import se.vestige_be.dto.request.OrderCreateRequest;
 import se.vestige_be.dto.response.OrderDetailResponse;
+import se.vestige_be.dto.response.PaymentSessionResponse;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.pojo.*;
 import se.vestige_be.pojo.enums.*;
 import se.vestige_be.repository.*;
-import vn.payos.PayOS;
-import vn.payos.type.CheckoutResponseData;
-import vn.payos.type.ItemData;
-import vn.payos.type.PaymentData;
-import vn.payos.type.PaymentLinkData;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PayOsPaymentService {
 
-    private final OrderRepository orderRepository;
-    private final TransactionRepository transactionRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final UserAddressRepository userAddressRepository;
-    private final OfferRepository offerRepository;
-    private final FeeTierService feeTierService;
-    private final PayOsService payOsService;
     private final OrderService orderService;
+    private final PaymentOutboxService paymentOutboxService;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public PayOsPaymentService(ProductRepository productRepository,
+                               UserRepository userRepository,
+                               UserAddressRepository userAddressRepository,
+                               OrderService orderService,
+                               PaymentOutboxService paymentOutboxService,
+                               PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.userAddressRepository = userAddressRepository;
+        this.orderService = orderService;
+        this.paymentOutboxService = paymentOutboxService;
+        // Validation only reads, and must not count as committed work for idempotent retries
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
 
     /**
-     * Create payment for single product order using PayOS
+     * Create payment for single product order using PayOS.
+     * The order is committed first; the payment link is created by {@link PaymentOutboxService}
+     * afterwards, so this waits for it without holding a connection. When PayOS is slow the response
+     * comes back without a checkout URL and the client polls GET /api/orders/{orderId}/payment.
      */
-    @Transactional
     public PaymentResponse createPayment(Long buyerId, OrderCreateRequest request) {
         try {
             if (request.getItems().size() != 1) {
@@ -55,83 +59,37 @@ public class PayOsPaymentService {
             }
 
             OrderCreateRequest.OrderItemRequest itemRequest = request.getItems().getFirst();
-            User buyer = userRepository.findById(buyerId)
-                    .orElseThrow(() -> new BusinessLogicException("Buyer not found"));
-
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new BusinessLogicException("Product not found"));
-
-            UserAddress shippingAddress = userAddressRepository.findById(request.getShippingAddressId())
-                    .orElseThrow(() -> new BusinessLogicException("Shipping address not found"));
-
-            validatePurchase(buyer, product, shippingAddress);
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                User buyer = userRepository.findById(buyerId)
+                        .orElseThrow(() -> new BusinessLogicException("Buyer not found"));
+                Product product = productRepository.findById(itemRequest.getProductId())
+                        .orElseThrow(() -> new BusinessLogicException("Product not found"));
+                UserAddress shippingAddress = userAddressRepository.findById(request.getShippingAddressId())
+                        .orElseThrow(() -> new BusinessLogicException("Shipping address not found"));
+                validatePurchase(buyer, product, shippingAddress);
+            });
 
-            // Add debugging to check initial product status
-            log.info("BEFORE ORDER CREATION - Product {} status: {}", product.getProductId(), product.getStatus());
-
-            BigDecimal itemPrice = calculateItemPrice(itemRequest, product, buyerId);
-            BigDecimal platformFee = feeTierService.calculatePlatformFee(itemPrice, product.getSeller());
-            BigDecimal feePercentage = feeTierService.getFeePercentageForSeller(product.getSeller());
-
-            // Generate PayOS order code
-            String orderCode = generateOrderCode(System.currentTimeMillis());
-            
             // Set PayOS payment method in request
             request.setPaymentMethod(PaymentMethod.PAYOS);
-            
-            // Create order using the main OrderService method to handle product status properly
-            OrderDetailResponse orderResponse = orderService.createOrder(request, buyerId);
-            
-            // Get the created order
-            Order order = orderRepository.findById(orderResponse.getOrderId())
-                    .orElseThrow(() -> new BusinessLogicException("Failed to retrieve created order"));
 
-            // CRITICAL FIX: Update transactions with PayOS orderCode
-            // The main createOrder method doesn't set payosOrderCode, so we need to update it
-            for (OrderItem orderItem : order.getOrderItems()) {
-                Transaction transaction = transactionRepository.findByOrderItemOrderItemId(orderItem.getOrderItemId())
-                        .orElseThrow(() -> new BusinessLogicException("Transaction not found for order item"));
-                
-                log.info("BEFORE UPDATE: Transaction ID: {}, Current payosOrderCode: '{}'", 
-                        transaction.getTransactionId(), transaction.getPayosOrderCode());
-                        
-                transaction.setPayosOrderCode(orderCode);
-                Transaction savedTransaction = transactionRepository.save(transaction);
-                
-                log.info("AFTER UPDATE: Transaction ID: {}, Stored payosOrderCode: '{}', Save successful: {}", 
-                        savedTransaction.getTransactionId(), 
-                        savedTransaction.getPayosOrderCode(),
-                        savedTransaction.getPayosOrderCode() != null && savedTransaction.getPayosOrderCode().equals(orderCode));
-                        
-                // Verification: immediately try to find the transaction by orderCode to ensure it was saved correctly
-                Optional<Transaction> verificationOpt = transactionRepository.findByPayosOrderCodeWithAllRelationships(orderCode);
-                log.info("VERIFICATION: Can find transaction by orderCode '{}': {}", orderCode, verificationOpt.isPresent());
-                if (!verificationOpt.isPresent()) {
-                    log.error("CRITICAL: Transaction was saved but cannot be found by orderCode immediately after save!");
-                }
+            // Create order using the main OrderService method to handle product status properly
+            OrderDetailResponse order = orderService.createOrder(request, buyerId);
+            PaymentSessionResponse session = paymentOutboxService.awaitSession(order.getOrderId());
+            boolean linkReady = session != null && session.getStatus() == PaymentOutboxStatus.COMPLETED;
+            if (session != null && session.getStatus() == PaymentOutboxStatus.FAILED) {
+                throw new BusinessLogicException(session.getError());
             }
 
-            // Add debugging to check product status after order creation
-            Product refreshedProduct = productRepository.findById(product.getProductId()).orElse(product);
-            log.info("AFTER ORDER CREATION - Product {} status: {}, PayOS orderCode: {}", 
-                    refreshedProduct.getProductId(), refreshedProduct.getStatus(), orderCode);
-
-            // Create PayOS payment link
-            String checkoutUrl = createPayOsPaymentLink(order, refreshedProduct, orderCode);
-
-            // Add debugging to verify product status is now PENDING_PAYMENT
-            Product finalProduct = productRepository.findById(refreshedProduct.getProductId()).orElse(refreshedProduct);
-            log.info("FINAL PRODUCT STATUS CHECK - Product {} status: {}", finalProduct.getProductId(), finalProduct.getStatus());
-
+            OrderDetailResponse.OrderItemDetail item = order.getOrderItems().getFirst();
             return PaymentResponse.builder()
                     .orderId(order.getOrderId())
-                    .transactionId(order.getOrderItems().getFirst().getOrderItemId())
-                    .productTitle(finalProduct.getTitle())
+                    .transactionId(item.getOrderItemId())
+                    .productTitle(item.getProduct().getTitle())
                     .amount(order.getTotalAmount())
-                    .platformFee(order.getOrderItems().getFirst().getPlatformFee())
-                    .sellerAmount(order.getTotalAmount().subtract(order.getOrderItems().getFirst().getPlatformFee()))
-                    .checkoutUrl(checkoutUrl)
-                    .status("PENDING_PAYMENT")
+                    .platformFee(item.getPlatformFee())
+                    .sellerAmount(order.getTotalAmount().subtract(item.getPlatformFee()))
+                    .checkoutUrl(linkReady ? session.getCheckoutUrl() : null)
+                    .status(linkReady ? "PENDING_PAYMENT" : "PAYMENT_INITIALIZING")
                     .build();
 
         } catch (Exception e) {
@@ -140,49 +98,6 @@ public class PayOsPaymentService {
         }
     }
 
-    /**
-     * Create PayOS payment link for order
-     */
-    private String createPayOsPaymentLink(Order order, Product product, String orderCode) {
-        try {
-            PayOS payOS = payOsService.createPayOSInstance();
-            
-            ItemData item = ItemData.builder()
-                    .name(truncateString(product.getTitle(), 50))
-                    .quantity(1)
-                    .price(order.getTotalAmount().intValue())
-                    .build();
-
-
-
-            String description = createPaymentDescription(product.getTitle(), order.getBuyer().getUsername());
-            String returnUrl = payOsService.getFrontendUrl() + "/checkout/success?orderId=" + order.getOrderId();
-//            String returnUrl = "http://localhost:3000/checkout/success?orderId=" + order.getOrderId();
-            String cancelUrl = payOsService.getFrontendUrl() + "/payment-cancel?orderCode=" + orderCode;
-
-            PaymentData paymentData = PaymentData.builder()
-                    .orderCode(Long.parseLong(orderCode))
-                    .amount(order.getTotalAmount().intValue())
-                    .description(description)
-                    .items(Collections.singletonList(item))
-                    .cancelUrl(cancelUrl)
-                    .returnUrl(returnUrl)
-                    .build();
-
-            CheckoutResponseData result = payOS.createPaymentLink(paymentData);
-            
-            log.info("Created PayOS payment link for order {}: orderCode={}, checkoutUrl={}", 
-                    order.getOrderId(), orderCode, result.getCheckoutUrl());
-            
-            return result.getCheckoutUrl();
-            
-        } catch (Exception e) {
-            log.error("Failed to create PayOS payment link for order {}: {}", 
-                    order.getOrderId(), e.getMessage());
-            throw new BusinessLogicException("Failed to create payment link: " + e.getMessage());
-        }
-    }
-
     /**
      * Validate purchase requirements
      */
@@ -208,72 +123,13 @@ public class PayOsPaymentService {
         }
     }
 
-    /**
-     * Calculate item price based on offer or regular price
-     */
-    private BigDecimal calculateItemPrice(OrderCreateRequest.OrderItemRequest itemRequest, Product product, Long buyerId) {
-        if (itemRequest.getOfferId() != null) {
-            Offer offer = offerRepository.findById(itemRequest.getOfferId())
-                    .orElseThrow(() -> new BusinessLogicException("Offer not found"));
-
-            if (!offer.getProduct().getProductId().equals(product.getProductId())) {
-                throw new BusinessLogicException("Offer does not match product");
-            }
-            if (!OfferStatus.ACCEPTED.equals(offer.getStatus())) {
-                throw new BusinessLogicException("Offer is not accepted");
-            }
-            if (!offer.getBuyer().getUserId().equals(buyerId)) {
-                throw new BusinessLogicException("Offer does not belong to buyer");
-            }
-
-            return offer.getAmount();
-        }
-        return product.getPrice();
-    }
-
-    /**
-     * Generate unique order code for PayOS
-     */
-    private String generateOrderCode(Long timestamp) {
-        // Generate a consistent 11-digit orderCode
-        String orderCode = String.valueOf(timestamp).substring(5) + String.format("%03d", (int)(timestamp % 1000));
-        log.debug("Generated orderCode: '{}' from timestamp: {}", orderCode, timestamp);
-        return orderCode;
-    }
-
-    /**
-     * Create payment description within PayOS limits
-     */
-    private String createPaymentDescription(String productTitle, String username) {
-        final int MAX_LENGTH = 25;
-        String description = productTitle + " - " + username;
-        
-        if (description.length() <= MAX_LENGTH) {
-            return description;
-        }
-        
-        if (productTitle.length() <= MAX_LENGTH) {
-            return productTitle;
-        }
-        
-        return productTitle.substring(0, MAX_LENGTH - 3) + "...";
-    }
-
-    /**
-     * Truncate string to max length
-     */
-    private String truncateString(String str, int maxLength) {
-        if (str == null || str.length() <= maxLength) {
-            return str;
-        }
-        return str.substring(0, maxLength - 3) + "...";
-    }
-
     /**
      * Response DTO for PayOS payment
      */
     @Getter
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class PaymentResponse {
         private Long orderId;
         private Long transactionId;
@@ -10,6 +10,7 @@ import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.pojo.MembershipPlan;
 import se.vestige_be.pojo.User;
 import vn.payos.PayOS;
+import vn.payos.exception.PayOSException;
 import vn.payos.type.CheckoutResponseData;
 import vn.payos.type.ItemData;
 import vn.payos.type.PaymentData;
@@ -17,13 +18,16 @@ import vn.payos.type.PaymentLinkData;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -31,6 +35,12 @@ import java.util.UUID;
 @Slf4j
 public class PayOsService {
 
+    // Returned by PayOS for an order code without a payment link
+    private static final String LINK_NOT_FOUND_CODE = "101";
+    private static final String CHECKOUT_URL_PREFIX = "https://pay.payos.vn/web/";
+    // Links that can still be paid, or already were
+    private static final Set<String> OPEN_LINK_STATUSES = Set.of("PENDING", "PROCESSING", "PAID");
+
     @Value("${payos.client-id}")
     private String clientId;
 
@@ -100,6 +110,80 @@ public class PayOsService {
             throw new BusinessLogicException("Failed to create payment link: " + e.getMessage());
         }
     }
+    /**
+     * Returns the checkout URL of the marketplace order's PayOS payment link, creating the link unless an
+     * earlier call already did: PayOS rejects a second link for the same order code, so a retry after a
+     * lost response looks the link up first. The link expires at the order's payment deadline, so it
+     * cannot be paid once the order has expired.
+     */
+    public String createOrderPaymentLink(String orderCode, Long orderId, BigDecimal amount,
+                                         String productTitle, String buyerUsername, LocalDateTime payBy) throws Exception {
+        PayOS payOS = createPayOSInstance();
+        PaymentLinkData existing = findPaymentLink(payOS, Long.parseLong(orderCode));
+        if (existing != null) {
+            if (!OPEN_LINK_STATUSES.contains(existing.getStatus())) {
+                throw new BusinessLogicException("PayOS payment link for order code " + orderCode + " is " + existing.getStatus());
+            }
+            log.info("Reusing PayOS payment link for order {}: orderCode={}, status={}",
+                    orderId, orderCode, existing.getStatus());
+            return CHECKOUT_URL_PREFIX + existing.getId();
+        }
+
+        ItemData item = ItemData.builder()
+                .name(truncate(productTitle, 50))
+                .quantity(1)
+                .price(amount.intValue())
+                .build();
+
+        PaymentData paymentData = PaymentData.builder()
+                .orderCode(Long.parseLong(orderCode))
+                .amount(amount.intValue())
+                .description(createPaymentDescription(productTitle, buyerUsername))
+                .items(Collections.singletonList(item))
+                .cancelUrl(frontendUrl + "/payment-cancel?orderCode=" + orderCode)
+                .returnUrl(frontendUrl + "/checkout/success?orderId=" + orderId)
+                .expiredAt((int) payBy.atZone(ZoneId.systemDefault()).toEpochSecond())
+                .build();
+
+        CheckoutResponseData result = payOS.createPaymentLink(paymentData);
+        log.info("Created PayOS payment link for order {}: orderCode={}, checkoutUrl={}",
+                orderId, orderCode, result.getCheckoutUrl());
+        return result.getCheckoutUrl();
+    }
+
+    /**
+     * Cancels the marketplace order's PayOS payment link if one was created and is still open. Returns
+     * false when the link was paid or its payment is being processed, true when nothing can be paid.
+     */
+    public boolean cancelOrderPaymentLink(String orderCode, String reason) throws Exception {
+        PayOS payOS = createPayOSInstance();
+        long code = Long.parseLong(orderCode);
+        PaymentLinkData existing = findPaymentLink(payOS, code);
+        if (existing == null || !OPEN_LINK_STATUSES.contains(existing.getStatus())) {
+            return true;
+        }
+        if (!"PENDING".equals(existing.getStatus())) {
+            return false;
+        }
+        payOS.cancelPaymentLink(code, reason);
+        log.info("Cancelled PayOS payment link for orderCode {}: {}", orderCode, reason);
+        return true;
+    }
+
+    /**
+     * The payment link of the order code, null when none was created.
+     */
+    private PaymentLinkData findPaymentLink(PayOS payOS, long orderCode) throws Exception {
+        try {
+            return payOS.getPaymentLinkInformation(orderCode);
+        } catch (PayOSException e) {
+            if (LINK_NOT_FOUND_CODE.equals(e.getCode())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Verifies the actual status of a payment link with PayOS server.
      * This is crucial for security - we cannot trust the status from URL parameters alone.
@@ -177,6 +261,13 @@ public class PayOsService {
         return planName.substring(0, MAX_LENGTH - 3) + "...";
     }
 
+    private String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength - 3) + "...";
+    }
+
     /**
      * Creates an item name that fits PayOS limits (typically 50 characters for item names)
      */
@@ -0,0 +1,42 @@
+package se.vestige_be.service;
+
+import se.vestige_be.pojo.enums.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sets up the payment for an order with its provider. Called by {@link PaymentOutboxService}
+ * outside any database transaction; implementations may block for as long as the provider takes.
+ */
+public interface PaymentGateway {
+
+    /**
+     * @param reference PayOS order code, null for Stripe
+     * @param payBy     payment deadline of the order, after which it expires
+     */
+    record SessionRequest(Long orderId, PaymentMethod provider, BigDecimal amount, String reference,
+                          String productTitle, String buyerUsername, LocalDateTime payBy) {
+    }
+
+    /**
+     * @param reference   Stripe PaymentIntent id or PayOS order code
+     * @param clientToken Stripe client secret or PayOS checkout URL
+     */
+    record PaymentSession(String reference, String clientToken) {
+    }
+
+    PaymentSession createSession(SessionRequest request) throws Exception;
+
+    /**
+     * Makes sure the buyer can no longer pay through a session that an earlier call may have created,
+     * before the order is cancelled. Returns false when the payment has already gone through or is
+     * being processed; throws when that cannot be told.
+     */
+    boolean withdrawSession(SessionRequest request) throws Exception;
+
+    /**
+     * Client secret of an existing Stripe PaymentIntent, for the buyer to confirm it.
+     */
+    String getClientSecret(String paymentIntentId) throws Exception;
+}
@@ -0,0 +1,369 @@
+package se.vestige_be.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.dto.response.PaymentSessionResponse;
+import se.vestige_be.event.PaymentRequestedEvent;
+import se.vestige_be.exception.ResourceNotFoundException;
+import se.vestige_be.exception.UnauthorizedException;
+import se.vestige_be.pojo.Order;
+import se.vestige_be.pojo.OrderItem;
+import se.vestige_be.pojo.PaymentOutbox;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.pojo.enums.PaymentMethod;
+import se.vestige_be.pojo.enums.PaymentOutboxStatus;
+import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.PaymentOutboxRepository;
+import se.vestige_be.repository.TransactionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sets up Stripe and PayOS payments outside the checkout transaction. Checkout only writes a
+ * payment_outbox row next to the order; once that commits, a small worker pool calls the provider
+ * while holding no database connection and attaches the result in a short transaction of its own.
+ * Failed attempts are retried with backoff by a sweep, which also picks up rows left behind by a
+ * restart or written by another instance. When the attempts run out the order is cancelled, so its
+ * products go back on sale right away, unless a session an earlier attempt may have created cannot be
+ * withdrawn; such an order is left to expire at its deadline, when a PayOS link expires as well. Stripe client secrets are never stored; they are read from
+ * Stripe by PaymentIntent id when the buyer asks for them.
+ */
+@Service
+@Slf4j
+public class PaymentOutboxService {
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PaymentOutboxRepository outboxRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionRepository transactionRepository;
+    private final PaymentGateway paymentGateway;
+    private final OrderExpiryService orderExpiryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Duration awaitTimeout;
+
+    // Outbox ids handed to the workers and not finished yet, so the sweep does not queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    // orderId -> signal for requests waiting on the outcome of that order's attempt
+    private final Map<Long, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    public PaymentOutboxService(PaymentOutboxRepository outboxRepository,
+                                OrderRepository orderRepository,
+                                TransactionRepository transactionRepository,
+                                PaymentGateway paymentGateway,
+                                OrderExpiryService orderExpiryService,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate,
+                                @Value("${app.payments.outbox.workers:8}") int workerCount,
+                                @Value("${app.payments.outbox.max-attempts:5}") int maxAttempts,
+                                @Value("${app.payments.outbox.lease-seconds:120}") long leaseSeconds,
+                                @Value("${app.payments.outbox.retry-backoff-seconds:30}") long retryBackoffSeconds,
+                                @Value("${app.payments.outbox.await-timeout-ms:10000}") long awaitTimeoutMillis) {
+        this.outboxRepository = outboxRepository;
+        this.orderRepository = orderRepository;
+        this.transactionRepository = transactionRepository;
+        this.paymentGateway = paymentGateway;
+        this.orderExpiryService = orderExpiryService;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        // Workers commit on their own; nothing they do may join a caller's transaction
+        this.transactionTemplate = transactionTemplate;
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                Thread.ofPlatform().name("payment-outbox-", 0).daemon(true).factory());
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retryBackoff = Duration.ofSeconds(retryBackoffSeconds);
+        this.awaitTimeout = Duration.ofMillis(awaitTimeoutMillis);
+    }
+
+    /**
+     * Records that the order's payment has to be set up with its provider.
+     * Must be called inside the checkout transaction; the provider is called after it commits.
+     *
+     * @param payosOrderCode order code already stored on the order's transactions, null for Stripe
+     */
+    public void enqueue(Order order, String payosOrderCode) {
+        LocalDateTime now = LocalDateTime.now();
+        PaymentOutbox outbox = outboxRepository.save(PaymentOutbox.builder()
+                .orderId(order.getOrderId())
+                .provider(order.getPaymentMethod())
+                .providerReference(payosOrderCode)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        eventPublisher.publishEvent(new PaymentRequestedEvent(outbox.getId()));
+    }
+
+    /**
+     * Drops Stripe client secrets stored by earlier versions.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            Integer cleared = transactionTemplate.execute(status -> outboxRepository.clearClientTokens(PaymentMethod.STRIPE_CARD));
+            if (cleared != null && cleared > 0) {
+                log.info("Cleared {} stored Stripe client secrets from the payment outbox", cleared);
+            }
+        } catch (Exception e) {
+            log.error("Failed to clear stored Stripe client secrets: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentRequested(PaymentRequestedEvent event) {
+        submit(event.getOutboxId());
+    }
+
+    /**
+     * Queues records whose retry is due or whose worker never finished.
+     */
+    @Scheduled(fixedDelayString = "${app.payments.outbox.sweep-interval-ms:15000}")
+    public void sweep() {
+        List<Long> due = outboxRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+        due.forEach(this::submit);
+    }
+
+    /**
+     * Payment state of the order for its buyer.
+     */
+    public PaymentSessionResponse getPaymentSession(Long orderId, Long userId) {
+        Long buyerId = orderRepository.findBuyerIdById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
+        if (!buyerId.equals(userId)) {
+            throw new UnauthorizedException("User not authorized to access this order");
+        }
+        return findSession(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("No online payment for order: " + orderId));
+    }
+
+    /**
+     * Waits a bounded time for the first attempt of the order's payment setup and returns its state,
+     * which is still PENDING when the provider did not answer in time. Holds no connection while waiting.
+     */
+    public PaymentSessionResponse awaitSession(Long orderId) {
+        CompletableFuture<Void> signal = waiters.computeIfAbsent(orderId, id -> new CompletableFuture<>());
+        try {
+            // Registered before reading, so an attempt finishing in between still completes the signal
+            PaymentOutbox outbox = outboxRepository.findByOrderId(orderId).orElse(null);
+            if (outbox == null || isSettled(outbox)) {
+                return outbox != null ? toResponse(outbox) : null;
+            }
+            signal.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Payment setup for order {} still running after {}", orderId, awaitTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiters.remove(orderId, signal);
+        }
+        return findSession(orderId).orElse(null);
+    }
+
+    private void submit(Long outboxId) {
+        if (!queued.add(outboxId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(outboxId);
+                } catch (Exception e) {
+                    // The lease runs out and the sweep retries it
+                    log.error("Payment outbox record {} failed unexpectedly: {}", outboxId, e.getMessage(), e);
+                } finally {
+                    queued.remove(outboxId);
+                }
+            });
+        } catch (RuntimeException e) {
+            queued.remove(outboxId);
+            log.warn("Could not queue payment outbox record {}: {}", outboxId, e.getMessage());
+        }
+    }
+
+    private void process(Long outboxId) {
+        PaymentGateway.SessionRequest request = transactionTemplate.execute(status -> claim(outboxId));
+        if (request == null) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            PaymentGateway.PaymentSession session = paymentGateway.createSession(request);
+            transactionTemplate.executeWithoutResult(status -> attach(outboxId, request, session));
+            log.info("Payment for order {} set up with {}: {}", request.orderId(), request.provider(), session.reference());
+        } catch (Exception e) {
+            outcome = "failure";
+            log.warn("Payment setup for order {} with {} failed: {}", request.orderId(), request.provider(), e.getMessage());
+            Boolean gaveUp = transactionTemplate.execute(status -> recordFailure(outboxId, e));
+            if (Boolean.TRUE.equals(gaveUp)) {
+                cancelUnpaid(request);
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("payments.provider.requests",
+                    "provider", request.provider().name(), "outcome", outcome));
+            CompletableFuture<Void> signal = waiters.remove(request.orderId());
+            if (signal != null) {
+                signal.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Cancels the order of a payment that could not be set up, so it does not hold its products until
+     * the payment deadline. A failed attempt may still have created a session at the provider, so the
+     * order is only cancelled once the buyer can no longer pay through it.
+     */
+    private void cancelUnpaid(PaymentGateway.SessionRequest request) {
+        try {
+            if (paymentGateway.withdrawSession(request)) {
+                orderExpiryService.cancelUnpaid(request.orderId());
+            } else {
+                log.warn("Payment for order {} went through {} after setup failed; leaving the order open",
+                        request.orderId(), request.provider());
+            }
+        } catch (Exception e) {
+            log.warn("Could not withdraw the {} session of order {}, leaving it to expire at its deadline: {}",
+                    request.provider(), request.orderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the record for one attempt and reads what the provider needs. Null when the record is not
+     * due or its order is no longer waiting for payment.
+     */
+    private PaymentGateway.SessionRequest claim(Long outboxId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxRepository.claim(outboxId, now, now.plus(lease)) == 0) {
+            return null;
+        }
+        PaymentOutbox outbox = outboxRepository.findById(outboxId).orElseThrow();
+        Order order = orderRepository.findByIdWithAllRelationships(outbox.getOrderId()).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING) {
+            outbox.setStatus(PaymentOutboxStatus.CANCELLED);
+            outbox.setCompletedAt(now);
+            return null;
+        }
+
+        OrderItem firstItem = order.getOrderItems().isEmpty() ? null : order.getOrderItems().getFirst();
+        return new PaymentGateway.SessionRequest(order.getOrderId(), outbox.getProvider(), order.getTotalAmount(),
+                outbox.getProviderReference(),
+                firstItem != null ? firstItem.getProduct().getTitle() : "Order " + order.getOrderId(),
+                order.getBuyer().getUsername(),
+                orderExpiryService.getDeadline(order.getCreatedAt()));
+    }
+
+    private void attach(Long outboxId, PaymentGateway.SessionRequest request, PaymentGateway.PaymentSession session) {
+        PaymentOutbox outbox = outboxRepository.findById(outboxId).orElseThrow();
+        outbox.setStatus(PaymentOutboxStatus.COMPLETED);
+        outbox.setProviderReference(session.reference());
+        // The PayOS checkout URL is kept for polling; a Stripe client secret is a credential and is not stored
+        outbox.setClientToken(request.provider() == PaymentMethod.STRIPE_CARD ? null : session.clientToken());
+        outbox.setLastError(null);
+        outbox.setCompletedAt(LocalDateTime.now());
+
+        if (request.provider() == PaymentMethod.STRIPE_CARD) {
+            orderRepository.findById(request.orderId()).ifPresent(order -> {
+                order.setStripePaymentIntentId(session.reference());
+                for (OrderItem item : order.getOrderItems()) {
+                    transactionRepository.findByOrderItemOrderItemId(item.getOrderItemId())
+                            .ifPresent(transaction -> transaction.setStripePaymentIntentId(session.reference()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns true when this was the last attempt.
+     */
+    private boolean recordFailure(Long outboxId, Exception error) {
+        PaymentOutbox outbox = outboxRepository.findById(outboxId).orElseThrow();
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        outbox.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (outbox.getAttempts() >= maxAttempts) {
+            outbox.setStatus(PaymentOutboxStatus.FAILED);
+            outbox.setCompletedAt(LocalDateTime.now());
+            log.error("Giving up on payment setup for order {} after {} attempts", outbox.getOrderId(), outbox.getAttempts());
+            return true;
+        }
+        outbox.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(outbox.getAttempts())));
+        return false;
+    }
+
+    private Optional<PaymentSessionResponse> findSession(Long orderId) {
+        return outboxRepository.findByOrderId(orderId).map(this::toResponse);
+    }
+
+    private static boolean isSettled(PaymentOutbox outbox) {
+        return outbox.getStatus() != PaymentOutboxStatus.PENDING || outbox.getLastError() != null;
+    }
+
+    private PaymentSessionResponse toResponse(PaymentOutbox outbox) {
+        boolean stripe = outbox.getProvider() == PaymentMethod.STRIPE_CARD;
+        String error = switch (outbox.getStatus()) {
+            case PENDING -> outbox.getLastError() != null ? "Payment provider did not respond, retrying" : null;
+            case FAILED -> "Payment could not be initialized. Please place the order again.";
+            case CANCELLED -> "Order is no longer awaiting payment";
+            case COMPLETED -> null;
+        };
+        String clientSecret = null;
+        if (stripe && outbox.getStatus() == PaymentOutboxStatus.COMPLETED) {
+            try {
+                clientSecret = paymentGateway.getClientSecret(outbox.getProviderReference());
+            } catch (Exception e) {
+                log.warn("Could not read client secret of {} for order {}: {}",
+                        outbox.getProviderReference(), outbox.getOrderId(), e.getMessage());
+                error = "Payment provider did not respond, please retry";
+            }
+        }
+        return PaymentSessionResponse.builder()
+                .orderId(outbox.getOrderId())
+                .provider(outbox.getProvider())
+                .status(outbox.getStatus())
+                .attempts(outbox.getAttempts())
+                .paymentIntentId(stripe ? outbox.getProviderReference() : null)
+                .clientSecret(clientSecret)
+                .payosOrderCode(stripe ? null : outbox.getProviderReference())
+                .checkoutUrl(stripe ? null : outbox.getClientToken())
+                .error(error)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,597 @@
+package se.vestige_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.dto.response.ProductFacetResponse;
+import se.vestige_be.dto.response.ProductFilterResponse;
+import se.vestige_be.event.ProductChangedEvent;
+import se.vestige_be.pojo.Product;
+import se.vestige_be.pojo.enums.ProductCondition;
+import se.vestige_be.pojo.enums.ProductStatus;
+import se.vestige_be.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts (category, brand, condition, price range) over ACTIVE products.
+ * Products are stored column-wise in primitive arrays, one row per product, with a bitset of rows
+ * per category, brand and condition value. A request narrows the live rows with those bitsets and
+ * then counts every facet in a single pass over the matching rows. Until the snapshot is built,
+ * the same counts come from one grouped query over the products table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+    // Compact once dead rows outnumber live ones (and there are enough of them to bother)
+    private static final int MIN_DEAD_ROWS_TO_COMPACT = 1024;
+
+    // Lower bounds of the price ranges in VND; the last range is open-ended
+    private static final long[] PRICE_RANGE_FLOORS = {0, 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000};
+    private static final ProductCondition[] CONDITIONS = ProductCondition.values();
+    private static final int NONE = -1;
+
+    private static final Comparator<ProductFacetResponse.FacetValue> BY_COUNT = Comparator
+            .comparingLong(ProductFacetResponse.FacetValue::getCount).reversed()
+            .thenComparing(ProductFacetResponse.FacetValue::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndexService productSearchIndexService;
+    private final CategoryTreeService categoryTreeService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns, indexed by row
+    private int rowCount = 0;
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private long[] sellerIds = new long[INITIAL_CAPACITY];
+    // Price in hundredths of a dong, NONE when unknown
+    private long[] prices = new long[INITIAL_CAPACITY];
+    // Ordinals into the value dictionaries below, NONE when unset
+    private int[] categoryOrds = new int[INITIAL_CAPACITY];
+    private int[] brandOrds = new int[INITIAL_CAPACITY];
+    private int[] conditionOrds = new int[INITIAL_CAPACITY];
+
+    private final BitSet liveRows = new BitSet();
+    private final Map<Long, Integer> rowByProductId = new HashMap<>();
+
+    // Value dictionaries with the rows holding each value
+    private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+    private final List<Long> categoryValues = new ArrayList<>();
+    private final List<BitSet> rowsByCategory = new ArrayList<>();
+    private final Map<Long, Integer> brandOrdinals = new HashMap<>();
+    private final List<Long> brandValues = new ArrayList<>();
+    private final List<String> brandNames = new ArrayList<>();
+    private final List<BitSet> rowsByBrand = new ArrayList<>();
+    private final BitSet[] rowsByCondition = newBitSets(CONDITIONS.length);
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+
+        lock.writeLock().lock();
+        try {
+            clearUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0L;
+        List<Product> batch;
+        do {
+            batch = productRepository.findBatchByStatusWithRelations(
+                    ProductStatus.ACTIVE, lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                batch.forEach(this::upsertUnlocked);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getProductId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        ready = true;
+        log.info("Product facet snapshot built with {} active products in {} ms",
+                size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemoved()) {
+            remove(event.getProductId());
+            return;
+        }
+        productRepository.findByIdWithRelations(event.getProductId())
+                .ifPresentOrElse(this::upsert, () -> remove(event.getProductId()));
+    }
+
+    /**
+     * Adds or refreshes a product. Products that are not ACTIVE are dropped.
+     * Category and brand must already be loaded.
+     */
+    public void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            upsertUnlocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts for the public product filter. Each facet is counted with every filter applied except
+     * its own, so the other values of the facet the user is narrowing on keep their counts.
+     * The status filter does not apply: only ACTIVE products are counted.
+     */
+    public ProductFacetResponse getFacets(ProductFilterResponse filter) {
+        long start = System.nanoTime();
+        List<Long> searchHitIds = hasText(filter.getSearch())
+                ? productSearchIndexService.search(filter.getSearch(), doc -> true).stream()
+                        .map(ProductSearchIndexService.IndexedProduct::getProductId)
+                        .toList()
+                : null;
+        List<Long> categoryIds = filter.getCategoryId() != null
+                ? categoryTreeService.getDescendantIds(filter.getCategoryId())
+                : null;
+        ProductCondition condition = parseCondition(filter.getCondition());
+        long minPrice = filter.getMinPrice() != null ? toHundredths(filter.getMinPrice(), RoundingMode.CEILING) : NONE;
+        long maxPrice = filter.getMaxPrice() != null ? toHundredths(filter.getMaxPrice(), RoundingMode.FLOOR) : NONE;
+        boolean priceFiltered = minPrice != NONE || maxPrice != NONE;
+        long sellerId = filter.getSellerId() != null ? filter.getSellerId() : NONE;
+
+        if (!ready) {
+            // Snapshot still loading after startup
+            return getFacetsFromDatabase(filter, searchHitIds, categoryIds, condition);
+        }
+
+        lock.readLock().lock();
+        try {
+            // Filters shared by every facet
+            BitSet candidates = (BitSet) liveRows.clone();
+            if (searchHitIds != null) {
+                BitSet hits = new BitSet(rowCount);
+                for (Long productId : searchHitIds) {
+                    Integer row = rowByProductId.get(productId);
+                    if (row != null) {
+                        hits.set(row);
+                    }
+                }
+                candidates.and(hits);
+            }
+
+            // Per-facet filters; null means not filtered
+            BitSet categoryRows = null;
+            if (categoryIds != null) {
+                categoryRows = new BitSet(rowCount);
+                for (Long categoryId : categoryIds) {
+                    Integer ord = categoryOrdinals.get(categoryId);
+                    if (ord != null) {
+                        categoryRows.or(rowsByCategory.get(ord));
+                    }
+                }
+            }
+            BitSet brandRows = null;
+            if (filter.getBrandId() != null) {
+                Integer ord = brandOrdinals.get(filter.getBrandId());
+                brandRows = ord != null ? rowsByBrand.get(ord) : new BitSet();
+            }
+            BitSet conditionRows = condition != null ? rowsByCondition[condition.ordinal()] : null;
+
+            long total = 0;
+            long[] categoryCounts = new long[categoryValues.size()];
+            long[] brandCounts = new long[brandValues.size()];
+            long[] conditionCounts = new long[CONDITIONS.length];
+            long[] priceRangeCounts = new long[PRICE_RANGE_FLOORS.length];
+
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (sellerId != NONE && sellerIds[row] != sellerId) {
+                    continue;
+                }
+                long price = prices[row];
+                boolean inCategory = categoryRows == null || categoryRows.get(row);
+                boolean inBrand = brandRows == null || brandRows.get(row);
+                boolean inCondition = conditionRows == null || conditionRows.get(row);
+                boolean inPrice = !priceFiltered || (price != NONE
+                        && (minPrice == NONE || price >= minPrice)
+                        && (maxPrice == NONE || price <= maxPrice));
+
+                if (inBrand && inCondition && inPrice && categoryOrds[row] != NONE) {
+                    categoryCounts[categoryOrds[row]]++;
+                }
+                if (inCategory && inCondition && inPrice && brandOrds[row] != NONE) {
+                    brandCounts[brandOrds[row]]++;
+                }
+                if (inCategory && inBrand && inPrice && conditionOrds[row] != NONE) {
+                    conditionCounts[conditionOrds[row]]++;
+                }
+                if (inCategory && inBrand && inCondition && price != NONE) {
+                    priceRangeCounts[priceRangeOf(price)]++;
+                }
+                if (inCategory && inBrand && inCondition && inPrice) {
+                    total++;
+                }
+            }
+
+            ProductFacetResponse response = ProductFacetResponse.builder()
+                    .totalCount(total)
+                    .categories(toCategoryFacets(byCategoryId(categoryCounts)))
+                    .brands(toBrandFacets(byBrandId(brandCounts), brandNamesById()))
+                    .conditions(toConditionFacets(conditionCounts))
+                    .priceRanges(toPriceRanges(priceRangeCounts))
+                    .build();
+            log.debug("Facets counted over {} candidate rows in {} us",
+                    candidates.cardinality(), (System.nanoTime() - start) / 1000);
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same counting as the snapshot, over groups of products with equal facet values
+    private ProductFacetResponse getFacetsFromDatabase(ProductFilterResponse filter, List<Long> searchHitIds,
+                                                       List<Long> categoryIds, ProductCondition condition) {
+        List<Object[]> groups = searchHitIds != null && searchHitIds.isEmpty()
+                ? List.of()
+                : productRepository.countActiveFacetGroups(filter.getSellerId(), searchHitIds,
+                        filter.getMinPrice(), filter.getMaxPrice(), PRICE_RANGE_FLOORS);
+        Set<Long> categoryFilter = categoryIds != null ? new HashSet<>(categoryIds) : null;
+        Long brandFilter = filter.getBrandId();
+
+        long total = 0;
+        Map<Long, Long> categoryCounts = new HashMap<>();
+        Map<Long, Long> brandCounts = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        long[] conditionCounts = new long[CONDITIONS.length];
+        long[] priceRangeCounts = new long[PRICE_RANGE_FLOORS.length];
+
+        for (Object[] group : groups) {
+            Long categoryId = group[0] != null ? ((Number) group[0]).longValue() : null;
+            Long brandId = group[1] != null ? ((Number) group[1]).longValue() : null;
+            ProductCondition groupCondition = parseCondition((String) group[3]);
+            int priceRange = ((Number) group[4]).intValue();
+            boolean inPrice = ((Number) group[5]).intValue() == 1;
+            long count = ((Number) group[6]).longValue();
+
+            boolean inCategory = categoryFilter == null || categoryFilter.contains(categoryId);
+            boolean inBrand = brandFilter == null || brandFilter.equals(brandId);
+            boolean inCondition = condition == null || condition == groupCondition;
+
+            if (inBrand && inCondition && inPrice && categoryId != null) {
+                categoryCounts.merge(categoryId, count, Long::sum);
+            }
+            if (inCategory && inCondition && inPrice && brandId != null) {
+                brandCounts.merge(brandId, count, Long::sum);
+                names.put(brandId, (String) group[2]);
+            }
+            if (inCategory && inBrand && inPrice && groupCondition != null) {
+                conditionCounts[groupCondition.ordinal()] += count;
+            }
+            if (inCategory && inBrand && inCondition) {
+                priceRangeCounts[priceRange] += count;
+            }
+            if (inCategory && inBrand && inCondition && inPrice) {
+                total += count;
+            }
+        }
+
+        return ProductFacetResponse.builder()
+                .totalCount(total)
+                .categories(toCategoryFacets(categoryCounts))
+                .brands(toBrandFacets(brandCounts, names))
+                .conditions(toConditionFacets(conditionCounts))
+                .priceRanges(toPriceRanges(priceRangeCounts))
+                .build();
+    }
+
+    private void upsertUnlocked(Product product) {
+        if (product.getProductId() == null) {
+            return;
+        }
+        removeUnlocked(product.getProductId());
+        if (!ProductStatus.ACTIVE.equals(product.getStatus())) {
+            return;
+        }
+
+        ensureCapacity(rowCount + 1);
+        int row = rowCount++;
+        productIds[row] = product.getProductId();
+        sellerIds[row] = product.getSeller() != null && product.getSeller().getUserId() != null
+                ? product.getSeller().getUserId() : NONE;
+        prices[row] = product.getPrice() != null ? toHundredths(product.getPrice(), RoundingMode.DOWN) : NONE;
+
+        Long categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        categoryOrds[row] = categoryId != null ? categoryOrdinal(categoryId) : NONE;
+        if (categoryOrds[row] != NONE) {
+            rowsByCategory.get(categoryOrds[row]).set(row);
+        }
+
+        Long brandId = product.getBrand() != null ? product.getBrand().getBrandId() : null;
+        brandOrds[row] = brandId != null ? brandOrdinal(brandId, product.getBrand().getName()) : NONE;
+        if (brandOrds[row] != NONE) {
+            rowsByBrand.get(brandOrds[row]).set(row);
+        }
+
+        conditionOrds[row] = product.getCondition() != null ? product.getCondition().ordinal() : NONE;
+        if (conditionOrds[row] != NONE) {
+            rowsByCondition[conditionOrds[row]].set(row);
+        }
+
+        liveRows.set(row);
+        rowByProductId.put(product.getProductId(), row);
+    }
+
+    private void removeUnlocked(Long productId) {
+        Integer row = rowByProductId.remove(productId);
+        if (row == null) {
+            return;
+        }
+        clearRow(row);
+        int deadRows = rowCount - rowByProductId.size();
+        if (deadRows >= MIN_DEAD_ROWS_TO_COMPACT && deadRows > rowByProductId.size()) {
+            compactUnlocked();
+        }
+    }
+
+    private void clearRow(int row) {
+        liveRows.clear(row);
+        if (categoryOrds[row] != NONE) {
+            rowsByCategory.get(categoryOrds[row]).clear(row);
+        }
+        if (brandOrds[row] != NONE) {
+            rowsByBrand.get(brandOrds[row]).clear(row);
+        }
+        if (conditionOrds[row] != NONE) {
+            rowsByCondition[conditionOrds[row]].clear(row);
+        }
+    }
+
+    // Moves the live rows to the front so dead rows stop costing memory and scan time
+    private void compactUnlocked() {
+        int target = 0;
+        for (int row = liveRows.nextSetBit(0); row >= 0; row = liveRows.nextSetBit(row + 1)) {
+            if (row != target) {
+                productIds[target] = productIds[row];
+                sellerIds[target] = sellerIds[row];
+                prices[target] = prices[row];
+                categoryOrds[target] = categoryOrds[row];
+                brandOrds[target] = brandOrds[row];
+                conditionOrds[target] = conditionOrds[row];
+                rowByProductId.put(productIds[target], target);
+            }
+            target++;
+        }
+        rowCount = target;
+
+        liveRows.clear();
+        liveRows.set(0, rowCount);
+        rowsByCategory.forEach(BitSet::clear);
+        rowsByBrand.forEach(BitSet::clear);
+        Arrays.stream(rowsByCondition).forEach(BitSet::clear);
+        for (int row = 0; row < rowCount; row++) {
+            if (categoryOrds[row] != NONE) {
+                rowsByCategory.get(categoryOrds[row]).set(row);
+            }
+            if (brandOrds[row] != NONE) {
+                rowsByBrand.get(brandOrds[row]).set(row);
+            }
+            if (conditionOrds[row] != NONE) {
+                rowsByCondition[conditionOrds[row]].set(row);
+            }
+        }
+        log.debug("Product facet snapshot compacted to {} rows", rowCount);
+    }
+
+    private void clearUnlocked() {
+        rowCount = 0;
+        liveRows.clear();
+        rowByProductId.clear();
+        categoryOrdinals.clear();
+        categoryValues.clear();
+        rowsByCategory.clear();
+        brandOrdinals.clear();
+        brandValues.clear();
+        brandNames.clear();
+        rowsByBrand.clear();
+        Arrays.stream(rowsByCondition).forEach(BitSet::clear);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        sellerIds = Arrays.copyOf(sellerIds, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        categoryOrds = Arrays.copyOf(categoryOrds, newCapacity);
+        brandOrds = Arrays.copyOf(brandOrds, newCapacity);
+        conditionOrds = Arrays.copyOf(conditionOrds, newCapacity);
+    }
+
+    private int categoryOrdinal(Long categoryId) {
+        return categoryOrdinals.computeIfAbsent(categoryId, id -> {
+            categoryValues.add(id);
+            rowsByCategory.add(new BitSet());
+            return categoryValues.size() - 1;
+        });
+    }
+
+    private int brandOrdinal(Long brandId, String name) {
+        int ord = brandOrdinals.computeIfAbsent(brandId, id -> {
+            brandValues.add(id);
+            brandNames.add(name);
+            rowsByBrand.add(new BitSet());
+            return brandValues.size() - 1;
+        });
+        // Keep the latest name after a brand rename
+        brandNames.set(ord, name);
+        return ord;
+    }
+
+    private Map<Long, Long> byCategoryId(long[] categoryCounts) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int ord = 0; ord < categoryCounts.length; ord++) {
+            if (categoryCounts[ord] > 0) {
+                counts.put(categoryValues.get(ord), categoryCounts[ord]);
+            }
+        }
+        return counts;
+    }
+
+    private Map<Long, Long> byBrandId(long[] brandCounts) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int ord = 0; ord < brandCounts.length; ord++) {
+            if (brandCounts[ord] > 0) {
+                counts.put(brandValues.get(ord), brandCounts[ord]);
+            }
+        }
+        return counts;
+    }
+
+    private Map<Long, String> brandNamesById() {
+        Map<Long, String> names = new HashMap<>();
+        for (int ord = 0; ord < brandValues.size(); ord++) {
+            names.put(brandValues.get(ord), brandNames.get(ord));
+        }
+        return names;
+    }
+
+    // Counts are per direct category; roll them up so a parent includes its subcategories
+    private List<ProductFacetResponse.FacetValue> toCategoryFacets(Map<Long, Long> categoryCounts) {
+        CategoryTreeService.Snapshot tree = categoryTreeService.snapshot();
+        Map<Long, Long> rolledUp = new HashMap<>();
+        categoryCounts.forEach((categoryId, count) -> {
+            if (count == 0) {
+                return;
+            }
+            rolledUp.merge(categoryId, count, Long::sum);
+            CategoryTreeService.Node node = tree.get(categoryId);
+            if (node != null) {
+                for (Long ancestorId : node.getAncestorIds()) {
+                    rolledUp.merge(ancestorId, count, Long::sum);
+                }
+            }
+        });
+
+        List<ProductFacetResponse.FacetValue> facets = new ArrayList<>(rolledUp.size());
+        rolledUp.forEach((categoryId, count) -> {
+            CategoryTreeService.Node node = tree.get(categoryId);
+            facets.add(facetValue(categoryId, node != null ? node.getName() : null, count));
+        });
+        facets.sort(BY_COUNT);
+        return facets;
+    }
+
+    private List<ProductFacetResponse.FacetValue> toBrandFacets(Map<Long, Long> brandCounts, Map<Long, String> names) {
+        List<ProductFacetResponse.FacetValue> facets = new ArrayList<>(brandCounts.size());
+        brandCounts.forEach((brandId, count) -> {
+            if (count > 0) {
+                facets.add(facetValue(brandId, names.get(brandId), count));
+            }
+        });
+        facets.sort(BY_COUNT);
+        return facets;
+    }
+
+    private List<ProductFacetResponse.FacetValue> toConditionFacets(long[] conditionCounts) {
+        List<ProductFacetResponse.FacetValue> facets = new ArrayList<>(CONDITIONS.length);
+        for (ProductCondition condition : CONDITIONS) {
+            facets.add(facetValue(null, condition.name(), conditionCounts[condition.ordinal()]));
+        }
+        return facets;
+    }
+
+    private List<ProductFacetResponse.PriceRange> toPriceRanges(long[] priceRangeCounts) {
+        List<ProductFacetResponse.PriceRange> ranges = new ArrayList<>(PRICE_RANGE_FLOORS.length);
+        for (int i = 0; i < PRICE_RANGE_FLOORS.length; i++) {
+            ranges.add(ProductFacetResponse.PriceRange.builder()
+                    .min(BigDecimal.valueOf(PRICE_RANGE_FLOORS[i]))
+                    .max(i + 1 < PRICE_RANGE_FLOORS.length ? BigDecimal.valueOf(PRICE_RANGE_FLOORS[i + 1]) : null)
+                    .count(priceRangeCounts[i])
+                    .build());
+        }
+        return ranges;
+    }
+
+    private static ProductFacetResponse.FacetValue facetValue(Long id, String name, long count) {
+        return ProductFacetResponse.FacetValue.builder().id(id).name(name).count(count).build();
+    }
+
+    // Ranges are [floor, next floor); prices are in hundredths of a dong
+    private static int priceRangeOf(long price) {
+        for (int i = PRICE_RANGE_FLOORS.length - 1; i > 0; i--) {
+            if (price >= PRICE_RANGE_FLOORS[i] * 100) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static long toHundredths(BigDecimal amount, RoundingMode roundingMode) {
+        return Math.max(0, amount.movePointRight(2).setScale(0, roundingMode).longValue());
+    }
+
+    private static ProductCondition parseCondition(String condition) {
+        if (!hasText(condition)) {
+            return null;
+        }
+        try {
+            return ProductCondition.valueOf(condition.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+}
@@ -0,0 +1,42 @@
+package se.vestige_be.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.event.ProductLikeChangedEvent;
+import se.vestige_be.repository.ProductRepository;
+import se.vestige_be.util.WriteBehindCounter;
+
+/**
+ * Write-behind likes_count maintenance. The product_likes rows are the source of truth and are
+ * written immediately; only the denormalized counter on products is buffered and batched.
+ */
+@Service
+public class ProductLikeCounter {
+
+    private final WriteBehindCounter likes;
+
+    public ProductLikeCounter(ProductRepository productRepository) {
+        this.likes = new WriteBehindCounter("product likes", productRepository::incrementLikeCounts);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductLikeChanged(ProductLikeChangedEvent event) {
+        likes.add(event.getProductId(), event.isLiked() ? 1 : -1);
+    }
+
+    public long pendingLikes(Long productId) {
+        return likes.pending(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.products.like-flush-interval-ms:5000}")
+    public void flush() {
+        likes.flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,89 @@
+package se.vestige_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.vestige_be.event.ProductChangedEvent;
+import se.vestige_be.exception.BusinessLogicException;
+import se.vestige_be.exception.ResourceNotFoundException;
+import se.vestige_be.pojo.Product;
+import se.vestige_be.repository.ProductRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims products for a checkout before anything else is done for the order.
+ * An in-memory claim table turns away concurrent checkouts of the same product on this instance
+ * without a database round trip; the winner then flips the rows from ACTIVE to PENDING_PAYMENT in
+ * one conditional UPDATE, which stays correct across instances. Claims are released when the
+ * checkout transaction completes; a rollback puts the rows back to ACTIVE.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductReservationService {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // productId -> token of the checkout currently claiming it
+    private final Map<Long, Object> claims = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves every product for the current transaction or none of them.
+     * Must be called inside a read-write transaction.
+     */
+    public void reserve(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Product reservation requires an active transaction");
+        }
+
+        Object token = new Object();
+        List<Long> claimed = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            if (claims.putIfAbsent(productId, token) != null) {
+                release(claimed, token);
+                throw new BusinessLogicException("Product " + productId + " is being purchased by another buyer");
+            }
+            claimed.add(productId);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(claimed, token);
+            }
+        });
+
+        List<Long> reserved = productRepository.claimActiveProducts(claimed);
+        if (reserved.size() < claimed.size()) {
+            // Throwing rolls back the rows that were switched
+            Set<Long> unavailable = new LinkedHashSet<>(claimed);
+            reserved.forEach(unavailable::remove);
+            throw unavailable(unavailable);
+        }
+
+        // The bulk update skips the entity listener
+        reserved.forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId, false)));
+        log.debug("Reserved products {} for checkout", reserved);
+    }
+
+    private void release(List<Long> productIds, Object token) {
+        productIds.forEach(productId -> claims.remove(productId, token));
+    }
+
+    private RuntimeException unavailable(Set<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getProductId(), product));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                return new ResourceNotFoundException("Product not found: " + productId);
+            }
+        }
+        Product first = products.get(productIds.iterator().next());
+        return new BusinessLogicException("Product '" + first.getTitle() + "' is not available for purchase");
+    }
+}
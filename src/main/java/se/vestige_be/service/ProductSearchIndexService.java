@@ -0,0 +1,470 @@
+package se.vestige_be.service;
+
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.event.BrandChangedEvent;
+import se.vestige_be.event.CategoryTreeChangedEvent;
+import se.vestige_be.event.ProductChangedEvent;
+import se.vestige_be.pojo.Product;
+import se.vestige_be.pojo.enums.ProductCondition;
+import se.vestige_be.pojo.enums.ProductStatus;
+import se.vestige_be.repository.ProductRepository;
+import se.vestige_be.util.PaginationUtils;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over ACTIVE products.
+ * Replaces the LIKE '%term%' scan for public product search. Like the scan, a query token matches anywhere
+ * inside a word of the title, brand, category or description, but the query is split into tokens that must
+ * all match without having to be adjacent, and matching ignores case and Vietnamese diacritics. Hits are
+ * ranked by the fields they matched in and by whether the token is the whole word, its start or its inside.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final int TITLE_WEIGHT = 8;
+    private static final int BRAND_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 4;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int EXACT_MULTIPLIER = 3;
+    private static final int PREFIX_MULTIPLIER = 2;
+    private static final int INFIX_MULTIPLIER = 1;
+
+    // Cursor order: newest listing first, then highest id
+    private static final Comparator<IndexedProduct> NEWEST_FIRST = Comparator.comparing(IndexedProduct::getCreatedAt)
+            .thenComparing(IndexedProduct::getProductId)
+            .reversed();
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final ProductRepository productRepository;
+
+    // Guards both indexes and the swap between them
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Index being built by rebuild(): product changes go into it as well, and the products they touched
+    // are not overwritten with the possibly older copies read by the rebuild
+    private Index building;
+    private Set<Long> changedWhileBuilding;
+    private volatile boolean ready = false;
+
+    @Value
+    @Builder
+    public static class IndexedProduct {
+        Long productId;
+        String title;
+        Long categoryId;
+        Long brandId;
+        Long sellerId;
+        BigDecimal price;
+        ProductCondition condition;
+        LocalDateTime createdAt;
+        Map<String, Integer> terms;
+    }
+
+    private static class Index {
+        // term -> (productId -> weight of the fields the term appears in)
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        // every suffix of an indexed term -> the terms ending with it, so a token found by prefix
+        // among the suffixes matches anywhere inside a term
+        private final NavigableMap<String, Set<String>> suffixes = new TreeMap<>();
+        private final Map<Long, IndexedProduct> documents = new HashMap<>();
+        // Documents with a creation time in cursor order, kept sorted as they change so a cursor page
+        // starts with a lookup of the cursor instead of a sort of every hit
+        private final NavigableSet<IndexedProduct> newest = new TreeSet<>(NEWEST_FIRST);
+
+        private void put(IndexedProduct document) {
+            remove(document.getProductId());
+            documents.put(document.getProductId(), document);
+            if (document.getCreatedAt() != null) {
+                newest.add(document);
+            }
+            document.getTerms().forEach((term, weight) -> postings.computeIfAbsent(term, t -> {
+                for (int i = 0; i < t.length(); i++) {
+                    suffixes.computeIfAbsent(t.substring(i), suffix -> new HashSet<>()).add(t);
+                }
+                return new HashMap<>();
+            }).put(document.getProductId(), weight));
+        }
+
+        private void remove(Long productId) {
+            IndexedProduct existing = documents.remove(productId);
+            if (existing == null) {
+                return;
+            }
+            if (existing.getCreatedAt() != null) {
+                newest.remove(existing);
+            }
+            existing.getTerms().keySet().forEach(term -> {
+                Map<Long, Integer> productWeights = postings.get(term);
+                if (productWeights == null) {
+                    return;
+                }
+                productWeights.remove(productId);
+                if (productWeights.isEmpty()) {
+                    postings.remove(term);
+                    for (int i = 0; i < term.length(); i++) {
+                        Set<String> terms = suffixes.get(term.substring(i));
+                        if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                            suffixes.remove(term.substring(i));
+                        }
+                    }
+                }
+            });
+        }
+
+        // Best weight per product for a single query token.
+        // When candidates is given, only those products are scored (AND semantics across tokens).
+        private Map<Long, Integer> scoreToken(String token, Map<Long, Integer> candidates) {
+            Map<Long, Integer> tokenScores = new HashMap<>();
+            Set<String> seen = new HashSet<>();
+            suffixes.subMap(token, true, token + Character.MAX_VALUE, true).values().forEach(terms -> terms.forEach(term -> {
+                if (!seen.add(term)) {
+                    return;
+                }
+                int multiplier = term.equals(token) ? EXACT_MULTIPLIER
+                        : term.startsWith(token) ? PREFIX_MULTIPLIER
+                        : INFIX_MULTIPLIER;
+                postings.get(term).forEach((productId, weight) -> {
+                    if (candidates == null || candidates.containsKey(productId)) {
+                        tokenScores.merge(productId, weight * multiplier, Math::max);
+                    }
+                });
+            }));
+            return tokenScores;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The indexed copy of an ACTIVE product, or null when the product is not ACTIVE or unknown.
+     */
+    public IndexedProduct get(Long productId) {
+        lock.readLock().lock();
+        try {
+            return index.documents.get(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new index from the database and swaps it in; searches keep using the current one meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Index next = new Index();
+        Set<Long> changed = new HashSet<>();
+
+        lock.writeLock().lock();
+        try {
+            building = next;
+            changedWhileBuilding = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long lastId = 0L;
+            List<Product> batch;
+            do {
+                batch = productRepository.findBatchByStatusWithRelations(
+                        ProductStatus.ACTIVE, lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                List<IndexedProduct> documents = batch.stream().map(this::toDocument).toList();
+                lock.writeLock().lock();
+                try {
+                    documents.stream()
+                            .filter(document -> !changed.contains(document.getProductId()))
+                            .forEach(next::put);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getProductId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            lock.writeLock().lock();
+            try {
+                index = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = null;
+                changedWhileBuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        ready = true;
+        log.info("Product search index built with {} active products in {} ms",
+                size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemoved()) {
+            remove(event.getProductId());
+            return;
+        }
+        productRepository.findByIdWithRelations(event.getProductId())
+                .ifPresentOrElse(this::index, () -> remove(event.getProductId()));
+    }
+
+    // Category and brand names are indexed with each product, so a rename has to reach every product using them
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCategoryTreeChanged(CategoryTreeChangedEvent event) {
+        reindexWhere(document -> event.getCategoryId().equals(document.getCategoryId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        reindexWhere(document -> event.getBrandId().equals(document.getBrandId()));
+    }
+
+    /**
+     * Adds or refreshes a product. Products that are not ACTIVE are dropped from the index.
+     * Category and brand must already be loaded.
+     */
+    public void index(Product product) {
+        if (product.getProductId() == null) {
+            return;
+        }
+        if (!ProductStatus.ACTIVE.equals(product.getStatus())) {
+            remove(product.getProductId());
+            return;
+        }
+
+        IndexedProduct document = toDocument(product);
+        lock.writeLock().lock();
+        try {
+            index.put(document);
+            if (building != null) {
+                building.put(document);
+                changedWhileBuilding.add(document.getProductId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(productId);
+            if (building != null) {
+                building.remove(productId);
+                changedWhileBuilding.add(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ACTIVE products matching every token of the query and the filter,
+     * best matches first (ties broken by newest listing).
+     */
+    public List<IndexedProduct> search(String query, Predicate<IndexedProduct> filter) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = score(tokens);
+            return scores.keySet().stream()
+                    .map(index.documents::get)
+                    .filter(Objects::nonNull)
+                    .filter(filter)
+                    .sorted(Comparator.<IndexedProduct>comparingInt(doc -> scores.get(doc.getProductId())).reversed()
+                            .thenComparing(IndexedProduct::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit products matching every token of the query and the filter that come after the cursor,
+     * newest first on (createdAt, productId). Products without a creation time are left out.
+     */
+    public List<IndexedProduct> searchNewest(String query, Predicate<IndexedProduct> filter,
+                                             PaginationUtils.Cursor after, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = score(tokens);
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+            NavigableSet<IndexedProduct> remaining = after == null
+                    ? index.newest
+                    : index.newest.tailSet(IndexedProduct.builder()
+                            .createdAt(after.createdAt())
+                            .productId(after.id())
+                            .build(), false);
+
+            // Walking the cursor order visits about limit * documents / hits products to fill a page, which
+            // beats ordering the hits only while they are a large share of the index
+            if ((long) scores.size() * scores.size() >= (long) limit * index.newest.size()) {
+                List<IndexedProduct> page = new ArrayList<>(limit);
+                for (IndexedProduct document : remaining) {
+                    if (scores.containsKey(document.getProductId()) && filter.test(document)) {
+                        page.add(document);
+                        if (page.size() == limit) {
+                            break;
+                        }
+                    }
+                }
+                return page;
+            }
+            IndexedProduct first = remaining.isEmpty() ? null : remaining.first();
+            return scores.keySet().stream()
+                    .map(index.documents::get)
+                    .filter(document -> document != null && document.getCreatedAt() != null)
+                    .filter(document -> first != null && NEWEST_FIRST.compare(document, first) >= 0)
+                    .filter(filter)
+                    .sorted(NEWEST_FIRST)
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Summed best weight per product of the products matching every token; empty when any token has no match
+    private Map<Long, Integer> score(List<String> tokens) {
+        Map<Long, Integer> scores = null;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            Map<Long, Integer> tokenScores = index.scoreToken(token, scores);
+            if (scores != null) {
+                Map<Long, Integer> previous = scores;
+                tokenScores.replaceAll((productId, score) -> score + previous.get(productId));
+            }
+            scores = tokenScores;
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private void reindexWhere(Predicate<IndexedProduct> affected) {
+        List<Long> productIds;
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new TreeSet<>();
+            index.documents.values().stream().filter(affected).forEach(document -> ids.add(document.getProductId()));
+            if (building != null) {
+                building.documents.values().stream().filter(affected).forEach(document -> ids.add(document.getProductId()));
+            }
+            productIds = new ArrayList<>(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (int from = 0; from < productIds.size(); from += REBUILD_BATCH_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + REBUILD_BATCH_SIZE, productIds.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            productRepository.findByProductIdInWithRelations(chunk).forEach(product -> {
+                missing.remove(product.getProductId());
+                index(product);
+            });
+            missing.forEach(this::remove);
+        }
+        if (!productIds.isEmpty()) {
+            log.info("Re-indexed {} products after a category or brand change", productIds.size());
+        }
+    }
+
+    private IndexedProduct toDocument(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, product.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, product.getBrand() != null ? product.getBrand().getName() : null, BRAND_WEIGHT);
+        addTerms(terms, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        return IndexedProduct.builder()
+                .productId(product.getProductId())
+                .title(product.getTitle())
+                .categoryId(product.getCategory() != null ? product.getCategory().getCategoryId() : null)
+                .brandId(product.getBrand() != null ? product.getBrand().getBrandId() : null)
+                .sellerId(product.getSeller() != null ? product.getSeller().getUserId() : null)
+                .price(product.getPrice())
+                .condition(product.getCondition())
+                .createdAt(product.getCreatedAt())
+                .terms(terms)
+                .build();
+    }
+
+    private void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : new HashSet<>(tokenize(text))) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Lower-cases, strips Vietnamese diacritics and splits on anything that is not a letter or digit.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -1,9 +1,12 @@
 package se.vestige_be.service;
 
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -18,6 +21,7 @@ import se.vestige_be.dto.response.PagedResponse;
 import se.vestige_be.dto.response.ProductDetailResponse;
 import se.vestige_be.dto.response.ProductFilterResponse;
 import se.vestige_be.dto.response.ProductListResponse;
+import se.vestige_be.event.ProductLikeChangedEvent;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.exception.ResourceNotFoundException;
 import se.vestige_be.exception.UnauthorizedException;
@@ -37,9 +41,14 @@ import se.vestige_be.util.SlugUtils;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -56,20 +65,85 @@ public class ProductService {
     private final ProductImageRepository productImageRepository;
     private final ProductLikeRepository productLikeRepository;
     private final ProductBoostRepository productBoostRepository;
+    private final ProductSearchIndexService productSearchIndexService;
+    private final CategoryTreeService categoryTreeService;
+    private final BoostedFeedService boostedFeedService;
+    private final ProductViewCounter productViewCounter;
+    private final ProductTrendingService productTrendingService;
+    private final ProductLikeCounter productLikeCounter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Upper bound on index hits handed to the database when the requested sort is not kept in the index
+    private static final int MAX_INDEX_CANDIDATES_FOR_DB_SORT = 1000;
 
     public Page<ProductListResponse> getProducts(ProductFilterResponse filterDto, Pageable pageable) {
         // Check if this is a simple query with default sorting that can benefit from boost prioritization
         if (isSimpleQuery(filterDto) && isDefaultSorting(pageable)) {
+            if (boostedFeedService.isReady()) {
+                // Boosted products come from memory, the rest from an id-only index query
+                return getDefaultFeed(pageable);
+            }
             // Use boost prioritization for simple queries
             Page<Product> products = productRepository.findProductsWithBoostPriority(
                     ProductStatus.ACTIVE, LocalDateTime.now(), pageable);
-            return products.map(this::convertToListResponse);
+            return convertToListResponsePage(products);
+        } else if (canUseSearchIndex(filterDto)) {
+            // Resolve free-text search from the in-memory index instead of LIKE scans
+            return searchWithIndex(filterDto, pageable);
         } else {
             // Use specification-based query for complex filtering
             Specification<Product> spec = buildProductSpecification(filterDto);
             Page<Product> products = productRepository.findAll(spec, pageable);
-            return products.map(this::convertToListResponse);
+            return convertToListResponsePage(products);
+        }
+    }
+
+    private Page<ProductListResponse> getDefaultFeed(Pageable pageable) {
+        List<Long> pageIds = boostedFeedService.getFeedPageIds(pageable.getOffset(), pageable.getPageSize());
+        long total = boostedFeedService.getActiveProductCount();
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, total);
         }
+
+        Map<Long, Product> productsById = productRepository.findByProductIdInWithRelations(pageIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, product -> product));
+        List<ProductListResponse> content = convertToListResponses(pageIds.stream()
+                .map(productsById::get)
+                .filter(product -> product != null)
+                .toList());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Cursor mode for infinite scroll: newest first on (createdAt, productId), no offset and no count query.
+     * Boost prioritization is not applied here since it cannot be expressed as a stable keyset.
+     */
+    public PagedResponse<ProductListResponse> getProductsByCursor(ProductFilterResponse filterDto, String cursor, int size) {
+        PaginationUtils.Cursor after = PaginationUtils.decodeCursor(cursor);
+        int pageSize = PaginationUtils.safeCursorPageSize(size);
+
+        List<Product> rows;
+        if (canUseSearchIndex(filterDto)) {
+            List<Long> ids = productSearchIndexService.searchNewest(filterDto.getSearch(), buildIndexFilter(filterDto),
+                            after, pageSize + 1).stream()
+                    .map(ProductSearchIndexService.IndexedProduct::getProductId)
+                    .toList();
+            Map<Long, Product> productsById = productRepository.findByProductIdInWithRelations(ids).stream()
+                    .collect(Collectors.toMap(Product::getProductId, product -> product));
+            rows = ids.stream().map(productsById::get).filter(product -> product != null).toList();
+        } else {
+            Specification<Product> spec = buildProductSpecification(filterDto)
+                    .and(PaginationUtils.afterCursor(after, "productId"));
+            rows = productRepository.findBy(spec, query -> query
+                    .sortBy(PaginationUtils.keysetSort("productId"))
+                    .limit(pageSize + 1)
+                    .all());
+        }
+
+        Map<Long, String> primaryImageUrls = findPrimaryImageUrls(rows);
+        return PagedResponse.ofCursor(rows, pageSize,
+                product -> convertToListResponse(product, primaryImageUrls.get(product.getProductId())),
+                product -> PaginationUtils.encodeCursor(product.getCreatedAt(), product.getProductId()));
     }
 
     private boolean isSimpleQuery(ProductFilterResponse filterDto) {
@@ -93,12 +167,138 @@ public class ProductService {
                 .anyMatch(order -> "createdAt".equals(order.getProperty()) && order.isDescending());
     }
 
+    private boolean canUseSearchIndex(ProductFilterResponse filterDto) {
+        // The index only holds ACTIVE products, other status filters still go through the database
+        return filterDto.getSearch() != null && !filterDto.getSearch().trim().isEmpty() &&
+               (filterDto.getStatus() == null || ProductStatus.ACTIVE.name().equalsIgnoreCase(filterDto.getStatus())) &&
+               productSearchIndexService.isReady();
+    }
+
+    private Page<ProductListResponse> searchWithIndex(ProductFilterResponse filterDto, Pageable pageable) {
+        List<ProductSearchIndexService.IndexedProduct> hits =
+                productSearchIndexService.search(filterDto.getSearch(), buildIndexFilter(filterDto));
+        if (hits.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Comparator<ProductSearchIndexService.IndexedProduct> comparator = null;
+        if (!isDefaultSorting(pageable)) {
+            comparator = buildIndexComparator(pageable.getSort());
+            if (comparator == null) {
+                // Sort field is not kept in the index (e.g. views/likes): let the database order the best matches
+                List<Long> candidateIds = hits.stream()
+                        .limit(MAX_INDEX_CANDIDATES_FOR_DB_SORT)
+                        .map(ProductSearchIndexService.IndexedProduct::getProductId)
+                        .toList();
+                Specification<Product> spec = Specification.where(fetchListRelations())
+                        .and(hasStatus(ProductStatus.ACTIVE.name()))
+                        .and((root, query, cb) -> root.get("productId").in(candidateIds));
+                return convertToListResponsePage(productRepository.findAll(spec, pageable));
+            }
+        }
+
+        List<ProductSearchIndexService.IndexedProduct> ordered = comparator != null
+                ? hits.stream().sorted(comparator).toList()
+                : hits;
+        int from = (int) Math.min(pageable.getOffset(), ordered.size());
+        int to = Math.min(from + pageable.getPageSize(), ordered.size());
+        List<Long> pageIds = ordered.subList(from, to).stream()
+                .map(ProductSearchIndexService.IndexedProduct::getProductId)
+                .toList();
+
+        Map<Long, Product> productsById = productRepository.findByProductIdInWithRelations(pageIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, product -> product));
+        List<ProductListResponse> content = convertToListResponses(pageIds.stream()
+                .map(productsById::get)
+                .filter(product -> product != null && ProductStatus.ACTIVE.equals(product.getStatus()))
+                .toList());
+
+        return new PageImpl<>(content, pageable, ordered.size());
+    }
+
+    private java.util.function.Predicate<ProductSearchIndexService.IndexedProduct> buildIndexFilter(ProductFilterResponse filterDto) {
+        Set<Long> categoryIds = filterDto.getCategoryId() != null
+                ? resolveCategoryIds(filterDto.getCategoryId())
+                : null;
+        ProductCondition condition = parseCondition(filterDto.getCondition());
+
+        return doc -> (categoryIds == null || categoryIds.contains(doc.getCategoryId())) &&
+                (filterDto.getBrandId() == null || filterDto.getBrandId().equals(doc.getBrandId())) &&
+                (filterDto.getSellerId() == null || filterDto.getSellerId().equals(doc.getSellerId())) &&
+                (condition == null || condition.equals(doc.getCondition())) &&
+                (filterDto.getMinPrice() == null || (doc.getPrice() != null && doc.getPrice().compareTo(filterDto.getMinPrice()) >= 0)) &&
+                (filterDto.getMaxPrice() == null || (doc.getPrice() != null && doc.getPrice().compareTo(filterDto.getMaxPrice()) <= 0));
+    }
+
+    private Comparator<ProductSearchIndexService.IndexedProduct> buildIndexComparator(Sort sort) {
+        Comparator<ProductSearchIndexService.IndexedProduct> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ProductSearchIndexService.IndexedProduct> next = switch (order.getProperty()) {
+                case "createdAt" -> Comparator.comparing(ProductSearchIndexService.IndexedProduct::getCreatedAt,
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                case "price" -> Comparator.comparing(ProductSearchIndexService.IndexedProduct::getPrice,
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                case "title" -> Comparator.comparing(ProductSearchIndexService.IndexedProduct::getTitle,
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                default -> null;
+            };
+            if (next == null) {
+                return null;
+            }
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private Set<Long> resolveCategoryIds(Long categoryId) {
+        List<Long> categoryIds = categoryTreeService.getDescendantIds(categoryId);
+        return categoryIds.isEmpty() ? Set.of(categoryId) : new HashSet<>(categoryIds);
+    }
+
+    private ProductCondition parseCondition(String conditionStr) {
+        if (conditionStr == null || conditionStr.trim().isEmpty()) return null;
+        try {
+            return ProductCondition.valueOf(conditionStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<ProductListResponse> getTopViewedProducts(int limit) {
-        // Create pageable for top N products by viewsCount
-        PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "viewsCount"));
-        Page<Product> page = productRepository.findByStatus(ProductStatus.ACTIVE, pageRequest);
-        return page.map(this::convertToListResponse).getContent();
+        int size = Math.max(1, Math.min(limit, ProductTrendingService.TOP_K));
+        List<Product> products = new ArrayList<>(findActiveInOrder(productTrendingService.getTopProductIds(null, size)));
+
+        if (products.size() < size) {
+            // Not enough recent activity (e.g. right after a restart): top up with all-time most viewed
+            Set<Long> included = products.stream().map(Product::getProductId).collect(Collectors.toSet());
+            PageRequest pageRequest = PageRequest.of(0, size + included.size(), Sort.by(Sort.Direction.DESC, "viewsCount"));
+            productRepository.findByStatus(ProductStatus.ACTIVE, pageRequest).getContent().stream()
+                    .filter(product -> !included.contains(product.getProductId()))
+                    .limit(size - products.size())
+                    .forEach(products::add);
+        }
+        return convertToListResponses(products);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductListResponse> getTrendingProducts(Long categoryId, int limit) {
+        return convertToListResponses(findActiveInOrder(productTrendingService.getTopProductIds(categoryId, limit)));
+    }
+
+    private List<Product> findActiveInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = productRepository.findByProductIdInWithRelations(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, product -> product));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(product -> product != null && ProductStatus.ACTIVE.equals(product.getStatus()))
+                .toList();
     }
 
     public PagedResponse<ProductListResponse> getAllProductsWithAnyStatus(
@@ -122,9 +322,7 @@ public class ProductService {
 
         Specification<Product> spec = buildAdminProductSpecification(filterDto);
         Page<Product> products = productRepository.findAll(spec, pageable);
-        List<ProductListResponse> responseList = products.getContent().stream()
-                .map(this::convertToListResponse)
-                .toList();
+        List<ProductListResponse> responseList = convertToListResponses(products.getContent());
 
         PagedResponse.PageMetadata pagination = PagedResponse.PageMetadata.builder()
                 .currentPage(products.getNumber())
@@ -140,7 +338,7 @@ public class ProductService {
     }
 
     private Specification<Product> buildAdminProductSpecification(ProductFilterResponse filterDto) {
-        Specification<Product> spec = Specification.where(null);
+        Specification<Product> spec = Specification.where(fetchListRelations());
 
         if (filterDto.getSearch() != null && !filterDto.getSearch().trim().isEmpty()) {
             spec = spec.and(hasSearch(filterDto.getSearch()));
@@ -181,7 +379,23 @@ public class ProductService {
         };
     }    public Optional<ProductDetailResponse> getProductById(Long productId) {
         return productRepository.findByIdWithRelations(productId)
-                .map(this::convertToDetailResponse);
+                .map(this::convertToDetailResponse)
+                .map(this::withPendingViews);
+    }
+
+    // Views and likes not yet flushed by the write-behind counters are included so users see their own action counted
+    private ProductDetailResponse withPendingViews(ProductDetailResponse response) {
+        response.setViewsCount(withPending(response.getViewsCount(), productViewCounter.pendingViews(response.getProductId())));
+        response.setLikesCount(withPending(response.getLikesCount(), productLikeCounter.pendingLikes(response.getProductId())));
+        return response;
+    }
+
+    private Integer withPending(Integer stored, long pending) {
+        if (pending == 0) {
+            return stored;
+        }
+        long total = (stored != null ? stored : 0) + pending;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, total));
     }
 
     @Transactional
@@ -497,16 +711,15 @@ public class ProductService {
     }
 
 
-    @Transactional
     public void incrementViewCount(Long productId) {
-        productRepository.findById(productId).ifPresent(product -> {
-            product.setViewsCount(product.getViewsCount() + 1);
-            productRepository.save(product);
-        });
+        // Buffered and written in batches by ProductViewCounter
+        productViewCounter.increment(productId);
+        productTrendingService.recordView(productId);
     }
 
     private Specification<Product> buildProductSpecification(ProductFilterResponse filterDto) {
-        Specification<Product> spec = Specification.where(hasStatus(filterDto.getStatus() != null ? filterDto.getStatus() : ProductStatus.ACTIVE.name()));
+        Specification<Product> spec = Specification.where(fetchListRelations())
+                .and(hasStatus(filterDto.getStatus() != null ? filterDto.getStatus() : ProductStatus.ACTIVE.name()));
 
         if (filterDto.getSearch() != null) spec = spec.and(hasSearch(filterDto.getSearch()));
         if (filterDto.getCategoryId() != null) spec = spec.and(hasCategoryId(filterDto.getCategoryId()));
@@ -523,6 +736,17 @@ public class ProductService {
         return spec;
     }
 
+    // Category and brand are shown on every list item; fetch them with the page instead of one proxy load each
+    private Specification<Product> fetchListRelations() {
+        return (root, query, criteriaBuilder) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("category", JoinType.LEFT);
+                root.fetch("brand", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
     private Specification<Product> hasSearch(String search) {
         return (root, query, criteriaBuilder) -> {
             if (search == null || search.trim().isEmpty()) return null;
@@ -573,7 +797,7 @@ public class ProductService {
             if (categoryId == null) return null;
             
             // Get all category IDs including subcategories for hierarchical filtering
-            List<Long> categoryIds = categoryRepository.findCategoryIdWithAllSubcategoryIds(categoryId);
+            List<Long> categoryIds = categoryTreeService.getDescendantIds(categoryId);
             
             if (categoryIds.isEmpty()) {
                 // If no subcategories found, just filter by the original category
@@ -606,17 +830,33 @@ public class ProductService {
     }
 
 
-    private ProductListResponse convertToListResponse(Product product) {
-        String primaryImageUrl = product.getImages().stream()
-                .filter(img -> Boolean.TRUE.equals(img.getActive()) && Boolean.TRUE.equals(img.getIsPrimary()))
-                .map(ProductImage::getImageUrl)
-                .findFirst()
-                .orElse(product.getImages().stream()
-                        .filter(img -> Boolean.TRUE.equals(img.getActive()))
-                        .min(Comparator.comparingInt(ProductImage::getDisplayOrder))
-                        .map(ProductImage::getImageUrl)
-                        .orElse(null));
+    private Page<ProductListResponse> convertToListResponsePage(Page<Product> products) {
+        Map<Long, String> primaryImageUrls = findPrimaryImageUrls(products.getContent());
+        return products.map(product -> convertToListResponse(product, primaryImageUrls.get(product.getProductId())));
+    }
 
+    private List<ProductListResponse> convertToListResponses(List<Product> products) {
+        Map<Long, String> primaryImageUrls = findPrimaryImageUrls(products);
+        return products.stream()
+                .map(product -> convertToListResponse(product, primaryImageUrls.get(product.getProductId())))
+                .toList();
+    }
+
+    // Cover image of every product in one query instead of initializing each product's image bag
+    private Map<Long, String> findPrimaryImageUrls(List<Product> products) {
+        if (products.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> productIds = products.stream().map(Product::getProductId).toList();
+        Map<Long, String> primaryImageUrls = new HashMap<>();
+        // Rows come primary first, then by display order, so the first row per product wins
+        for (Object[] row : productImageRepository.findActiveImageUrlsByProductIds(productIds)) {
+            primaryImageUrls.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+        return primaryImageUrls;
+    }
+
+    private ProductListResponse convertToListResponse(Product product, String primaryImageUrl) {
         BigDecimal discountPercentage = null;
         boolean hasDiscount = false;
         if (product.getOriginalPrice() != null && product.getPrice() != null &&
@@ -637,8 +877,8 @@ public class ProductService {
                 .size(product.getSize())
                 .color(product.getColor())
                 .status(product.getStatus() != null ? product.getStatus().name() : null)
-                .viewsCount(product.getViewsCount())
-                .likesCount(product.getLikesCount())
+                .viewsCount(withPending(product.getViewsCount(), productViewCounter.pendingViews(product.getProductId())))
+                .likesCount(withPending(product.getLikesCount(), productLikeCounter.pendingLikes(product.getProductId())))
                 .createdAt(product.getCreatedAt())
                 .categoryId(product.getCategory() != null ? product.getCategory().getCategoryId() : null)
                 .categoryName(product.getCategory() != null ? product.getCategory().getName() : null)
@@ -828,9 +1068,7 @@ public class ProductService {
         Specification<Product> spec = buildAdminProductSpecification(filterDto);
         Page<Product> products = productRepository.findAll(spec, pageable);
 
-        List<ProductListResponse> responseList = products.getContent().stream()
-                .map(this::convertToListResponse)
-                .toList();
+        List<ProductListResponse> responseList = convertToListResponses(products.getContent());
 
         PagedResponse.PageMetadata pagination = PagedResponse.PageMetadata.builder()
                 .currentPage(products.getNumber())
@@ -935,10 +1173,10 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with slug: " + slug));
         
         // Increment view count
-        product.setViewsCount(product.getViewsCount() + 1);
-        productRepository.save(product);
+        productViewCounter.increment(product.getProductId());
+        productTrendingService.recordView(product.getProductId());
         
-        return convertToDetailResponse(product);
+        return withPendingViews(convertToDetailResponse(product));
     }
 
     @Transactional(readOnly = true)
@@ -979,31 +1217,34 @@ public class ProductService {
 
     @Transactional
     public boolean likeProduct(Long userId, Long productId) {
-        if (productLikeRepository.findByUserUserIdAndProductProductId(userId, productId).isPresent()) {
+        // Relies on the unique (user, product) key: concurrent likes cannot double count
+        if (productLikeRepository.insertIfAbsent(userId, productId) == 0) {
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product not found with ID: " + productId);
+            }
             return false;
         }
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
-        ProductLike like = ProductLike.builder().user(user).product(product).build();
-        productLikeRepository.save(like);
-        product.setLikesCount(product.getLikesCount() + 1);
-        productRepository.save(product);
+        // Counter and trending score move only once the like has committed
+        eventPublisher.publishEvent(new ProductLikeChangedEvent(productId, true));
         return true;
     }
 
     @Transactional
     public boolean unlikeProduct(Long userId, Long productId) {
-        var likeOpt = productLikeRepository.findByUserUserIdAndProductProductId(userId, productId);
-        if (likeOpt.isEmpty()) {
+        if (productLikeRepository.deleteLike(userId, productId) == 0) {
             return false;
         }
-        productLikeRepository.deleteByUserUserIdAndProductProductId(userId, productId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
-        product.setLikesCount(Math.max(0, product.getLikesCount() - 1));
-        productRepository.save(product);
+        eventPublisher.publishEvent(new ProductLikeChangedEvent(productId, false));
         return true;
     }
+
+    /**
+     * Which of the given products the user has liked, in one query.
+     */
+    public Set<Long> getLikedProductIds(Long userId, List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(productLikeRepository.findLikedProductIds(userId, new HashSet<>(productIds)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package se.vestige_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import se.vestige_be.event.ProductLikeChangedEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding-window popularity of ACTIVE products.
+ * Views and likes are counted in 5-minute buckets over the last 24 hours; a bucket's weight halves
+ * every 6 hours of age. Once a minute the scores are recomputed into bounded top-K lists, globally
+ * and per category, which are then served from memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductTrendingService {
+
+    public static final int TOP_K = 50;
+
+    private static final long BUCKET_MILLIS = 5 * 60 * 1000L;
+    private static final int WINDOW_BUCKETS = 24 * 12;
+    private static final double HALF_LIFE_MILLIS = 6 * 60 * 60 * 1000d;
+
+    private static final long VIEW_POINTS = 1;
+    private static final long LIKE_POINTS = 5;
+
+    private final ProductSearchIndexService productSearchIndexService;
+    private final CategoryTreeService categoryTreeService;
+
+    // bucket index (epoch millis / BUCKET_MILLIS) -> productId -> points
+    private final ConcurrentNavigableMap<Long, Map<Long, LongAdder>> buckets = new ConcurrentSkipListMap<>();
+    private volatile Leaderboard leaderboard = new Leaderboard(List.of(), Map.of());
+
+    public record ScoredProduct(Long productId, double score) {
+    }
+
+    private record Leaderboard(List<ScoredProduct> global, Map<Long, List<ScoredProduct>> byCategory) {
+    }
+
+    private static final Comparator<ScoredProduct> BY_SCORE = Comparator
+            .comparingDouble(ScoredProduct::score)
+            .thenComparing(ScoredProduct::productId);
+
+    public void recordView(Long productId) {
+        record(productId, VIEW_POINTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductLikeChanged(ProductLikeChangedEvent event) {
+        record(event.getProductId(), event.isLiked() ? LIKE_POINTS : -LIKE_POINTS);
+    }
+
+    private void record(Long productId, long points) {
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS;
+        buckets.computeIfAbsent(bucket, b -> new ConcurrentHashMap<>())
+                .computeIfAbsent(productId, id -> new LongAdder())
+                .add(points);
+    }
+
+    /**
+     * Most popular product ids, best first. With a category, its subcategories are included.
+     */
+    public List<Long> getTopProductIds(Long categoryId, int limit) {
+        int size = Math.max(1, Math.min(limit, TOP_K));
+        Leaderboard current = leaderboard;
+        if (categoryId == null) {
+            return current.global().stream().limit(size).map(ScoredProduct::productId).toList();
+        }
+
+        List<Long> categoryIds = categoryTreeService.getDescendantIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            categoryIds = List.of(categoryId);
+        }
+        // Each category keeps its own top-K, so the merged top-K of the subtree is exact
+        return categoryIds.stream()
+                .flatMap(id -> current.byCategory().getOrDefault(id, List.of()).stream())
+                .sorted(BY_SCORE.reversed())
+                .limit(size)
+                .map(ScoredProduct::productId)
+                .toList();
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        long currentBucket = now / BUCKET_MILLIS;
+        // Slide the window
+        buckets.headMap(currentBucket - WINDOW_BUCKETS + 1).clear();
+
+        Map<Long, Double> scores = new HashMap<>();
+        buckets.forEach((bucket, points) -> {
+            double weight = Math.pow(0.5, (now - bucket * BUCKET_MILLIS) / HALF_LIFE_MILLIS);
+            points.forEach((productId, adder) -> scores.merge(productId, adder.sum() * weight, Double::sum));
+        });
+
+        PriorityQueue<ScoredProduct> global = new PriorityQueue<>(BY_SCORE);
+        Map<Long, PriorityQueue<ScoredProduct>> byCategory = new HashMap<>();
+        scores.forEach((productId, score) -> {
+            if (score <= 0) {
+                return;
+            }
+            // Only ACTIVE products are in the search index
+            ProductSearchIndexService.IndexedProduct product = productSearchIndexService.get(productId);
+            if (product == null) {
+                return;
+            }
+            ScoredProduct scored = new ScoredProduct(productId, score);
+            offer(global, scored);
+            if (product.getCategoryId() != null) {
+                offer(byCategory.computeIfAbsent(product.getCategoryId(), id -> new PriorityQueue<>(BY_SCORE)), scored);
+            }
+        });
+
+        Map<Long, List<ScoredProduct>> categoryLists = new HashMap<>();
+        byCategory.forEach((id, heap) -> categoryLists.put(id, toSortedList(heap)));
+        leaderboard = new Leaderboard(toSortedList(global), Map.copyOf(categoryLists));
+        log.debug("Trending leaderboard refreshed from {} scored products", scores.size());
+    }
+
+    private static void offer(PriorityQueue<ScoredProduct> heap, ScoredProduct scored) {
+        heap.offer(scored);
+        if (heap.size() > TOP_K) {
+            heap.poll();
+        }
+    }
+
+    private static List<ScoredProduct> toSortedList(PriorityQueue<ScoredProduct> heap) {
+        List<ScoredProduct> list = new ArrayList<>(heap);
+        list.sort(BY_SCORE.reversed());
+        return List.copyOf(list);
+    }
+}
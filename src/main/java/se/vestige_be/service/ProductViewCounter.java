@@ -0,0 +1,43 @@
+package se.vestige_be.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.vestige_be.repository.ProductRepository;
+import se.vestige_be.util.WriteBehindCounter;
+
+/**
+ * Write-behind view counter for product detail pages.
+ * Views are buffered in a {@link WriteBehindCounter} and periodically written as one batched
+ * relative UPDATE, so concurrent views neither lose increments nor queue on the product row lock.
+ */
+@Service
+public class ProductViewCounter {
+
+    private final WriteBehindCounter views;
+
+    public ProductViewCounter(ProductRepository productRepository) {
+        this.views = new WriteBehindCounter("product views", productRepository::incrementViewCounts);
+    }
+
+    public void increment(Long productId) {
+        views.add(productId, 1);
+    }
+
+    /**
+     * Views recorded but not yet written to the database.
+     */
+    public long pendingViews(Long productId) {
+        return views.pending(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.products.view-flush-interval-ms:5000}")
+    public void flush() {
+        views.flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,52 @@
+package se.vestige_be.service;
+
+import com.stripe.model.PaymentIntent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import se.vestige_be.exception.BusinessLogicException;
+
+/**
+ * Calls Stripe and PayOS for real. Replaced by {@link StubPaymentGateway} when app.payments.stub.enabled is set.
+ */
+@Service
+@ConditionalOnProperty(name = "app.payments.stub.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ProviderPaymentGateway implements PaymentGateway {
+
+    private final StripeService stripeService;
+    private final PayOsService payOsService;
+
+    @Override
+    public PaymentSession createSession(SessionRequest request) throws Exception {
+        return switch (request.provider()) {
+            case STRIPE_CARD -> {
+                // A retry after a lost response gets the same PaymentIntent back
+                PaymentIntent paymentIntent = stripeService.createPlatformCharge(request.amount(), request.orderId(),
+                        "order-" + request.orderId() + "-payment-intent");
+                yield new PaymentSession(paymentIntent.getId(), paymentIntent.getClientSecret());
+            }
+            // A retry after a lost response gets the link the earlier call created
+            case PAYOS -> new PaymentSession(request.reference(), payOsService.createOrderPaymentLink(
+                    request.reference(), request.orderId(), request.amount(),
+                    request.productTitle(), request.buyerUsername(), request.payBy()));
+            default -> throw new BusinessLogicException("No payment provider for " + request.provider());
+        };
+    }
+
+    @Override
+    public boolean withdrawSession(SessionRequest request) throws Exception {
+        return switch (request.provider()) {
+            // The client secret, without which the PaymentIntent cannot be confirmed, is only handed out
+            // once the session was set up
+            case STRIPE_CARD -> true;
+            case PAYOS -> payOsService.cancelOrderPaymentLink(request.reference(), "Payment setup failed");
+            default -> true;
+        };
+    }
+
+    @Override
+    public String getClientSecret(String paymentIntentId) throws Exception {
+        return PaymentIntent.retrieve(paymentIntentId).getClientSecret();
+    }
+}
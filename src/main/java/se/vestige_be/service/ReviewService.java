@@ -1,10 +1,13 @@
 package se.vestige_be.service;
 
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import se.vestige_be.dto.request.CreateReviewRequest;
@@ -12,6 +15,7 @@ import se.vestige_be.dto.request.UpdateReviewRequest;
 import se.vestige_be.dto.response.PagedResponse;
 import se.vestige_be.dto.response.ReviewResponse;
 import se.vestige_be.dto.response.SellerRatingResponse;
+import se.vestige_be.event.OrderChangedEvent;
 import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.exception.ResourceNotFoundException;
 import se.vestige_be.exception.UnauthorizedException;
@@ -21,6 +25,7 @@ import se.vestige_be.pojo.enums.TransactionStatus;
 import se.vestige_be.repository.ReviewRepository;
 import se.vestige_be.repository.TransactionRepository;
 import se.vestige_be.repository.UserRepository;
+import se.vestige_be.util.PaginationUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -37,6 +42,7 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a review for a seller after completing a transaction
@@ -83,6 +89,8 @@ public class ReviewService {
                 .build();
 
         review = reviewRepository.save(review);
+        // The review is shown on the order detail
+        eventPublisher.publishEvent(new OrderChangedEvent(transaction.getOrderItem().getOrder().getOrderId()));
 
         // Update seller's rating statistics
         updateSellerRatingStatistics(transaction.getSeller());
@@ -117,6 +125,7 @@ public class ReviewService {
             }
 
             reviewRepository.save(review);
+            eventPublisher.publishEvent(new OrderChangedEvent(transaction.getOrderItem().getOrder().getOrderId()));
         }
     }
 
@@ -133,6 +142,36 @@ public class ReviewService {
         return PagedResponse.of(reviewResponses);
     }
 
+    /**
+     * Get reviews for a seller in cursor mode (newest first, no count query)
+     */
+    public PagedResponse<ReviewResponse> getSellerReviewsByCursor(Long sellerId, String cursor, int size) {
+        if (!userRepository.existsById(sellerId)) {
+            throw new ResourceNotFoundException("Seller not found: " + sellerId);
+        }
+        PaginationUtils.Cursor after = PaginationUtils.decodeCursor(cursor);
+        int pageSize = PaginationUtils.safeCursorPageSize(size);
+
+        Specification<Review> spec = Specification.<Review>where((root, query, cb) -> {
+                    if (query.getResultType() != Long.class) {
+                        root.fetch("reviewer", JoinType.LEFT);
+                        root.fetch("reviewedUser", JoinType.LEFT);
+                        root.fetch("transaction", JoinType.LEFT)
+                                .fetch("orderItem", JoinType.LEFT)
+                                .fetch("product", JoinType.LEFT);
+                    }
+                    return cb.equal(root.get("reviewedUser").get("userId"), sellerId);
+                })
+                .and(PaginationUtils.afterCursor(after, "reviewId"));
+        List<Review> rows = reviewRepository.findBy(spec, query -> query
+                .sortBy(PaginationUtils.keysetSort("reviewId"))
+                .limit(pageSize + 1)
+                .all());
+
+        return PagedResponse.ofCursor(rows, pageSize, this::convertToReviewResponse,
+                review -> PaginationUtils.encodeCursor(review.getCreatedAt(), review.getReviewId()));
+    }
+
     /**
      * Get all reviews made by a specific user (as buyer)
      */
@@ -0,0 +1,179 @@
+package se.vestige_be.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import se.vestige_be.dto.response.SalesInsightsResponse;
+import se.vestige_be.exception.BusinessLogicException;
+import se.vestige_be.pojo.Brand;
+import se.vestige_be.pojo.Category;
+import se.vestige_be.pojo.User;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.repository.BrandRepository;
+import se.vestige_be.repository.CategoryRepository;
+import se.vestige_be.repository.OrderItemRepository;
+import se.vestige_be.repository.UserRepository;
+import se.vestige_be.util.LongTallyMap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sales breakdowns by category, brand, seller and price band over delivered items. The database
+ * groups the items by (category, brand, seller, price band) with their count and price sum, so only
+ * one row per group comes back; the groups are tallied into primitive-keyed maps in one pass and
+ * only the top entries are resolved to names.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class SalesAggregationService {
+
+    private static final long NONE = Long.MIN_VALUE;
+    // Same floors as the catalog price facet, and as OrderItemRepository.SALES_PRICE_BAND
+    static final long[] PRICE_BAND_FLOORS = {0, 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000};
+    private static final int AMOUNT_SCALE = 2;
+
+    private final OrderItemRepository orderItemRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Platform-wide sales of orders created in [from, to).
+     */
+    public SalesInsightsResponse getSalesInsights(LocalDateTime from, LocalDateTime to, int limit) {
+        validate(from, to);
+        return aggregate(orderItemRepository.sumSalesByGroup(OrderItemStatus.DELIVERED, from, to), from, to, limit, true);
+    }
+
+    /**
+     * One seller's sales of orders created in [from, to), without the seller ranking.
+     */
+    public SalesInsightsResponse getSellerInsights(Long sellerId, LocalDateTime from, LocalDateTime to, int limit) {
+        validate(from, to);
+        return aggregate(orderItemRepository.sumSellerSalesByGroup(sellerId, OrderItemStatus.DELIVERED, from, to),
+                from, to, limit, false);
+    }
+
+    private static void validate(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BusinessLogicException("Start date must be before end date");
+        }
+    }
+
+    private SalesInsightsResponse aggregate(List<Object[]> groups, LocalDateTime from, LocalDateTime to,
+                                            int limit, boolean rankSellers) {
+        Tally tally = new Tally();
+        for (Object[] group : groups) {
+            tally.add(group[0] != null ? ((Number) group[0]).longValue() : NONE,
+                    group[1] != null ? ((Number) group[1]).longValue() : NONE,
+                    ((Number) group[2]).longValue(),
+                    ((Number) group[3]).intValue(),
+                    ((Number) group[4]).longValue(),
+                    toMinorUnits((BigDecimal) group[5]));
+        }
+
+        return SalesInsightsResponse.builder()
+                .startDate(from)
+                .endDate(to)
+                .itemsSold(tally.items)
+                .revenue(toAmount(tally.revenue))
+                .topCategories(ranked(tally.categories.top(limit), ids -> {
+                    Map<Long, String> names = new HashMap<>();
+                    for (Category category : categoryRepository.findAllById(ids)) {
+                        names.put(category.getCategoryId(), category.getName());
+                    }
+                    return names;
+                }))
+                .topBrands(ranked(tally.brands.top(limit), ids -> {
+                    Map<Long, String> names = new HashMap<>();
+                    for (Brand brand : brandRepository.findAllById(ids)) {
+                        names.put(brand.getBrandId(), brand.getName());
+                    }
+                    return names;
+                }))
+                .topSellers(!rankSellers ? List.of() : ranked(tally.sellers.top(limit), ids -> {
+                    Map<Long, String> names = new HashMap<>();
+                    for (User seller : userRepository.findAllById(ids)) {
+                        names.put(seller.getUserId(), seller.getUsername());
+                    }
+                    return names;
+                }))
+                .priceBands(priceBands(tally))
+                .build();
+    }
+
+    private static List<SalesInsightsResponse.RankedValue> ranked(List<LongTallyMap.Entry> entries,
+                                                                  Function<List<Long>, Map<Long, String>> namesById) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> names = namesById.apply(entries.stream().map(LongTallyMap.Entry::key).toList());
+        List<SalesInsightsResponse.RankedValue> values = new ArrayList<>(entries.size());
+        for (LongTallyMap.Entry entry : entries) {
+            values.add(SalesInsightsResponse.RankedValue.builder()
+                    .id(entry.key())
+                    // Null when deleted since
+                    .name(names.get(entry.key()))
+                    .itemsSold(entry.count())
+                    .revenue(toAmount(entry.sum()))
+                    .build());
+        }
+        return values;
+    }
+
+    private static List<SalesInsightsResponse.PriceBand> priceBands(Tally tally) {
+        List<SalesInsightsResponse.PriceBand> bands = new ArrayList<>(PRICE_BAND_FLOORS.length);
+        for (int i = 0; i < PRICE_BAND_FLOORS.length; i++) {
+            bands.add(SalesInsightsResponse.PriceBand.builder()
+                    .min(BigDecimal.valueOf(PRICE_BAND_FLOORS[i]))
+                    .max(i + 1 < PRICE_BAND_FLOORS.length ? BigDecimal.valueOf(PRICE_BAND_FLOORS[i + 1]) : null)
+                    .itemsSold(tally.bandItems[i])
+                    .revenue(toAmount(tally.bandRevenue[i]))
+                    .build());
+        }
+        return bands;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+
+    /**
+     * Running totals of the pass; amounts in minor units.
+     */
+    private static final class Tally {
+        private final LongTallyMap categories = new LongTallyMap();
+        private final LongTallyMap brands = new LongTallyMap();
+        private final LongTallyMap sellers = new LongTallyMap();
+        private final long[] bandItems = new long[PRICE_BAND_FLOORS.length];
+        private final long[] bandRevenue = new long[PRICE_BAND_FLOORS.length];
+        private long items;
+        private long revenue;
+
+        private void add(long categoryId, long brandId, long sellerId, int band, long count, long sum) {
+            if (categoryId != NONE) {
+                categories.add(categoryId, count, sum);
+            }
+            if (brandId != NONE) {
+                brands.add(brandId, count, sum);
+            }
+            sellers.add(sellerId, count, sum);
+            bandItems[band] += count;
+            bandRevenue[band] += sum;
+            items += count;
+            revenue += sum;
+        }
+    }
+}
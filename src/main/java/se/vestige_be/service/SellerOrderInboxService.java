@@ -0,0 +1,239 @@
+package se.vestige_be.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.dto.response.OrderListResponse;
+import se.vestige_be.mapper.OrderMapper;
+import se.vestige_be.pojo.BackfillProgress;
+import se.vestige_be.pojo.Order;
+import se.vestige_be.pojo.OrderItem;
+import se.vestige_be.pojo.SellerOrderInbox;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.repository.BackfillProgressRepository;
+import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.SellerOrderInboxRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Seller order list served from seller_order_inbox, one row per seller per order with the order's
+ * status, the seller's totals, a thumbnail and the serialized list entry. Rows are replaced together
+ * with the order's detail document by {@link OrderDetailViewService#rebuild}, under the same row lock,
+ * for every order the transaction that changed it queued in pending_order_changes; orders from before
+ * the table existed are filled in by a background backfill that walks order ids
+ * past a watermark kept in backfill_progress. Seller lists are only served from here once it is done.
+ */
+@Service
+@Slf4j
+public class SellerOrderInboxService {
+
+    private static final int BACKFILL_BATCH_SIZE = 200;
+    private static final String BACKFILL_NAME = "seller-order-inbox";
+
+    private final SellerOrderInboxRepository inboxRepository;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final BackfillProgressRepository progressRepository;
+    // Only ever goes from false to true
+    private volatile boolean backfillComplete;
+
+    public SellerOrderInboxService(SellerOrderInboxRepository inboxRepository,
+                                   OrderRepository orderRepository,
+                                   OrderMapper orderMapper,
+                                   ObjectMapper objectMapper,
+                                   BackfillProgressRepository progressRepository,
+                                   @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate) {
+        this.inboxRepository = inboxRepository;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.progressRepository = progressRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reader = objectMapper.readerFor(OrderListResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.writer = objectMapper.writerFor(OrderListResponse.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Newest orders first that contain at least one of the seller's items, optionally only those where
+     * one of the seller's items has the given status. An unknown status is ignored.
+     */
+    public Page<OrderListResponse> findOrders(Long sellerId, String status, Pageable pageable) {
+        // Ordering is fixed by the index
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        OrderItemStatus itemStatus = parseItemStatus(status);
+        Page<SellerOrderInbox> rows = itemStatus == null
+                ? inboxRepository.findBySellerIdOrderByCreatedAtDescOrderIdDesc(sellerId, page)
+                : inboxRepository.findBySellerIdAndItemStatus(sellerId, "%," + itemStatus.name() + ",%", page);
+        return rows.map(this::deserialize);
+    }
+
+    /**
+     * Replaces the order's rows from the loaded order. The caller holds the order row lock and has
+     * fetched items with their products, images and sellers.
+     */
+    public void refresh(Order order) {
+        inboxRepository.deleteByOrderId(order.getOrderId());
+        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+            return;
+        }
+
+        String summary = serialize(orderMapper.convertToListResponse(order));
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<OrderItem>> itemsBySeller = order.getOrderItems().stream()
+                .filter(item -> item.getSeller() != null)
+                .collect(Collectors.groupingBy(item -> item.getSeller().getUserId(), LinkedHashMap::new, Collectors.toList()));
+
+        List<SellerOrderInbox> rows = new ArrayList<>(itemsBySeller.size());
+        itemsBySeller.forEach((sellerId, items) -> rows.add(SellerOrderInbox.builder()
+                .sellerId(sellerId)
+                .orderId(order.getOrderId())
+                .createdAt(order.getCreatedAt() != null ? order.getCreatedAt() : now)
+                .orderStatus(order.getStatus())
+                .itemStatuses(items.stream()
+                        .map(item -> item.getStatus().name())
+                        .distinct()
+                        .collect(Collectors.joining(",", ",", ",")))
+                .itemCount(items.size())
+                .subtotal(sum(items, OrderItem::getPrice))
+                .platformFee(sum(items, OrderItem::getPlatformFee))
+                .thumbnailUrl(thumbnail(items))
+                .summary(summary)
+                .updatedAt(now)
+                .build()));
+        inboxRepository.saveAll(rows);
+    }
+
+    public void remove(Long orderId) {
+        inboxRepository.deleteByOrderId(orderId);
+    }
+
+    /**
+     * Whether every order from before the table existed has been given its rows. Until then the seller
+     * order list has to be served from order_items.
+     */
+    public boolean isBackfillComplete() {
+        if (!backfillComplete) {
+            backfillComplete = progressRepository.findById(BACKFILL_NAME)
+                    .map(progress -> progress.getCompletedAt() != null)
+                    .orElse(false);
+        }
+        return backfillComplete;
+    }
+
+    /**
+     * Builds rows for the next batch of orders past the stored watermark and moves the watermark on.
+     * An order that fails is logged and skipped, so it cannot hold the backfill back; it gets its rows
+     * the next time it changes. Once a batch comes back empty the backfill is marked complete and
+     * stops for good on every instance.
+     */
+    @Scheduled(fixedDelay = 10 * 1000, initialDelay = 30 * 1000)
+    public void backfill() {
+        if (isBackfillComplete()) {
+            return;
+        }
+
+        long afterId = progressRepository.findById(BACKFILL_NAME).map(BackfillProgress::getLastId).orElse(0L);
+        List<Long> orderIds = orderRepository.findIdsAfter(afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        if (orderIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    progressRepository.complete(BACKFILL_NAME, afterId, LocalDateTime.now()));
+            backfillComplete = true;
+            log.info("Seller inbox backfill complete up to order {}", afterId);
+            return;
+        }
+
+        int built = 0;
+        for (Long orderId : orderIds) {
+            try {
+                Boolean refreshed = transactionTemplate.execute(status -> {
+                    // Orders changed since the table existed already have their rows
+                    if (inboxRepository.existsByOrderId(orderId) || orderRepository.lockById(orderId).isEmpty()) {
+                        return false;
+                    }
+                    return orderRepository.findByIdWithAllRelationships(orderId)
+                            .map(order -> {
+                                refresh(order);
+                                return true;
+                            })
+                            .orElse(false);
+                });
+                if (Boolean.TRUE.equals(refreshed)) {
+                    built++;
+                }
+            } catch (Exception e) {
+                log.error("Skipping seller inbox backfill of order {}: {}", orderId, e.getMessage(), e);
+            }
+        }
+
+        long lastId = orderIds.get(orderIds.size() - 1);
+        transactionTemplate.executeWithoutResult(status ->
+                progressRepository.advance(BACKFILL_NAME, lastId, LocalDateTime.now()));
+        log.info("Backfilled seller inbox rows for {} of {} orders up to order {}", built, orderIds.size(), lastId);
+    }
+
+    private static OrderItemStatus parseItemStatus(String status) {
+        if (status == null || status.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return OrderItemStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid OrderItemStatus: {}. Returning all items", status);
+            return null;
+        }
+    }
+
+    private static BigDecimal sum(List<OrderItem> items, Function<OrderItem, BigDecimal> value) {
+        return items.stream().map(value).filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static String thumbnail(List<OrderItem> items) {
+        return items.stream()
+                .filter(item -> item.getProduct() != null && item.getProduct().getImages() != null
+                        && !item.getProduct().getImages().isEmpty())
+                .map(item -> item.getProduct().getImages().get(0).getImageUrl())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private OrderListResponse deserialize(SellerOrderInbox row) {
+        try {
+            return reader.readValue(row.getSummary());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable seller inbox entry for order " + row.getOrderId(), e);
+        }
+    }
+
+    private String serialize(OrderListResponse response) {
+        try {
+            return writer.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + response.getOrderId(), e);
+        }
+    }
+}
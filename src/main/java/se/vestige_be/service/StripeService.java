@@ -4,6 +4,7 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.*;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.net.Webhook;
 import com.stripe.param.*;
 import com.stripe.param.checkout.SessionCreateParams;
@@ -132,6 +133,14 @@ public class StripeService {
      * Creates a PaymentIntent to charge buyer - funds held in platform account for escrow
      */
     public PaymentIntent createPlatformCharge(BigDecimal totalAmount, Long orderId) throws StripeException {
+        return createPlatformCharge(totalAmount, orderId, null);
+    }
+
+    /**
+     * Same as {@link #createPlatformCharge(BigDecimal, Long)}; retries carrying the same idempotency key
+     * get the PaymentIntent of the first call back instead of a second one.
+     */
+    public PaymentIntent createPlatformCharge(BigDecimal totalAmount, Long orderId, String idempotencyKey) throws StripeException {
         try {
             long amountInVND = totalAmount.longValue();
 
@@ -148,7 +157,10 @@ public class StripeService {
                     .putMetadata("type", "escrow_charge")
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            RequestOptions requestOptions = idempotencyKey != null
+                    ? RequestOptions.builder().setIdempotencyKey(idempotencyKey).build()
+                    : RequestOptions.getDefault();
+            PaymentIntent paymentIntent = PaymentIntent.create(params, requestOptions);
             log.info("Created PaymentIntent {} for order {} amount {} VND",
                     paymentIntent.getId(), orderId, amountInVND);
             return paymentIntent; // <-- Trả về cả đối tượng PaymentIntent
@@ -0,0 +1,48 @@
+package se.vestige_be.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import se.vestige_be.pojo.enums.PaymentMethod;
+
+/**
+ * Local stand-in for Stripe and PayOS that answers after a configurable delay, for load tests of the
+ * checkout path. With a large delay, hikaricp.connections.active should stay where it is without one.
+ */
+@Service
+@ConditionalOnProperty(name = "app.payments.stub.enabled", havingValue = "true")
+@Slf4j
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final long latencyMillis;
+    private final String frontendUrl;
+
+    public StubPaymentGateway(@Value("${app.payments.stub.latency-ms:2000}") long latencyMillis,
+                              @Value("${app.frontend.url:https://vestigehouse.vercel.app}") String frontendUrl) {
+        this.latencyMillis = latencyMillis;
+        this.frontendUrl = frontendUrl;
+        log.warn("Payments are stubbed: no provider is called, every session answers after {} ms", latencyMillis);
+    }
+
+    @Override
+    public PaymentSession createSession(SessionRequest request) throws Exception {
+        Thread.sleep(latencyMillis);
+        if (request.provider() == PaymentMethod.PAYOS) {
+            return new PaymentSession(request.reference(),
+                    frontendUrl + "/checkout/success?orderId=" + request.orderId() + "&stub=true");
+        }
+        String paymentIntentId = "pi_stub_" + request.orderId();
+        return new PaymentSession(paymentIntentId, getClientSecret(paymentIntentId));
+    }
+
+    @Override
+    public boolean withdrawSession(SessionRequest request) {
+        return true;
+    }
+
+    @Override
+    public String getClientSecret(String paymentIntentId) {
+        return paymentIntentId + "_secret_stub";
+    }
+}
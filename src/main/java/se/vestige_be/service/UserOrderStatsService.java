@@ -0,0 +1,179 @@
+package se.vestige_be.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.vestige_be.configuration.TransactionConfig;
+import se.vestige_be.pojo.UserOrderStats;
+import se.vestige_be.pojo.enums.OrderChangeConsumer;
+import se.vestige_be.pojo.enums.OrderItemStatus;
+import se.vestige_be.pojo.enums.OrderStatus;
+import se.vestige_be.repository.PendingOrderChangeRepository;
+import se.vestige_be.repository.UserOrderStatsRepository;
+import se.vestige_be.repository.UserOrderStatsRepositoryCustom.UserWithStats;
+
+import java.util.*;
+
+/**
+ * Keeps user_order_stats in step with orders and order items. The transaction that changes an order
+ * queues it in pending_order_changes, and the rows of its buyer and sellers are recomputed a few seconds
+ * later with one set-based upsert per batch.
+ * Users without a row are filled in by a background backfill, or on first read; a full rebuild can be
+ * triggered by an admin.
+ */
+@Service
+@Slf4j
+public class UserOrderStatsService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final UserOrderStatsRepository statsRepository;
+    private final PendingOrderChangeRepository pendingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader countsReader;
+
+    public UserOrderStatsService(UserOrderStatsRepository statsRepository,
+                                 PendingOrderChangeRepository pendingRepository,
+                                 ObjectMapper objectMapper,
+                                 @Qualifier(TransactionConfig.REQUIRES_NEW_TEMPLATE) TransactionTemplate transactionTemplate) {
+        this.statsRepository = statsRepository;
+        this.pendingRepository = pendingRepository;
+        // Each batch commits on its own, also when called from inside a (read-only) transaction
+        this.transactionTemplate = transactionTemplate;
+        this.countsReader = objectMapper.readerFor(new TypeReference<Map<String, Long>>() {
+        });
+    }
+
+    /**
+     * Recomputes the buyers and sellers of the next batch of queued orders. The orders are taken off the
+     * queue before their users' rows are read, in the same transaction, so a change committed meanwhile
+     * is queued again; a batch that fails stays queued for the next run.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void refreshChangedUsers() {
+        List<Long> orderIds = pendingRepository.findOrderIds(
+                OrderChangeConsumer.USER_ORDER_STATS, PageRequest.of(0, BATCH_SIZE));
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                pendingRepository.deleteByConsumerAndOrderIds(OrderChangeConsumer.USER_ORDER_STATS, orderIds);
+                List<Long> userIds = new ArrayList<>(new TreeSet<>(statsRepository.findUserIdsOfOrders(orderIds)));
+                for (int from = 0; from < userIds.size(); from += BATCH_SIZE) {
+                    statsRepository.recompute(userIds.subList(from, Math.min(userIds.size(), from + BATCH_SIZE)));
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to recompute order statistics for users of orders {}: {}", orderIds, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds rows for users that have none, a batch per run.
+     */
+    @Scheduled(fixedDelay = 60 * 1000, initialDelay = 45 * 1000)
+    public void backfill() {
+        List<Long> userIds = statsRepository.findUserIdsWithoutRows(BATCH_SIZE);
+        if (!userIds.isEmpty() && recompute(userIds)) {
+            log.info("Backfilled order statistics for {} users", userIds.size());
+        }
+    }
+
+    /**
+     * Recomputes every user's row, in batches that each commit on their own. Returns the number of users.
+     */
+    public int rebuildAll() {
+        int rebuilt = 0;
+        long afterId = 0;
+        List<Long> userIds;
+        while (!(userIds = statsRepository.findUserIdsAfter(afterId, BATCH_SIZE)).isEmpty()) {
+            if (recompute(userIds)) {
+                rebuilt += userIds.size();
+            }
+            afterId = userIds.getLast();
+        }
+        log.info("Rebuilt order statistics for {} users", rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Rows of the given users by user id; rows not built yet are computed first.
+     */
+    public Map<Long, UserOrderStats> getStats(Collection<Long> userIds) {
+        Map<Long, UserOrderStats> stats = new HashMap<>();
+        statsRepository.findAllById(userIds).forEach(row -> stats.put(row.getUserId(), row));
+
+        List<Long> missing = userIds.stream().filter(id -> !stats.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty() && recompute(missing)) {
+            statsRepository.findAllById(missing).forEach(row -> stats.put(row.getUserId(), row));
+        }
+        return stats;
+    }
+
+    /**
+     * Page of users with their statistics in one joined query; rows not built yet are computed first.
+     */
+    public Page<UserWithStats> findUsersWithStats(String search, Boolean isVerified, String accountStatus, Pageable pageable) {
+        Page<UserWithStats> page = statsRepository.findUsersWithStats(search, isVerified, accountStatus, pageable);
+        List<Long> missing = page.getContent().stream()
+                .filter(row -> row.stats() == null)
+                .map(row -> row.user().getUserId())
+                .toList();
+        if (missing.isEmpty()) {
+            return page;
+        }
+        Map<Long, UserOrderStats> built = getStats(missing);
+        return page.map(row -> row.stats() != null ? row
+                : new UserWithStats(row.user(), built.get(row.user().getUserId())));
+    }
+
+    /**
+     * Buyer order count per status, every status present.
+     */
+    public Map<OrderStatus, Long> getBuyerStatusCounts(UserOrderStats stats) {
+        return statusCounts(OrderStatus.values(), stats != null ? stats.getBuyerStatusCounts() : null);
+    }
+
+    /**
+     * Sold item count per status, every status present.
+     */
+    public Map<OrderItemStatus, Long> getSellerStatusCounts(UserOrderStats stats) {
+        return statusCounts(OrderItemStatus.values(), stats != null ? stats.getSellerStatusCounts() : null);
+    }
+
+    private <S extends Enum<S>> Map<S, Long> statusCounts(S[] statuses, String json) {
+        Map<String, Long> stored = Map.of();
+        if (json != null) {
+            try {
+                stored = countsReader.readValue(json);
+            } catch (JsonProcessingException e) {
+                log.warn("Unreadable status counts {}: {}", json, e.getMessage());
+            }
+        }
+        Map<S, Long> counts = new LinkedHashMap<>();
+        for (S status : statuses) {
+            counts.put(status, stored.getOrDefault(status.name(), 0L));
+        }
+        return counts;
+    }
+
+    private boolean recompute(Collection<Long> userIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> statsRepository.recompute(userIds));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to recompute order statistics for users {}: {}", userIds, e.getMessage(), e);
+            return false;
+        }
+    }
+}
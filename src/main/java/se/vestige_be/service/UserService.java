@@ -5,6 +5,7 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,16 +23,19 @@ import se.vestige_be.exception.BusinessLogicException;
 import se.vestige_be.exception.ResourceNotFoundException;
 import se.vestige_be.pojo.Role;
 import se.vestige_be.pojo.User;
+import se.vestige_be.pojo.UserOrderStats;
 import se.vestige_be.pojo.enums.OrderStatus;
 import se.vestige_be.pojo.enums.ProductStatus;
 import se.vestige_be.repository.ProductRepository;
 import se.vestige_be.repository.RoleRepository;
-import se.vestige_be.repository.OrderRepository;
+import se.vestige_be.repository.UserOrderStatsRepositoryCustom.UserWithStats;
 import se.vestige_be.repository.UserRepository;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -44,7 +48,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final ProductRepository productRepository;
-    private final OrderRepository orderRepository;
+    private final UserOrderStatsService userOrderStatsService;
     private final PasswordEncoder passwordEncoder;
 
     public List<User> findAllUsers() {
@@ -420,81 +424,67 @@ public class UserService {
     public UserStatisticsResponse getUserStatistics(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        // Get order statistics (you'll need to implement these in OrderService or repository)
-        Long totalOrders = getTotalOrdersForUser(userId);
-        Long completedOrders = getCompletedOrdersForUser(userId);
-        Long pendingOrders = getPendingOrdersForUser(userId);
-        Long cancelledOrders = getCancelledOrdersForUser(userId);
-        BigDecimal totalOrderValue = getTotalOrderValueForUser(userId);
-        BigDecimal averageOrderValue = totalOrders > 0 ?
-                totalOrderValue.divide(BigDecimal.valueOf(totalOrders), 2, BigDecimal.ROUND_HALF_UP) :
-            BigDecimal.ZERO;
-
-        // Get product statistics
-        Long totalProductsListed = productRepository.countBySellerUserId(userId);
-        Long activeProducts = productRepository.countBySellerUserIdAndStatus(userId, ProductStatus.ACTIVE);
-        Long soldProducts = productRepository.countBySellerUserIdAndStatus(userId, ProductStatus.SOLD);
-
-        return UserStatisticsResponse.builder()
-                .userId(user.getUserId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .fullName(user.getFirstName() + " " + user.getLastName())
-                .joinedDate(user.getJoinedDate())
-                .accountStatus(user.getAccountStatus())
-                .isVerified(user.getIsVerified())
-                .totalOrders(totalOrders)
-                .completedOrders(completedOrders)
-                .pendingOrders(pendingOrders)
-                .cancelledOrders(cancelledOrders)
-                .totalOrderValue(totalOrderValue)
-                .averageOrderValue(averageOrderValue)
-                .totalProductsListed(totalProductsListed)
-                .activeProducts(activeProducts)
-                .soldProducts(soldProducts)
-                .lastLoginDate(user.getLastLoginAt())
-                .lastOrderDate(getLastOrderDateForUser(userId))
-                .lastProductListingDate(getLastProductListingDateForUser(userId))
-                .build();
+        UserOrderStats stats = userOrderStatsService.getStats(List.of(userId)).get(userId);
+        return buildUserStatistics(List.of(new UserWithStats(user, stats))).getFirst();
     }
 
     public PagedResponse<UserStatisticsResponse> getAllUsersWithStatistics(Pageable pageable, String search, Boolean isVerified, String accountStatus) {
-        Specification<User> spec = buildUserSpecification(search, isVerified, accountStatus);
-        Page<User> users = userRepository.findAll(spec, pageable);
-        Page<UserStatisticsResponse> userStatistics = users.map(user -> getUserStatistics(user.getUserId()));
-        return PagedResponse.of(userStatistics);
-    }
-
-    // Helper methods for order statistics
-    private Long getTotalOrdersForUser(Long userId) {
-        return orderRepository.countByBuyerUserId(userId);
+        Page<UserWithStats> users = userOrderStatsService.findUsersWithStats(search, isVerified, accountStatus, pageable);
+        List<UserStatisticsResponse> statistics = buildUserStatistics(users.getContent());
+        return PagedResponse.of(new PageImpl<>(statistics, pageable, users.getTotalElements()));
     }
 
-    private Long getCompletedOrdersForUser(Long userId) {
-        return orderRepository.countByBuyerUserIdAndStatus(userId, OrderStatus.DELIVERED);
-    }
-
-    private Long getPendingOrdersForUser(Long userId) {
-        return orderRepository.countByBuyerUserIdAndStatus(userId, OrderStatus.PENDING) +
-               orderRepository.countByBuyerUserIdAndStatus(userId, OrderStatus.PROCESSING) +
-               orderRepository.countByBuyerUserIdAndStatus(userId, OrderStatus.OUT_FOR_DELIVERY);
-    }
-
-    private Long getCancelledOrdersForUser(Long userId) {
-        return orderRepository.countByBuyerUserIdAndStatus(userId, OrderStatus.CANCELLED);
-    }
-
-    private BigDecimal getTotalOrderValueForUser(Long userId) {
-        return orderRepository.sumTotalAmountByBuyerUserId(userId);
-    }
-
-    private LocalDateTime getLastOrderDateForUser(Long userId) {
-        return orderRepository.findLastOrderDateByBuyerUserId(userId);
-    }
+    /**
+     * Statistics for a page of users from their user_order_stats rows and one grouped product query.
+     */
+    private List<UserStatisticsResponse> buildUserStatistics(List<UserWithStats> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        List<Long> userIds = users.stream().map(row -> row.user().getUserId()).toList();
+        Map<Long, Object[]> listings = new HashMap<>();
+        for (Object[] row : productRepository.summarizeListingsBySellerUserIds(userIds, ProductStatus.ACTIVE, ProductStatus.SOLD)) {
+            listings.put((Long) row[0], row);
+        }
 
-    private LocalDateTime getLastProductListingDateForUser(Long userId) {
-        return productRepository.findLastListingDateBySellerUserId(userId);
+        List<UserStatisticsResponse> statistics = new ArrayList<>(users.size());
+        for (UserWithStats row : users) {
+            User user = row.user();
+            UserOrderStats stats = row.stats();
+            Map<OrderStatus, Long> statusCounts = userOrderStatsService.getBuyerStatusCounts(stats);
+            Object[] listing = listings.get(user.getUserId());
+
+            long totalOrders = stats != null ? stats.getBuyerOrders() : 0;
+            BigDecimal totalOrderValue = stats != null ? stats.getBuyerOrderValue() : BigDecimal.ZERO;
+            BigDecimal averageOrderValue = totalOrders > 0 ?
+                    totalOrderValue.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP) :
+                    BigDecimal.ZERO;
+
+            statistics.add(UserStatisticsResponse.builder()
+                    .userId(user.getUserId())
+                    .username(user.getUsername())
+                    .email(user.getEmail())
+                    .fullName(user.getFirstName() + " " + user.getLastName())
+                    .joinedDate(user.getJoinedDate())
+                    .accountStatus(user.getAccountStatus())
+                    .isVerified(user.getIsVerified())
+                    .totalOrders(totalOrders)
+                    .completedOrders(statusCounts.get(OrderStatus.DELIVERED))
+                    .pendingOrders(statusCounts.get(OrderStatus.PENDING)
+                            + statusCounts.get(OrderStatus.PROCESSING)
+                            + statusCounts.get(OrderStatus.OUT_FOR_DELIVERY))
+                    .cancelledOrders(statusCounts.get(OrderStatus.CANCELLED))
+                    .totalOrderValue(totalOrderValue)
+                    .averageOrderValue(averageOrderValue)
+                    .totalProductsListed(listing != null ? ((Number) listing[1]).longValue() : 0L)
+                    .activeProducts(listing != null ? ((Number) listing[2]).longValue() : 0L)
+                    .soldProducts(listing != null ? ((Number) listing[3]).longValue() : 0L)
+                    .lastLoginDate(user.getLastLoginAt())
+                    .lastOrderDate(stats != null ? stats.getLastOrderAt() : null)
+                    .lastProductListingDate(listing != null ? (LocalDateTime) listing[4] : null)
+                    .build());
+        }
+        return statistics;
     }
 
     public Object getUserActivitySummary(int days) {
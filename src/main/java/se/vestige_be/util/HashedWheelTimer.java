@@ -0,0 +1,116 @@
+package se.vestige_be.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Minimal hashed wheel timer for keyed deadlines.
+ * Scheduling and cancelling are O(1); each tick only visits the entries hashed to the current bucket.
+ * Deadlines fire with at most one tick of delay. Expiry callbacks run on the timer thread.
+ */
+@Slf4j
+public class HashedWheelTimer<K> implements AutoCloseable {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Set<Entry<K>>> wheel;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final Consumer<K> onExpire;
+    private final long startMillis;
+    private final ScheduledExecutorService ticker;
+    private long currentTick = 0;
+
+    private record Entry<K>(K key, long targetTick) {
+    }
+
+    /**
+     * @param wheelSize rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<K> onExpire) {
+        this.tickMillis = Math.max(1, unit.toMillis(tickDuration));
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new HashSet<>());
+        }
+        this.onExpire = onExpire;
+        this.startMillis = System.currentTimeMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the key to expire at the given epoch millis, replacing any previous deadline for it.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancelUnlocked(key);
+        long ticksFromStart = (deadlineMillis - startMillis + tickMillis - 1) / tickMillis;
+        Entry<K> entry = new Entry<>(key, Math.max(currentTick + 1, ticksFromStart));
+        entries.put(key, entry);
+        wheel.get((int) (entry.targetTick() & mask)).add(entry);
+    }
+
+    public synchronized void cancel(K key) {
+        cancelUnlocked(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        wheel.forEach(Set::clear);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void cancelUnlocked(K key) {
+        Entry<K> existing = entries.remove(key);
+        if (existing != null) {
+            wheel.get((int) (existing.targetTick() & mask)).remove(existing);
+        }
+    }
+
+    private void tick() {
+        List<K> expired = new ArrayList<>();
+        synchronized (this) {
+            currentTick++;
+            Iterator<Entry<K>> bucket = wheel.get((int) (currentTick & mask)).iterator();
+            while (bucket.hasNext()) {
+                Entry<K> entry = bucket.next();
+                if (entry.targetTick() <= currentTick) {
+                    bucket.remove();
+                    entries.remove(entry.key());
+                    expired.add(entry.key());
+                }
+            }
+        }
+        for (K key : expired) {
+            try {
+                onExpire.accept(key);
+            } catch (Exception e) {
+                log.error("Expiry callback failed for {}: {}", key, e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package se.vestige_be.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Open-addressing map from a primitive long key to a count and a sum, without boxing keys or values.
+ * Not thread-safe.
+ */
+public class LongTallyMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] sums;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * One key with its tallies.
+     */
+    public record Entry(long key, long count, long sum) {
+    }
+
+    public LongTallyMap() {
+        this(16);
+    }
+
+    public LongTallyMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public void add(long key, long count, long sum) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            if (++size > keys.length * LOAD_FACTOR) {
+                resize();
+                slot = slot(key);
+            }
+        }
+        counts[slot] += count;
+        sums[slot] += sum;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Entries with the highest count first, ties broken by the higher sum.
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                entries.add(new Entry(keys[i], counts[i], sums[i]));
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).thenComparingLong(Entry::sum).reversed());
+        return entries.size() > limit ? List.copyOf(entries.subList(0, limit)) : entries;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                sums[slot] = oldSums[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        sums = new long[capacity];
+        used = new boolean[capacity];
+    }
+}
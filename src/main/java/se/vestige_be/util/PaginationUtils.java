@@ -3,7 +3,13 @@ package se.vestige_be.util;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import se.vestige_be.exception.BusinessLogicException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,4 +42,60 @@ public class PaginationUtils {
         return filters;
     }
 
+    /**
+     * Position of the last row of a keyset page: listings in cursor mode are ordered by
+     * (createdAt DESC, id DESC) and the next page starts strictly after this pair.
+     */
+    public record Cursor(LocalDateTime createdAt, Long id) {
+    }
+
+    public static int safeCursorPageSize(int size) {
+        return Math.max(1, Math.min(size, 100));
+    }
+
+    public static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a blank cursor (first page).
+     */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new BusinessLogicException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessLogicException("Invalid cursor");
+        }
+    }
+
+    public static Sort keysetSort(String idAttribute) {
+        return Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, idAttribute));
+    }
+
+    /**
+     * Rows strictly after the cursor in (createdAt DESC, id DESC) order; matches everything when cursor is null.
+     */
+    public static <T> Specification<T> afterCursor(Cursor cursor, String idAttribute) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return cb.conjunction();
+            }
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                    cb.and(
+                            cb.equal(root.get("createdAt"), cursor.createdAt()),
+                            cb.lessThan(root.get(idAttribute), cursor.id())));
+        };
+    }
+
 }
@@ -0,0 +1,71 @@
+package se.vestige_be.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-key counter deltas buffered in memory and handed to a writer in one batch.
+ * Deltas are merged into the map and drained with an atomic remove, so every delta lands either in
+ * the batch being written or in the next one; a failed write merges its batch back for a retry.
+ */
+@Slf4j
+public class WriteBehindCounter {
+
+    private final String name;
+    private final BiConsumer<List<Long>, List<Long>> writer;
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    // Drained but not yet written, still reported by pending(key)
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param writer receives parallel lists of keys and deltas
+     */
+    public WriteBehindCounter(String name, BiConsumer<List<Long>, List<Long>> writer) {
+        this.name = name;
+        this.writer = writer;
+    }
+
+    public void add(Long key, long delta) {
+        pending.merge(key, delta, Long::sum);
+    }
+
+    public long pending(Long key) {
+        return pending.getOrDefault(key, 0L) + inFlight.getOrDefault(key, 0L);
+    }
+
+    public synchronized void flush() {
+        List<Long> keys = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Long key : pending.keySet()) {
+            // Adds racing with the remove either make it into this value or start a new entry
+            Long delta = pending.remove(key);
+            if (delta != null && delta != 0) {
+                inFlight.put(key, delta);
+                keys.add(key);
+                deltas.add(delta);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            writer.accept(keys, deltas);
+        } catch (Exception e) {
+            inFlight.clear();
+            for (int i = 0; i < keys.size(); i++) {
+                pending.merge(keys.get(i), deltas.get(i), Long::sum);
+            }
+            log.error("Failed to flush {} for {} keys, keeping them for the next flush: {}",
+                    name, keys.size(), e.getMessage());
+            return;
+        }
+        inFlight.clear();
+        log.debug("Flushed {} for {} keys", name, keys.size());
+    }
+}
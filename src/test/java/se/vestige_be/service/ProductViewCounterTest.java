@@ -0,0 +1,67 @@
+package se.vestige_be.service;
+
+import org.junit.jupiter.api.Test;
+import se.vestige_be.repository.ProductRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ProductViewCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int VIEWS_PER_THREAD = 20_000;
+    private static final long PRODUCTS = 4;
+
+    @Test
+    void viewsRecordedDuringFlushesAreAllWritten() throws Exception {
+        Map<Long, Long> written = new ConcurrentHashMap<>();
+        ProductRepository productRepository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            List<Long> productIds = invocation.getArgument(0);
+            List<Long> deltas = invocation.getArgument(1);
+            for (int i = 0; i < productIds.size(); i++) {
+                written.merge(productIds.get(i), deltas.get(i), Long::sum);
+            }
+            return null;
+        }).when(productRepository).incrementViewCounts(anyList(), anyList());
+        ProductViewCounter counter = new ProductViewCounter(productRepository);
+
+        AtomicBoolean viewing = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (viewing.get()) {
+                counter.flush();
+            }
+        });
+        flusher.start();
+
+        ExecutorService viewers = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            viewers.submit(() -> {
+                for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                    counter.increment(i % PRODUCTS);
+                }
+            });
+        }
+        viewers.shutdown();
+        assertTrue(viewers.awaitTermination(1, TimeUnit.MINUTES));
+        viewing.set(false);
+        flusher.join();
+        counter.flush();
+
+        for (long productId = 0; productId < PRODUCTS; productId++) {
+            assertEquals(THREADS * VIEWS_PER_THREAD / PRODUCTS, written.getOrDefault(productId, 0L));
+            assertEquals(0L, counter.pendingViews(productId));
+        }
+    }
+}
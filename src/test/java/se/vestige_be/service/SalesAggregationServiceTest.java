@@ -0,0 +1,34 @@
+package se.vestige_be.service;
+
+import org.junit.jupiter.api.Test;
+import se.vestige_be.repository.OrderItemRepository;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesAggregationServiceTest {
+
+    private static final Pattern BAND_FLOOR = Pattern.compile("oi\\.price >= (\\d+) THEN (\\d+)");
+
+    @Test
+    void priceBandQueryUsesTheSameFloorsAsTheResponse() {
+        Map<Integer, Long> floorsByBand = new TreeMap<>();
+        Matcher matcher = BAND_FLOOR.matcher(OrderItemRepository.SALES_PRICE_BAND);
+        while (matcher.find()) {
+            floorsByBand.put(Integer.parseInt(matcher.group(2)), Long.parseLong(matcher.group(1)));
+        }
+        assertTrue(OrderItemRepository.SALES_PRICE_BAND.endsWith("ELSE 0 END"));
+        assertEquals(0L, SalesAggregationService.PRICE_BAND_FLOORS[0]);
+
+        assertEquals(SalesAggregationService.PRICE_BAND_FLOORS.length - 1, floorsByBand.size());
+        for (int band = 1; band < SalesAggregationService.PRICE_BAND_FLOORS.length; band++) {
+            assertEquals(SalesAggregationService.PRICE_BAND_FLOORS[band], floorsByBand.get(band),
+                    "floor of price band " + band);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package se.vestige_be.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 64_000;
+    private static final long KEYS = 16;
+
+    @Test
+    void concurrentAddsAndFlushesConserveTotals() throws Exception {
+        Map<Long, Long> written = new ConcurrentHashMap<>();
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindCounter counter = new WriteBehindCounter("test", (keys, deltas) -> {
+            // Every third write fails and must be retried by a later flush
+            if (writes.incrementAndGet() % 3 == 0) {
+                throw new IllegalStateException("write failed");
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                written.merge(keys.get(i), deltas.get(i), Long::sum);
+            }
+        });
+
+        ExecutorService adders = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            adders.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    // Unlike-style negative deltas drive keys back to zero, the case that used to drop entries
+                    counter.add(i % KEYS, (i / KEYS) % 2 == 0 ? 1 : -1);
+                    counter.add(i % KEYS + KEYS, 1);
+                }
+                return null;
+            });
+        }
+
+        AtomicBoolean adding = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (adding.get()) {
+                counter.flush();
+            }
+        });
+        flusher.start();
+        start.countDown();
+        adders.shutdown();
+        assertTrue(adders.awaitTermination(1, TimeUnit.MINUTES));
+        adding.set(false);
+        flusher.join();
+
+        // Drain what is left, retrying past failed writes
+        for (int i = 0; i < 3; i++) {
+            counter.flush();
+        }
+
+        long expectedPerKey = (long) THREADS * ADDS_PER_THREAD / KEYS;
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(0L, written.getOrDefault(key, 0L), "key " + key);
+            assertEquals(expectedPerKey, written.getOrDefault(key + KEYS, 0L), "key " + (key + KEYS));
+            assertEquals(0L, counter.pending(key));
+            assertEquals(0L, counter.pending(key + KEYS));
+        }
+    }
+
+    @Test
+    void failedWriteKeepsDeltasPending() {
+        WriteBehindCounter counter = new WriteBehindCounter("test", (keys, deltas) -> {
+            throw new IllegalStateException("write failed");
+        });
+        counter.add(1L, 3);
+        counter.add(1L, 2);
+
+        counter.flush();
+
+        assertEquals(5L, counter.pending(1L));
+    }
+}